@@ -21,6 +21,14 @@ public class ApplicationProperties {
     public Password password = new Password();
     public Override override = new Override();
     public Flags flags = new Flags();
+    public Scheduler scheduler = new Scheduler();
+    public Worker worker = new Worker();
+    public Publish publish = new Publish();
+    public RateLimit rateLimit = new RateLimit();
+    public Git git = new Git();
+    public Bfg bfg = new Bfg();
+    public Upload upload = new Upload();
+    public Progress progress = new Progress();
 
     public Work getWork() {
         return work;
@@ -82,6 +90,70 @@ public class ApplicationProperties {
         this.flags = flags;
     }
 
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public Worker getWorker() {
+        return worker;
+    }
+
+    public void setWorker(Worker worker) {
+        this.worker = worker;
+    }
+
+    public Publish getPublish() {
+        return publish;
+    }
+
+    public void setPublish(Publish publish) {
+        this.publish = publish;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Git getGit() {
+        return git;
+    }
+
+    public void setGit(Git git) {
+        this.git = git;
+    }
+
+    public Bfg getBfg() {
+        return bfg;
+    }
+
+    public void setBfg(Bfg bfg) {
+        this.bfg = bfg;
+    }
+
+    public Upload getUpload() {
+        return upload;
+    }
+
+    public void setUpload(Upload upload) {
+        this.upload = upload;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
     public static class Work {
 
         public String directory = System.getenv("java.io.tmpdir");
@@ -90,6 +162,18 @@ public class ApplicationProperties {
 
         public Boolean cleanAtTheEnd = false;
 
+        public Boolean resumeOnStartup = true;
+
+        /**
+         * Maximum duration of a single command, it is killed beyond. 0 waits without limit.
+         */
+        public long commandTimeoutMinutes = 0;
+
+        /**
+         * Number of removed files inserted in database in a single JDBC batch.
+         */
+        public Integer removedFilesBatchSize = 500;
+
         public String getDirectory() {
             return directory;
         }
@@ -109,6 +193,18 @@ public class ApplicationProperties {
         public Boolean getCleanAtTheEnd() { return cleanAtTheEnd; }
 
         public void setCleanAtTheEnd(Boolean cleanAtTheEnd) { this.cleanAtTheEnd = cleanAtTheEnd; }
+
+        public Boolean getResumeOnStartup() { return resumeOnStartup; }
+
+        public void setResumeOnStartup(Boolean resumeOnStartup) { this.resumeOnStartup = resumeOnStartup; }
+
+        public long getCommandTimeoutMinutes() { return commandTimeoutMinutes; }
+
+        public void setCommandTimeoutMinutes(long commandTimeoutMinutes) { this.commandTimeoutMinutes = commandTimeoutMinutes; }
+
+        public Integer getRemovedFilesBatchSize() { return removedFilesBatchSize; }
+
+        public void setRemovedFilesBatchSize(Integer removedFilesBatchSize) { this.removedFilesBatchSize = removedFilesBatchSize; }
     }
 
     public static class Svn {
@@ -139,6 +235,36 @@ public class ApplicationProperties {
          */
         public Integer maxFetchAttempts;
 
+        /**
+         * Analyze SVN tree before cloning it
+         */
+        public Boolean analysis = true;
+        /**
+         * Also look for forbidden files in SVN history during analysis
+         */
+        public Boolean analyzeHistory = false;
+        /**
+         * Ignore folders only containing files with forbidden extensions, so that git svn does not fetch them.
+         * Requires history analysis, folders are only reported otherwise.
+         */
+        public Boolean autoIgnorePaths = true;
+        /**
+         * Number of biggest files reported by analysis
+         */
+        public Integer biggestPaths = 20;
+        /**
+         * Scan SVN log before cloning, to start clone at first revision of the project
+         */
+        public Boolean revisionScan = true;
+        /**
+         * Max revisions requested per SVN log by git svn, when project revisions are sparse
+         */
+        public Integer maxLogWindowSize = 10000;
+        /**
+         * Replicate SVN project in a local repository with svnsync, then clone from it
+         */
+        public Boolean mirror = false;
+
         public String getUser() {
             return user;
         }
@@ -182,6 +308,34 @@ public class ApplicationProperties {
         public Integer getMaxFetchAttempts() { return maxFetchAttempts; }
 
         public void setMaxFetchAttempts(Integer maxFetchAttempts) { this.maxFetchAttempts = maxFetchAttempts; }
+
+        public Boolean getAnalysis() { return analysis; }
+
+        public void setAnalysis(Boolean analysis) { this.analysis = analysis; }
+
+        public Boolean getAnalyzeHistory() { return analyzeHistory; }
+
+        public void setAnalyzeHistory(Boolean analyzeHistory) { this.analyzeHistory = analyzeHistory; }
+
+        public Boolean getAutoIgnorePaths() { return autoIgnorePaths; }
+
+        public void setAutoIgnorePaths(Boolean autoIgnorePaths) { this.autoIgnorePaths = autoIgnorePaths; }
+
+        public Integer getBiggestPaths() { return biggestPaths; }
+
+        public void setBiggestPaths(Integer biggestPaths) { this.biggestPaths = biggestPaths; }
+
+        public Boolean getRevisionScan() { return revisionScan; }
+
+        public void setRevisionScan(Boolean revisionScan) { this.revisionScan = revisionScan; }
+
+        public Integer getMaxLogWindowSize() { return maxLogWindowSize; }
+
+        public void setMaxLogWindowSize(Integer maxLogWindowSize) { this.maxLogWindowSize = maxLogWindowSize; }
+
+        public Boolean getMirror() { return mirror; }
+
+        public void setMirror(Boolean mirror) { this.mirror = mirror; }
     }
 
     public static class Gitlab {
@@ -210,7 +364,7 @@ public class ApplicationProperties {
          */
         public List<String> dynamicLocalConfig;
         /**
-         * Pause between push to gitlab
+         * Pause between push to gitlab, when rate limiting is disabled
          */
         public long gitPushPauseMilliSeconds;
         /**
@@ -329,7 +483,7 @@ public class ApplicationProperties {
         public String binariesDirectory;
 
         /*
-         * To avoid overload of Artifactory a configurable pause between uploads.
+         * To avoid overload of Artifactory a configurable pause between uploads, when rate limiting is disabled.
          */
         public long uploadPauseMilliSeconds;
 
@@ -546,4 +700,317 @@ public class ApplicationProperties {
             this.alpine = alpine;
         }
     }
+
+    public static class Scheduler {
+        /**
+         * Max number of migrations running at the same time.
+         */
+        public Integer migrations = 1;
+        /**
+         * Max number of concurrent git svn clone.
+         */
+        public Integer svnClone = 1;
+        /**
+         * Max number of concurrent BFG history rewrites.
+         */
+        public Integer bfgRewrite = 1;
+        /**
+         * Max number of concurrent push phases to GitLab.
+         */
+        public Integer gitlabPush = 1;
+        /**
+         * Max number of files uploaded at the same time to binary repositories, all migrations & targets included.
+         */
+        public Integer artifactUpload = 4;
+        /**
+         * Number of threads running independent steps of migrations.
+         */
+        public Integer steps = 4;
+        /**
+         * Number of threads scanning repository objects to list cleaned files. 0 uses available processors.
+         */
+        public Integer scanThreads = 0;
+
+        public Integer getMigrations() { return migrations; }
+
+        public void setMigrations(Integer migrations) { this.migrations = migrations; }
+
+        public Integer getSvnClone() { return svnClone; }
+
+        public void setSvnClone(Integer svnClone) { this.svnClone = svnClone; }
+
+        public Integer getBfgRewrite() { return bfgRewrite; }
+
+        public void setBfgRewrite(Integer bfgRewrite) { this.bfgRewrite = bfgRewrite; }
+
+        public Integer getGitlabPush() { return gitlabPush; }
+
+        public void setGitlabPush(Integer gitlabPush) { this.gitlabPush = gitlabPush; }
+
+        public Integer getArtifactUpload() { return artifactUpload; }
+
+        public void setArtifactUpload(Integer artifactUpload) { this.artifactUpload = artifactUpload; }
+
+        public Integer getSteps() { return steps; }
+
+        public void setSteps(Integer steps) { this.steps = steps; }
+
+        public Integer getScanThreads() { return scanThreads; }
+
+        public void setScanThreads(Integer scanThreads) { this.scanThreads = scanThreads; }
+    }
+
+    public static class Worker {
+        /**
+         * Worker mode : migrations are claimed from database by polling nodes instead of started directly.
+         */
+        public boolean enabled = false;
+        /**
+         * Node identifier, should be stable across restarts. Hostname is used if empty, so nodes sharing a host must set it.
+         */
+        public String nodeId = "";
+        /**
+         * Delay between two polls of waiting migrations.
+         */
+        public long pollMilliSeconds = 10000;
+        /**
+         * Lease duration without heartbeat before a migration can be reclaimed by another node.
+         */
+        public long leaseSeconds = 120;
+
+        public boolean isEnabled() { return enabled; }
+
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getNodeId() { return nodeId; }
+
+        public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+        public long getPollMilliSeconds() { return pollMilliSeconds; }
+
+        public void setPollMilliSeconds(long pollMilliSeconds) { this.pollMilliSeconds = pollMilliSeconds; }
+
+        public long getLeaseSeconds() { return leaseSeconds; }
+
+        public void setLeaseSeconds(long leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+    }
+
+    public static class Publish {
+        /**
+         * Number of git worktrees used to publish branches and tags concurrently. 1 keeps publishing sequential.
+         */
+        public int parallelWorkers = 1;
+        /**
+         * Number of refs pushed in a single git push when they are pushed without checkout. 1 pushes refs one by one.
+         */
+        public int pushBatchSize = 1;
+        /**
+         * Push each batch with --atomic, so that either all or none of its refs are updated.
+         */
+        public boolean atomicPush = false;
+        /**
+         * Number of retries of refs that failed to be pushed in a batch.
+         */
+        public int pushRetries = 2;
+
+        public int getParallelWorkers() { return parallelWorkers; }
+
+        public void setParallelWorkers(int parallelWorkers) { this.parallelWorkers = parallelWorkers; }
+
+        public int getPushBatchSize() { return pushBatchSize; }
+
+        public void setPushBatchSize(int pushBatchSize) { this.pushBatchSize = pushBatchSize; }
+
+        public boolean isAtomicPush() { return atomicPush; }
+
+        public void setAtomicPush(boolean atomicPush) { this.atomicPush = atomicPush; }
+
+        public int getPushRetries() { return pushRetries; }
+
+        public void setPushRetries(int pushRetries) { this.pushRetries = pushRetries; }
+    }
+
+    public static class RateLimit {
+        /**
+         * Adaptive rate limiting of pushes, API calls & uploads for each server. When disabled, fixed pauses are used.
+         */
+        public boolean enabled = true;
+        /**
+         * Requests per second allowed on a server before any feedback.
+         */
+        public double initialRate = 5;
+        /**
+         * Lowest rate a server can be throttled to.
+         */
+        public double minRate = 0.1;
+        /**
+         * Highest rate a server can reach when answering well.
+         */
+        public double maxRate = 50;
+        /**
+         * Requests that can be sent at once to an idle server.
+         */
+        public int burst = 5;
+        /**
+         * Latency above which a server is considered as loaded and rate is slightly reduced.
+         */
+        public long latencyThresholdMilliSeconds = 10000;
+
+        public boolean isEnabled() { return enabled; }
+
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getInitialRate() { return initialRate; }
+
+        public void setInitialRate(double initialRate) { this.initialRate = initialRate; }
+
+        public double getMinRate() { return minRate; }
+
+        public void setMinRate(double minRate) { this.minRate = minRate; }
+
+        public double getMaxRate() { return maxRate; }
+
+        public void setMaxRate(double maxRate) { this.maxRate = maxRate; }
+
+        public int getBurst() { return burst; }
+
+        public void setBurst(int burst) { this.burst = burst; }
+
+        public long getLatencyThresholdMilliSeconds() { return latencyThresholdMilliSeconds; }
+
+        public void setLatencyThresholdMilliSeconds(long latencyThresholdMilliSeconds) { this.latencyThresholdMilliSeconds = latencyThresholdMilliSeconds; }
+    }
+
+    public static class Git {
+        /**
+         * Backend of ref, tag, config & remote operations : jgit runs them in process, cli forks a git command for each.
+         * Working tree updates (checkout, add) always use git command line, faster on large trees.
+         */
+        public String backend = "jgit";
+
+        public String getBackend() { return backend; }
+
+        public void setBackend(String backend) { this.backend = backend; }
+    }
+
+    public static class Bfg {
+        /**
+         * Run BFG in a forked JVM instead of in the server heap.
+         */
+        public boolean fork = true;
+        /**
+         * Max heap of forked BFG JVMs (-Xmx).
+         */
+        public String maxHeap = "2g";
+        /**
+         * Maximum duration of a BFG rewrite, it is killed beyond. 0 waits without limit.
+         */
+        public long timeoutMinutes = 0;
+        /**
+         * Additional options of forked BFG JVMs, space separated.
+         */
+        public String jvmOptions = "";
+
+        public boolean isFork() { return fork; }
+
+        public void setFork(boolean fork) { this.fork = fork; }
+
+        public String getMaxHeap() { return maxHeap; }
+
+        public void setMaxHeap(String maxHeap) { this.maxHeap = maxHeap; }
+
+        public long getTimeoutMinutes() { return timeoutMinutes; }
+
+        public void setTimeoutMinutes(long timeoutMinutes) { this.timeoutMinutes = timeoutMinutes; }
+
+        public String getJvmOptions() { return jvmOptions; }
+
+        public void setJvmOptions(String jvmOptions) { this.jvmOptions = jvmOptions; }
+    }
+
+    public static class Upload {
+        /**
+         * Number of files uploaded at the same time to GitLab generic packages.
+         */
+        public Integer gitlabParallelism = 2;
+        /**
+         * Number of files uploaded at the same time to Artifactory.
+         */
+        public Integer artifactoryParallelism = 2;
+        /**
+         * Number of files uploaded at the same time to Nexus.
+         */
+        public Integer nexusParallelism = 2;
+        /**
+         * Number of attempts to upload a file before giving up.
+         */
+        public Integer maxAttempts = 3;
+        /**
+         * Pause before second attempt, doubled for each following one.
+         */
+        public Long backoffMilliSeconds = 1000L;
+        /**
+         * Number of tags whose files are extracted & waiting for upload, listing pauses beyond.
+         */
+        public Integer maxPendingTags = 4;
+        /**
+         * Timeout to connect to a binary repository.
+         */
+        public Integer connectTimeoutSeconds = 30;
+        /**
+         * Timeout waiting for the response of a binary repository, once file is sent.
+         */
+        public Integer readTimeoutSeconds = 600;
+
+        public Integer getGitlabParallelism() { return gitlabParallelism; }
+
+        public void setGitlabParallelism(Integer gitlabParallelism) { this.gitlabParallelism = gitlabParallelism; }
+
+        public Integer getArtifactoryParallelism() { return artifactoryParallelism; }
+
+        public void setArtifactoryParallelism(Integer artifactoryParallelism) { this.artifactoryParallelism = artifactoryParallelism; }
+
+        public Integer getNexusParallelism() { return nexusParallelism; }
+
+        public void setNexusParallelism(Integer nexusParallelism) { this.nexusParallelism = nexusParallelism; }
+
+        public Integer getMaxAttempts() { return maxAttempts; }
+
+        public void setMaxAttempts(Integer maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public Long getBackoffMilliSeconds() { return backoffMilliSeconds; }
+
+        public void setBackoffMilliSeconds(Long backoffMilliSeconds) { this.backoffMilliSeconds = backoffMilliSeconds; }
+
+        public Integer getMaxPendingTags() { return maxPendingTags; }
+
+        public void setMaxPendingTags(Integer maxPendingTags) { this.maxPendingTags = maxPendingTags; }
+
+        public Integer getConnectTimeoutSeconds() { return connectTimeoutSeconds; }
+
+        public void setConnectTimeoutSeconds(Integer connectTimeoutSeconds) { this.connectTimeoutSeconds = connectTimeoutSeconds; }
+
+        public Integer getReadTimeoutSeconds() { return readTimeoutSeconds; }
+
+        public void setReadTimeoutSeconds(Integer readTimeoutSeconds) { this.readTimeoutSeconds = readTimeoutSeconds; }
+    }
+
+    public static class Progress {
+        /**
+         * Period of progress samples recorded in migration history, 0 to disable them.
+         */
+        public Integer sampleSeconds = 60;
+        /**
+         * Max number of samples kept in history for each phase, older ones are dropped.
+         */
+        public Integer maxSamples = 60;
+
+        public Integer getSampleSeconds() { return sampleSeconds; }
+
+        public void setSampleSeconds(Integer sampleSeconds) { this.sampleSeconds = sampleSeconds; }
+
+        public Integer getMaxSamples() { return maxSamples; }
+
+        public void setMaxSamples(Integer maxSamples) { this.maxSamples = maxSamples; }
+    }
 }
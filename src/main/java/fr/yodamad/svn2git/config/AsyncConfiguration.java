@@ -18,6 +18,8 @@ import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 @Configuration
 @EnableAsync
@@ -28,7 +30,12 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     private final JHipsterProperties jHipsterProperties;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) { this.jHipsterProperties = jHipsterProperties; }
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
+    }
 
     @Override
     @Bean(name = "taskExecutor")
@@ -43,6 +50,70 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor dedicated to migrations, sized by application.scheduler.migrations.
+     * Its pool size is adjusted at runtime by the migration scheduler.
+     */
+    @Bean(name = "migrationExecutor")
+    @Qualifier(value = "migrationExecutor")
+    public ThreadPoolTaskExecutor migrationExecutor() {
+        log.debug("Creating Migration Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.scheduler.migrations);
+        executor.setMaxPoolSize(applicationProperties.scheduler.migrations);
+        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
+        executor.setThreadNamePrefix("svn-2-git-Migration-");
+        return executor;
+    }
+
+    /**
+     * Executor running independent steps of migrations concurrently, sized by application.scheduler.steps.
+     */
+    @Bean(name = "stepExecutor")
+    @Qualifier(value = "stepExecutor")
+    public ThreadPoolTaskExecutor stepExecutor() {
+        log.debug("Creating Step Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.scheduler.steps);
+        executor.setMaxPoolSize(applicationProperties.scheduler.steps);
+        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
+        executor.setThreadNamePrefix("svn-2-git-Step-");
+        return executor;
+    }
+
+    /**
+     * Executor publishing branches & tags from worktrees, sized by application.publish.parallelWorkers for each push slot.
+     * Resized by MigrationScheduler when push slots change.
+     */
+    @Bean(name = "publishExecutor")
+    @Qualifier(value = "publishExecutor")
+    public ThreadPoolTaskExecutor publishExecutor() {
+        log.debug("Creating Publish Task Executor");
+        int size = Math.max(1, applicationProperties.publish.parallelWorkers) * applicationProperties.scheduler.gitlabPush;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
+        executor.setThreadNamePrefix("svn-2-git-Publish-");
+        return executor;
+    }
+
+    /**
+     * Pool scanning repository objects to list cleaned files, sized by application.scheduler.scanThreads.
+     */
+    @Bean(name = "scanPool", destroyMethod = "shutdown")
+    @Qualifier(value = "scanPool")
+    public ForkJoinPool scanPool() {
+        log.debug("Creating Scan Pool");
+        int parallelism = applicationProperties.scheduler.scanThreads > 0
+            ? applicationProperties.scheduler.scanThreads : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("svn-2-git-Scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
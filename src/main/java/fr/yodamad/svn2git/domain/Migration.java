@@ -154,10 +154,22 @@ public class Migration implements Serializable {
     @JsonView(View.Public.class)
     private Boolean cleaning = true;
 
+    @Column(name = "lfs")
+    @JsonView(View.Public.class)
+    private Boolean lfs = false;
+
     @Column(name = "uppercase")
     @JsonView(View.Public.class)
     private Boolean uppercase = false;
 
+    @Column(name = "checkpoint")
+    @JsonView(View.Public.class)
+    private String checkpoint;
+
+    @Column(name = "workspace")
+    @JsonView(View.Public.class)
+    private String workspace;
+
     @OneToMany(mappedBy = "migration")
     @OrderBy("id ASC")
     private Set<MigrationHistory> histories = new HashSet<>();
@@ -562,6 +574,28 @@ public class Migration implements Serializable {
 
     public void setEmptyDirs(Boolean emptyDirs) { this.emptyDirs = emptyDirs; }
 
+    public Boolean getLfs() { return lfs; }
+
+    public void setLfs(Boolean lfs) { this.lfs = lfs; }
+
+    public String getCheckpoint() { return checkpoint; }
+
+    public Migration checkpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    public void setCheckpoint(String checkpoint) { this.checkpoint = checkpoint; }
+
+    public String getWorkspace() { return workspace; }
+
+    public Migration workspace(String workspace) {
+        this.workspace = workspace;
+        return this;
+    }
+
+    public void setWorkspace(String workspace) { this.workspace = workspace; }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
     @Override
@@ -605,11 +639,14 @@ public class Migration implements Serializable {
             ", tags='" + getTags() + "'" +
             ", flat='" + getFlat() + "'" +
             ", cleaning='" + getCleaning() + "'" +
+            ", lfs='" + getLfs() + "'" +
             ", svnHistory='" + getSvnHistory() + "'" +
             ", tagsToMigrate='" + getTagsToMigrate() + "'" +
             ", branchesToMigrate='" + getBranchesToMigrate() + "'" +
             ", createdTimestamp='" + getCreatedTimestamp() + "'" +
             ", workingDirectory='" + getWorkingDirectory() + "'" +
+            ", checkpoint='" + getCheckpoint() + "'" +
+            ", workspace='" + getWorkspace() + "'" +
             "}";
     }
 }
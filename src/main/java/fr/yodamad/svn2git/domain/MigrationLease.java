@@ -0,0 +1,94 @@
+package fr.yodamad.svn2git.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A MigrationLease : ownership of a migration by a worker node.
+ */
+@Entity
+@Table(name = "migration_lease")
+public class MigrationLease implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "migration_id")
+    private Long migrationId;
+
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    @Column(name = "heartbeat", nullable = false)
+    private Instant heartbeat;
+
+    public Long getMigrationId() {
+        return migrationId;
+    }
+
+    public MigrationLease migrationId(Long migrationId) {
+        this.migrationId = migrationId;
+        return this;
+    }
+
+    public void setMigrationId(Long migrationId) {
+        this.migrationId = migrationId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public MigrationLease owner(String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getHeartbeat() {
+        return heartbeat;
+    }
+
+    public MigrationLease heartbeat(Instant heartbeat) {
+        this.heartbeat = heartbeat;
+        return this;
+    }
+
+    public void setHeartbeat(Instant heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MigrationLease lease = (MigrationLease) o;
+        if (lease.getMigrationId() == null || getMigrationId() == null) {
+            return false;
+        }
+        return Objects.equals(getMigrationId(), lease.getMigrationId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getMigrationId());
+    }
+
+    @Override
+    public String toString() {
+        return "MigrationLease{" +
+            "migrationId=" + getMigrationId() +
+            ", owner='" + getOwner() + "'" +
+            ", heartbeat='" + getHeartbeat() + "'" +
+            "}";
+    }
+}
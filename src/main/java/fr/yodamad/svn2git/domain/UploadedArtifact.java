@@ -0,0 +1,203 @@
+package fr.yodamad.svn2git.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An UploadedArtifact : file removed from a tag and uploaded to a binary repository, indexed by content.
+ */
+@Entity
+@Table(name = "uploaded_artifact")
+public class UploadedArtifact implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "migration_id", nullable = false)
+    private Long migrationId;
+
+    /**
+     * Binary repository : gitlab, artifactory or nexus
+     */
+    @Column(name = "target", nullable = false)
+    private String target;
+
+    /**
+     * Path of the artifact in the binary repository
+     */
+    @Column(name = "path", nullable = false)
+    private String path;
+
+    /**
+     * SHA-1 of the content
+     */
+    @Column(name = "sha1", nullable = false)
+    private String sha1;
+
+    @Column(name = "svn_location")
+    private String svnLocation;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    /**
+     * Path of the identical artifact already uploaded, when this one has been skipped
+     */
+    @Column(name = "linked_to")
+    private String linkedTo;
+
+    @Column(name = "uploaded_at", nullable = false)
+    private Instant uploadedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getMigrationId() {
+        return migrationId;
+    }
+
+    public UploadedArtifact migrationId(Long migrationId) {
+        this.migrationId = migrationId;
+        return this;
+    }
+
+    public void setMigrationId(Long migrationId) {
+        this.migrationId = migrationId;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public UploadedArtifact target(String target) {
+        this.target = target;
+        return this;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public UploadedArtifact path(String path) {
+        this.path = path;
+        return this;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    public UploadedArtifact sha1(String sha1) {
+        this.sha1 = sha1;
+        return this;
+    }
+
+    public void setSha1(String sha1) {
+        this.sha1 = sha1;
+    }
+
+    public String getSvnLocation() {
+        return svnLocation;
+    }
+
+    public UploadedArtifact svnLocation(String svnLocation) {
+        this.svnLocation = svnLocation;
+        return this;
+    }
+
+    public void setSvnLocation(String svnLocation) {
+        this.svnLocation = svnLocation;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public UploadedArtifact fileSize(Long fileSize) {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getLinkedTo() {
+        return linkedTo;
+    }
+
+    public UploadedArtifact linkedTo(String linkedTo) {
+        this.linkedTo = linkedTo;
+        return this;
+    }
+
+    public void setLinkedTo(String linkedTo) {
+        this.linkedTo = linkedTo;
+    }
+
+    public Instant getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public UploadedArtifact uploadedAt(Instant uploadedAt) {
+        this.uploadedAt = uploadedAt;
+        return this;
+    }
+
+    public void setUploadedAt(Instant uploadedAt) {
+        this.uploadedAt = uploadedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UploadedArtifact artifact = (UploadedArtifact) o;
+        if (artifact.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), artifact.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "UploadedArtifact{" +
+            "id=" + getId() +
+            ", migrationId=" + getMigrationId() +
+            ", target='" + getTarget() + "'" +
+            ", path='" + getPath() + "'" +
+            ", sha1='" + getSha1() + "'" +
+            ", svnLocation='" + getSvnLocation() + "'" +
+            ", fileSize=" + getFileSize() +
+            ", linkedTo='" + getLinkedTo() + "'" +
+            ", uploadedAt='" + getUploadedAt() + "'" +
+            "}";
+    }
+}
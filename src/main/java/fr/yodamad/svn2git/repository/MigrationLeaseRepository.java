@@ -0,0 +1,66 @@
+package fr.yodamad.svn2git.repository;
+
+import fr.yodamad.svn2git.domain.MigrationLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the MigrationLease entity.
+ * Claims rely on conditional inserts & updates, and on primary key unicity, so that only one node can win.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface MigrationLeaseRepository extends JpaRepository<MigrationLease, Long> {
+
+    /**
+     * Create a lease if migration is waiting and not leased yet.
+     * Fails with a constraint violation if another node inserted the lease concurrently
+     * @return 1 if lease has been created
+     */
+    @Modifying
+    @Query(value = "insert into migration_lease (migration_id, owner, heartbeat) select m.id, :owner, :now from migration m " +
+        "where m.id = :migrationId and m.status = 'WAITING' " +
+        "and not exists (select 1 from migration_lease l where l.migration_id = :migrationId)", nativeQuery = true)
+    int insertLease(@Param("migrationId") Long migrationId, @Param("owner") String owner, @Param("now") Instant now);
+
+    /**
+     * Take over a lease if it has expired and migration is waiting
+     * @return 1 if lease has been taken
+     */
+    @Modifying
+    @Query("update MigrationLease l set l.owner = :owner, l.heartbeat = :now where l.migrationId = :migrationId and l.heartbeat < :expiry " +
+        "and exists (select m.id from Migration m where m.id = :migrationId " +
+        "and m.status = fr.yodamad.svn2git.domain.enumeration.StatusEnum.WAITING)")
+    int takeOver(@Param("migrationId") Long migrationId, @Param("owner") String owner, @Param("now") Instant now, @Param("expiry") Instant expiry);
+
+    /**
+     * Refresh all leases of a node
+     */
+    @Modifying
+    @Query("update MigrationLease l set l.heartbeat = :now where l.owner = :owner")
+    int heartbeat(@Param("owner") String owner, @Param("now") Instant now);
+
+    /**
+     * Remove a lease if still owned by given node
+     */
+    @Modifying
+    @Query("delete from MigrationLease l where l.migrationId = :migrationId and l.owner = :owner")
+    int release(@Param("migrationId") Long migrationId, @Param("owner") String owner);
+
+    /**
+     * Remove a lease if still expired
+     */
+    @Modifying
+    @Query("delete from MigrationLease l where l.migrationId = :migrationId and l.heartbeat < :expiry")
+    int deleteExpired(@Param("migrationId") Long migrationId, @Param("expiry") Instant expiry);
+
+    List<MigrationLease> findAllByOwner(String owner);
+
+    List<MigrationLease> findAllByHeartbeatBefore(Instant expiry);
+}
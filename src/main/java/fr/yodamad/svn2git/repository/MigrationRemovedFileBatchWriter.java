@@ -0,0 +1,94 @@
+package fr.yodamad.svn2git.repository;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.domain.MigrationRemovedFile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer inserting MigrationRemovedFile rows with JDBC batches.
+ * Identity ids prevent Hibernate from batching inserts, so rows are written directly and flushed every
+ * application.work.removedFilesBatchSize rows instead of being saved one at a time.
+ */
+@Repository
+public class MigrationRemovedFileBatchWriter {
+
+    private static final String INSERT =
+        "insert into migration_removed_file (svn_location, path, reason, file_size, migration_id) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties applicationProperties;
+
+    public MigrationRemovedFileBatchWriter(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Open a batch, rows added are inserted each time batch size is reached and when batch is closed
+     */
+    public Batch open() {
+        return new Batch(Math.max(1, applicationProperties.work.removedFilesBatchSize));
+    }
+
+    private void insert(List<MigrationRemovedFile> files) {
+        jdbcTemplate.batchUpdate(INSERT, files, files.size(), (ps, file) -> {
+            ps.setString(1, file.getSvnLocation());
+            ps.setString(2, file.getPath());
+            ps.setString(3, file.getReason().name());
+            if (file.getFileSize() == null) ps.setNull(4, Types.BIGINT);
+            else ps.setLong(4, file.getFileSize());
+            ps.setLong(5, file.getMigration().getId());
+        });
+    }
+
+    /**
+     * Pending rows, not thread safe
+     */
+    public class Batch implements Closeable {
+
+        private final int size;
+        private final List<MigrationRemovedFile> pending;
+        private long written = 0;
+
+        private Batch(int size) {
+            this.size = size;
+            this.pending = new ArrayList<>(size);
+        }
+
+        /**
+         * Add a row, inserting pending rows if batch is full
+         */
+        public void add(MigrationRemovedFile file) {
+            pending.add(file);
+            if (pending.size() >= size) flush();
+        }
+
+        /**
+         * Insert pending rows
+         */
+        public void flush() {
+            if (pending.isEmpty()) return;
+            insert(pending);
+            written += pending.size();
+            pending.clear();
+        }
+
+        /**
+         * @return number of rows inserted so far
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package fr.yodamad.svn2git.repository;
+
+import fr.yodamad.svn2git.domain.UploadedArtifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Spring Data  repository for the UploadedArtifact entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface UploadedArtifactRepository extends JpaRepository<UploadedArtifact, Long> {
+
+    /**
+     * Find all artifacts uploaded to a binary repository for a migration
+     * @param migrationId Migration ID
+     * @param target Binary repository
+     * @return List of artifacts
+     */
+    List<UploadedArtifact> findAllByMigrationIdAndTarget(Long migrationId, String target);
+}
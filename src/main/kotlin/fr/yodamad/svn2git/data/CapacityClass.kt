@@ -0,0 +1,17 @@
+package fr.yodamad.svn2git.data
+
+/**
+ * Capacity classes handled by the migration scheduler
+ */
+enum class CapacityClass {
+    /** Migrations admitted at the same time */
+    MIGRATION,
+    /** git svn clone & fetch */
+    SVN_CLONE,
+    /** BFG history rewrites */
+    BFG_REWRITE,
+    /** Push of master, branches & tags to GitLab */
+    GITLAB_PUSH,
+    /** Upload of a file to GitLab registry, Artifactory or Nexus */
+    ARTIFACT_UPLOAD
+}
@@ -0,0 +1,68 @@
+package fr.yodamad.svn2git.data
+
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.enumeration.Reason
+import fr.yodamad.svn2git.functions.extensionGlobs
+import org.apache.commons.lang3.StringUtils
+
+/**
+ * Cleaning rules of a migration, parsed once and shared by all threads scanning its files
+ *
+ * @param forbiddenFileExtensions Forbidden extensions, comma separated (*.jar,*.zip)
+ * @param maxFileSize             Max size of a file (500K, 10M, 1G)
+ */
+class CleaningRules(forbiddenFileExtensions: String?, maxFileSize: String?) {
+
+    /** Suffixes of forbidden files, lower & upper case */
+    private val suffixes: List<String> = extensionGlobs(forbiddenFileExtensions)
+        .map { it.replaceFirst("*", "") }
+        .filter { it.isNotEmpty() }
+        .distinct()
+
+    /** Max size of a file in bytes, null if not limited */
+    val maxSize: Long? = if (!StringUtils.isEmpty(maxFileSize) && Character.isDigit(maxFileSize!![0])) {
+        val digits = java.lang.Long.valueOf(StringUtils.chop(maxFileSize))
+        when (maxFileSize.substring(maxFileSize.length - 1)) {
+            "G" -> digits * 1024 * 1024 * 1024
+            "M" -> digits * 1024 * 1024
+            "K" -> digits * 1024
+            else -> digits
+        }
+    } else null
+
+    /**
+     * Check if a file has a forbidden extension (upper or lowercase)
+     *
+     * @param name Name (or path) of the file
+     */
+    fun isForbiddenExtension(name: String) = suffixes.any { name.endsWith(it) }
+
+    /**
+     * Check if a file exceeds max file size authorized
+     *
+     * @param size Size of the file
+     */
+    fun exceedsMaxSize(size: Long) = maxSize != null && size > maxSize
+
+    /**
+     * Reason why a file is removed by cleaning
+     *
+     * @param name Name of the file
+     * @param size Size of the file
+     * @return reason, null if file is kept
+     */
+    fun reasonOf(name: String, size: Long): Reason? = when {
+        isForbiddenExtension(name) -> Reason.EXTENSION
+        exceedsMaxSize(size) -> Reason.SIZE
+        else -> null
+    }
+
+    companion object {
+        /**
+         * Cleaning rules of a migration. With Git LFS, files with forbidden extensions are converted, not removed.
+         */
+        @JvmStatic
+        fun of(migration: Migration) =
+            CleaningRules(if (migration.lfs == true) null else migration.forbiddenFileExtensions, migration.maxFileSize)
+    }
+}
@@ -0,0 +1,62 @@
+package fr.yodamad.svn2git.data
+
+import java.io.File
+
+/**
+ * Private git & svn environment of a migration.
+ * Global configuration (gc.auto, credentials, svn auth cache, ...) is written in its own home
+ * so that concurrent migrations on the same host never share process-wide state.
+ */
+class GitEnvironment(val home: String) {
+
+    /** Global git config of the migration */
+    val globalConfig: String
+        get() = "$home/.gitconfig"
+
+    /** Subversion configuration directory used by git svn */
+    val subversionDir: String
+        get() = "$home/.subversion"
+
+    /**
+     * Initialize (or reset on reexecution) the private home.
+     * Host global configuration is included so that proxies, aliases, etc. still apply,
+     * but credential helpers are reset to avoid sharing or prompting for credentials.
+     *
+     * @param hostHome Home directory of the user running the application
+     */
+    fun init(hostHome: String = System.getProperty("user.home")) {
+        File(home).mkdirs()
+        val config = StringBuilder()
+        listOf("$hostHome/.gitconfig", "$hostHome/.config/git/config")
+            .filter { File(it).isFile }
+            .forEach { config.append("[include]\n\tpath = ${it.replace("\\", "/")}\n") }
+        config.append("[credential]\n\thelper =\n")
+        File(globalConfig).writeText(config.toString())
+
+        // Keep svn servers (proxies) & config but not cached credentials
+        File(subversionDir).mkdirs()
+        listOf("servers", "config")
+            .map { File("$hostHome/.subversion/$it") }
+            .filter { it.isFile }
+            .forEach { it.copyTo(File(subversionDir, it.name), true) }
+    }
+
+    /**
+     * @return Environment variables to set on each command of the migration
+     */
+    fun variables(): Map<String, String> = mapOf(
+        "HOME" to home,
+        "USERPROFILE" to home,
+        "XDG_CONFIG_HOME" to "$home/.config",
+        GIT_CONFIG_GLOBAL to globalConfig,
+        "GIT_TERMINAL_PROMPT" to "0")
+
+    companion object {
+        /** Folder of the private home in migration root directory */
+        const val FOLDER = ".git-env"
+        /** Variable locating global git config, supported since git 2.32 */
+        const val GIT_CONFIG_GLOBAL = "GIT_CONFIG_GLOBAL"
+
+        fun of(workUnit: WorkUnit) = GitEnvironment("${workUnit.root.replace("\\", "/")}/$FOLDER")
+    }
+}
@@ -0,0 +1,120 @@
+package fr.yodamad.svn2git.data
+
+import java.time.Instant
+import java.util.ArrayDeque
+
+/**
+ * Phase of a migration reporting its progress
+ */
+enum class ProgressPhase { CLONE, PUSH }
+
+/**
+ * Progress of a migration
+ *
+ * @param migrationId        Migration
+ * @param phase              Current phase
+ * @param currentRevision    Last SVN revision fetched
+ * @param targetRevision     Last SVN revision to fetch, null if unknown
+ * @param fetchedRevisions   Number of SVN revisions fetched
+ * @param revisionsPerSecond SVN revisions walked per second, over last minute
+ * @param etaSeconds         Estimated time before clone end, null if unknown
+ * @param bytesPushed        Bytes sent by git push
+ * @param bytesPerSecond     Bytes sent per second, over last minute
+ * @param updatedAt          Last update
+ */
+data class ProgressSnapshot(val migrationId: Long,
+                            val phase: ProgressPhase?,
+                            val currentRevision: Long?,
+                            val targetRevision: Long?,
+                            val fetchedRevisions: Long,
+                            val revisionsPerSecond: Double,
+                            val etaSeconds: Long?,
+                            val bytesPushed: Long,
+                            val bytesPerSecond: Double,
+                            val updatedAt: Instant?) {
+
+    override fun toString(): String {
+        val clone = if (currentRevision == null) "" else
+            "r$currentRevision${if (targetRevision != null) "/r$targetRevision" else ""} ($fetchedRevisions fetched, " +
+                "${"%.1f".format(revisionsPerSecond)} rev/s${if (etaSeconds != null) ", ETA ${etaSeconds / 60} min" else ""})"
+        val push = if (bytesPushed == 0L) "" else "${bytesPushed / KB} KB pushed (${"%.1f".format(bytesPerSecond / KB)} KB/s)"
+        return listOf(clone, push).filter { it.isNotEmpty() }.joinToString(", ")
+    }
+
+    private companion object {
+        const val KB = 1024L
+    }
+}
+
+/**
+ * Rate of a growing value, over a sliding window
+ *
+ * @param windowMillis Duration of the window
+ */
+class RateWindow(private val windowMillis: Long = 60_000) {
+    private val points = ArrayDeque<LongArray>()
+
+    /**
+     * Record current value
+     *
+     * @param timeMillis Time of the value
+     * @param value      Value
+     */
+    @Synchronized
+    fun add(timeMillis: Long, value: Long) {
+        points.addLast(longArrayOf(timeMillis, value))
+        // Keep a point at the window start, to compute rate over the whole window
+        while (points.size > 2 && timeMillis - points.elementAt(1)[0] >= windowMillis) points.removeFirst()
+    }
+
+    /**
+     * @return growth per second over the window, 0 if not enough values
+     */
+    @Synchronized
+    fun perSecond(): Double {
+        if (points.size < 2) return 0.0
+        val first = points.first
+        val last = points.last
+        val elapsed = last[0] - first[0]
+        return if (elapsed <= 0) 0.0 else (last[1] - first[1]) * 1000.0 / elapsed
+    }
+}
+
+/**
+ * Most recent samples of a progress, older ones being dropped once capacity is reached
+ *
+ * @param capacity Max number of samples kept
+ */
+class SampleRing(private val capacity: Int) {
+    private val samples = ArrayDeque<String>()
+    private var dropped = 0L
+
+    /**
+     * Record a sample, dropping oldest one when full
+     *
+     * @param sample Sample
+     */
+    @Synchronized
+    fun add(sample: String) {
+        samples.addLast(sample)
+        while (samples.size > capacity.coerceAtLeast(1)) {
+            samples.removeFirst()
+            dropped++
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        samples.clear()
+        dropped = 0
+    }
+
+    /**
+     * @return samples kept, one per line, preceded by number of dropped ones if any
+     */
+    @Synchronized
+    override fun toString(): String {
+        val kept = samples.joinToString(System.lineSeparator())
+        return if (dropped == 0L) kept else "... $dropped older samples dropped${System.lineSeparator()}$kept"
+    }
+}
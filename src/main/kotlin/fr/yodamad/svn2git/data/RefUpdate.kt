@@ -0,0 +1,21 @@
+package fr.yodamad.svn2git.data
+
+/**
+ * Update of a remote ref
+ *
+ * @param name   Name of migrated element, traced in history
+ * @param source Local ref to push
+ * @param target Remote ref to update
+ * @param force  Whether remote ref is overwritten, as when pushing a snapshot without history
+ */
+data class RefUpdate(val name: String, val source: String, val target: String, val force: Boolean = false) {
+    fun refspec() = "${if (force) "+" else ""}$source:$target"
+}
+
+/**
+ * Result of a ref update reported by git push --porcelain
+ *
+ * @param accepted Whether remote ref has been updated (or was already up to date)
+ * @param summary  Summary of update, with rejection reason if any
+ */
+data class PushResult(val accepted: Boolean, val summary: String)
@@ -0,0 +1,30 @@
+package fr.yodamad.svn2git.data
+
+/**
+ * Revisions of a SVN project, among revisions of its repository
+ *
+ * @param first First revision of the project, -1 if none
+ * @param head  Last revision of the repository
+ * @param count Number of revisions of the project
+ */
+data class RevisionScan(val first: Long, val head: Long, val count: Long) {
+
+    /**
+     * Revisions requested per SVN log by git svn, so that each request holds about as many project revisions
+     * as git svn default window, when project revisions are spread over a shared repository
+     *
+     * @param max Max window size
+     */
+    fun logWindowSize(max: Int): Int {
+        if (count <= 0 || first < 0) return DEFAULT_WINDOW
+        val span = head - first + 1
+        return (DEFAULT_WINDOW * span / count).coerceIn(DEFAULT_WINDOW.toLong(), Math.max(max, DEFAULT_WINDOW).toLong()).toInt()
+    }
+
+    override fun toString() = "$count revisions of project from r$first to r$head"
+
+    companion object {
+        /** git svn default --log-window-size */
+        const val DEFAULT_WINDOW = 100
+    }
+}
@@ -0,0 +1,148 @@
+package fr.yodamad.svn2git.data
+
+import fr.yodamad.svn2git.domain.enumeration.Reason
+import java.util.PriorityQueue
+import java.util.TreeSet
+
+/**
+ * File found in SVN repository
+ *
+ * @param path Path in the project (trunk/lib/a.jar, tags/1.0/lib/a.jar)
+ * @param size Size in bytes
+ */
+data class SvnFile(val path: String, val size: Long)
+
+/**
+ * Analysis of the content of a SVN project before cloning it : sizes of files, files removed by cleaning rules
+ * and folders only containing files with forbidden extensions, that can be ignored by git svn instead of being fetched
+ * then removed.
+ *
+ * @param rules      Cleaning rules of the migration
+ * @param maxBiggest Number of biggest files to keep
+ * @param maxSamples Number of forbidden paths to keep
+ */
+class SvnAnalysis(private val rules: CleaningRules, private val maxBiggest: Int = 20, private val maxSamples: Int = 50) {
+
+    var fileCount = 0L
+        private set
+    var totalSize = 0L
+        private set
+    var removedCount = 0L
+        private set
+    var removedSize = 0L
+        private set
+
+    /** Number of files per size bucket */
+    val histogram: Map<String, Long> get() = BUCKETS.zip(counts.toList()).toMap(LinkedHashMap())
+
+    /** Biggest files, biggest first */
+    val biggest: List<SvnFile> get() = heap.sortedByDescending { it.size }
+
+    /** Sample of files removed by cleaning rules at HEAD */
+    val removed: Set<String> get() = removedSamples
+
+    /** Sample of files with a forbidden extension added in history, no longer present at HEAD */
+    val historyOnly: Set<String> get() = historySamples
+    var historyOnlyCount = 0L
+        private set
+
+    private val counts = LongArray(BUCKETS.size)
+    private val heap = PriorityQueue<SvnFile>(compareBy { it.size })
+    private val removedSamples = TreeSet<String>()
+    private val historySamples = TreeSet<String>()
+    /** Files with a forbidden extension already counted */
+    private val forbiddenPaths = HashSet<String>()
+
+    /** Per folder, relative to trunk, branch or tag root : files kept & files with a forbidden extension */
+    private val folders = HashMap<String, LongArray>()
+    /** Folders, relative to trunk, branch or tag root, copied in history from outside of the project */
+    private val copiedFolders = HashSet<String>()
+
+    /**
+     * Add a file of the tree at HEAD
+     *
+     * @param path         Path in the project
+     * @param relativePath Path relative to its trunk, branch or tag root
+     * @param size         Size of the file
+     */
+    fun add(path: String, relativePath: String, size: Long) {
+        fileCount++
+        totalSize += size
+        counts[bucketOf(size)]++
+
+        heap.add(SvnFile(path, size))
+        if (heap.size > maxBiggest) heap.poll()
+
+        val reason = rules.reasonOf(relativePath.substringAfterLast('/'), size)
+        if (reason == Reason.EXTENSION) forbiddenPaths.add(path)
+        if (reason != null) {
+            removedCount++
+            removedSize += size
+            if (removedSamples.size < maxSamples) removedSamples.add(path)
+        }
+        // Files removed for their size may have been smaller in previous revisions
+        countInFolders(relativePath, reason == Reason.EXTENSION)
+    }
+
+    /**
+     * Add a file added in history. Files at HEAD must have been added before.
+     *
+     * @param path         Path in the project
+     * @param relativePath Path relative to its trunk, branch or tag root, null if outside of them
+     */
+    fun addFromHistory(path: String, relativePath: String?) {
+        val forbidden = rules.isForbiddenExtension(path.substringAfterLast('/'))
+        if (!forbidden && relativePath != null) countInFolders(relativePath, false)
+        if (!forbidden || !forbiddenPaths.add(path)) return
+        historyOnlyCount++
+        if (historySamples.size < maxSamples) historySamples.add(path)
+    }
+
+    /**
+     * Add a folder copied in history from outside of the project : its files are not listed, so neither it
+     * nor its sub folders can be ignored.
+     *
+     * @param relativePath Path relative to its trunk, branch or tag root, empty for the root itself
+     */
+    fun addCopiedFromHistory(relativePath: String) {
+        copiedFolders.add(relativePath)
+        countInFolders("$relativePath/", false)
+    }
+
+    /**
+     * Folders, relative to trunk, branch or tag roots, only containing files with a forbidden extension
+     * in all trunk, branches & tags. Only topmost folders are returned.
+     * Unless history has been added, folders may have held kept files in previous revisions.
+     */
+    fun ignorableFolders(): List<String> {
+        val ignorable = folders.filter { it.value[0] == 0L && it.value[1] > 0 }.keys
+            .filter { folder -> copiedFolders.none { it.isEmpty() || folder == it || folder.startsWith("$it/") } }
+        return ignorable.filter { folder -> ignorable.none { folder.startsWith("$it/") } }.sorted()
+    }
+
+    private fun countInFolders(relativePath: String, forbidden: Boolean) {
+        var slash = relativePath.indexOf('/')
+        while (slash > 0) {
+            folders.getOrPut(relativePath.substring(0, slash)) { LongArray(2) }[if (forbidden) 1 else 0]++
+            slash = relativePath.indexOf('/', slash + 1)
+        }
+    }
+
+    override fun toString(): String {
+        val lines = mutableListOf(
+            "$fileCount files, ${totalSize / KB} KB",
+            "Removed by cleaning rules : $removedCount files, ${removedSize / KB} KB",
+            "Sizes : " + histogram.entries.joinToString(", ") { "${it.key} ${it.value}" },
+            "Biggest : " + biggest.joinToString(", ") { "${it.path} (${it.size / KB} KB)" })
+        if (historyOnlyCount > 0) lines.add("Forbidden files in history only : $historyOnlyCount (${historySamples.joinToString(", ")})")
+        return lines.joinToString(System.lineSeparator())
+    }
+
+    companion object {
+        private const val KB = 1024L
+        private val LIMITS = longArrayOf(KB, 100 * KB, KB * KB, 10 * KB * KB, 100 * KB * KB)
+        private val BUCKETS = listOf("<1K", "<100K", "<1M", "<10M", "<100M", ">=100M")
+
+        private fun bucketOf(size: Long) = LIMITS.indexOfFirst { size < it }.let { if (it < 0) LIMITS.size else it }
+    }
+}
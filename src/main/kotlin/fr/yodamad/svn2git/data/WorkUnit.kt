@@ -6,5 +6,7 @@ import java.util.concurrent.atomic.AtomicBoolean
 
 /**
  * Work unit
+ * @param worktree Name of the worktree when working in one of the worktrees used to publish
  */
-data class WorkUnit(var migration: Migration, var root: String, var directory: String, var warnings: AtomicBoolean, var commandManager: CommandManager)
+data class WorkUnit(var migration: Migration, var root: String, var directory: String, var warnings: AtomicBoolean, var commandManager: CommandManager,
+                    var worktree: String? = null)
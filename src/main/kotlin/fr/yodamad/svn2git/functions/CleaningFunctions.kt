@@ -1,67 +1,74 @@
 package fr.yodamad.svn2git.functions
 
-import fr.yodamad.svn2git.data.WorkUnit
 import org.apache.commons.lang3.StringUtils
-import java.io.IOException
-import java.nio.channels.FileChannel
-import java.nio.file.Path
 import java.util.*
-import java.util.stream.Collectors
 
 /**
- * Check if current file has a forbidden extension (upper or lowercase)
+ * get List of strings from comma separated list of strings
  *
- * @param workUnit Current migration information
- * @param path     Current file
+ * @param commaSeparatedStr
  * @return
  */
-fun isForbiddenExtension(workUnit: WorkUnit, path: Path): Boolean {
-    if (workUnit.migration.forbiddenFileExtensions == null) return false
-    val extensions = Arrays.stream(workUnit.migration.forbiddenFileExtensions.split(",").toTypedArray()).map { obj: String -> obj.lowercase() }.collect(Collectors.toList())
-    val uppercaseExtensions = Arrays.stream(workUnit.migration.forbiddenFileExtensions.split(",").toTypedArray()).map { obj: String -> obj.uppercase() }.collect(Collectors.toList())
-    extensions.addAll(uppercaseExtensions)
-    return extensions.stream()
-        .anyMatch { ext: String -> path.toString().endsWith(ext.replaceFirst("\\*".toRegex(), "")) }
+fun getListFromCommaSeparatedString(commaSeparatedStr: String?): List<String>? {
+    return if (StringUtils.isNotBlank(commaSeparatedStr)) {
+        commaSeparatedStr?.split(",")
+    } else {
+        ArrayList()
+    }
 }
 
 /**
- * Check if current file exceeds max file size authorized
+ * Build arguments of a single BFG run applying all cleaning rules, so that history is rewritten once
  *
- * @param workUnit Current migration information
- * @param path     Current file
- * @return
- * @throws IOException
+ * @param forbiddenFileExtensions Forbidden extensions, comma separated (*.jar,*.zip), matched in lower & upper case
+ * @param maxFileSize             Max size of a file (500K, 10M, 1G)
+ * @param folders                 Folders to delete, comma separated
+ * @param lfs                     Convert files with forbidden extensions to Git LFS instead of deleting them
+ * @return arguments (without repository), null if there is nothing to clean
  */
-@Throws(IOException::class)
-fun exceedsMaxSize(workUnit: WorkUnit, path: Path): Boolean {
-    if (!StringUtils.isEmpty(workUnit.migration.maxFileSize)
-        && Character.isDigit(workUnit.migration.maxFileSize[0])) {
-        val maxSize = workUnit.migration.maxFileSize
-        var digits = java.lang.Long.valueOf(StringUtils.chop(maxSize))
-        val unit = maxSize.substring(maxSize.length - 1)
-        when (unit) {
-            "G" -> digits *= 1024 * 1024 * 1024
-            "M" -> digits *= 1024 * 1024
-            "K" -> digits *= 1024
-            else -> { }
-        }
-        var isFileExceedsMaxSize: Boolean
-        FileChannel.open(path).use { fileChannel -> isFileExceedsMaxSize = fileChannel.size() > digits }
-        return isFileExceedsMaxSize
+fun bfgArguments(forbiddenFileExtensions: String?, maxFileSize: String?, folders: String?, lfs: Boolean = false): List<String>? {
+    val args = ArrayList<String>()
+    val globs = extensionGlobs(forbiddenFileExtensions)
+    if (globs.isNotEmpty()) args.addAll(listOf(if (lfs) "--convert-to-git-lfs" else "--delete-files", bfgGlob(globs)))
+
+    val folderNames = folders?.split(",")?.map { it.trim() }?.filter { it.isNotEmpty() } ?: emptyList()
+    if (folderNames.isNotEmpty()) args.addAll(listOf("--delete-folders", bfgGlob(folderNames)))
+
+    if (!StringUtils.isEmpty(maxFileSize) && Character.isDigit(maxFileSize!![0])) {
+        args.addAll(listOf("--strip-blobs-bigger-than", maxFileSize))
     }
-    return false
+    if (args.isEmpty()) return null
+    args.add("--no-blob-protection")
+    return args
 }
 
+private fun bfgGlob(patterns: List<String>) = if (patterns.size == 1) patterns[0] else patterns.joinToString(",", "{", "}")
+
 /**
- * get List of strings from comma separated list of strings
+ * Patterns of files with forbidden extensions, lower & upper case
  *
- * @param commaSeparatedStr
- * @return
+ * @param forbiddenFileExtensions Forbidden extensions, comma separated (*.jar,*.zip)
  */
-fun getListFromCommaSeparatedString(commaSeparatedStr: String?): List<String>? {
-    return if (StringUtils.isNotBlank(commaSeparatedStr)) {
-        commaSeparatedStr?.split(",")
-    } else {
-        ArrayList()
-    }
-}
+fun extensionGlobs(forbiddenFileExtensions: String?): List<String> = forbiddenFileExtensions?.split(",")
+    ?.map { it.trim() }
+    ?.filter { it.isNotEmpty() }
+    ?.flatMap { listOf(it.lowercase(), it.uppercase()) }
+    ?.distinct()
+    ?: emptyList()
+
+/**
+ * Lines of .gitattributes storing files with forbidden extensions in Git LFS
+ *
+ * @param forbiddenFileExtensions Forbidden extensions, comma separated (*.jar,*.zip)
+ */
+fun lfsAttributes(forbiddenFileExtensions: String?): List<String> =
+    extensionGlobs(forbiddenFileExtensions).map { "$it filter=lfs diff=lfs merge=lfs -text" }
+
+/**
+ * Lines of .gitattributes to append so that files with forbidden extensions are stored in Git LFS
+ *
+ * @param existing                Current lines of .gitattributes
+ * @param forbiddenFileExtensions Forbidden extensions, comma separated (*.jar,*.zip)
+ */
+fun missingLfsAttributes(existing: List<String>, forbiddenFileExtensions: String?): List<String> =
+    lfsAttributes(forbiddenFileExtensions).filter { !existing.contains(it) }
@@ -1,5 +1,6 @@
 package fr.yodamad.svn2git.functions
 
+import fr.yodamad.svn2git.data.PushResult
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.io.Shell
 import fr.yodamad.svn2git.service.GitManager
@@ -7,10 +8,8 @@ import fr.yodamad.svn2git.service.util.MASTER
 import fr.yodamad.svn2git.service.util.ORIGIN_TAGS
 import org.apache.commons.lang3.StringUtils
 import org.slf4j.LoggerFactory
-import java.io.BufferedReader
 import java.io.File
 import java.io.IOException
-import java.io.InputStreamReader
 import java.util.stream.Collectors
 
 
@@ -130,30 +129,83 @@ fun generateIgnorePaths(trunk: String?, tags: String?, branches: String?, svnPro
 }
 
 /**
- * List SVN branches & tags cloned
+ * Check if a ref contains no file, reading only its root tree object instead of checking it out
  *
- * @param directory working directory
- * @return
+ * @param workUnit Current work unit
+ * @param ref      Ref to check
+ * @return true if tree of the ref is empty
  * @throws InterruptedException
  * @throws IOException
  */
 @Throws(InterruptedException::class, IOException::class)
-fun listRemotes(directory: String): List<String> {
-    val command = "git branch -r"
-    val builder = ProcessBuilder()
-    if (Shell.isWindows) {
-        builder.command("cmd.exe", "/c", command)
-    } else {
-        builder.command("sh", "-c", command)
+fun isEmptyTree(workUnit: WorkUnit, ref: String): Boolean {
+    val output = Shell.execForOutput(workUnit.commandManager, workUnit.directory, "git ls-tree \"$ref\"")
+    if (output.exitCode != 0) throw RuntimeException(output.stderr)
+    return output.stdout.none { e: String -> e.isNotBlank() }
+}
+
+/** Hash of the empty tree */
+const val EMPTY_TREE = "4b825dc642cb6eb9a060e54bf8d69288fbee4904"
+
+/**
+ * List refs containing no file, reading trees of all refs in one command
+ *
+ * @param workUnit Current work unit
+ * @param prefix   Prefix of refs to check
+ * @return full names of refs whose tree is empty
+ * @throws InterruptedException
+ * @throws IOException
+ */
+@Throws(InterruptedException::class, IOException::class)
+fun listEmptyTrees(workUnit: WorkUnit, prefix: String): Set<String> {
+    val output = Shell.execForOutput(workUnit.commandManager, workUnit.directory, "git for-each-ref --format=\"%(tree) %(refname)\" \"$prefix\"")
+    if (output.exitCode != 0) throw RuntimeException(output.stderr)
+    return output.stdout
+        .filter { e: String -> e.startsWith("$EMPTY_TREE ") }
+        .map { e: String -> e.substring(EMPTY_TREE.length + 1) }
+        .toSet()
+}
+
+/**
+ * Parse output of git push --porcelain
+ *
+ * @param output Standard output of push
+ * @return result of push for each remote ref
+ */
+fun parsePushPorcelain(output: List<String>): Map<String, PushResult> = output
+    .map { line: String -> line.split("\t") }
+    // Lines of refs are "<flag> TAB <from>:<to> TAB <summary>", ! flag is for rejected refs
+    .filter { fields: List<String> -> fields.size >= 3 && fields[0].length == 1 }
+    .associate { fields: List<String> -> fields[1].substringAfter(":") to PushResult(fields[0] != "!", fields[2]) }
+
+// git svn reports each fetched revision as "r<revision> = <sha1> (<ref>)"
+private val SVN_FETCHED = Regex("^r(\\d+) = [0-9a-f]{40}")
+// git push --progress reports "Writing objects:  45% (450/1000), 1.20 MiB | 2.40 MiB/s"
+private val PUSH_WRITING = Regex("Writing objects:\\s+\\d+% \\(\\d+/\\d+\\), ([\\d.]+) (bytes|KiB|MiB|GiB)")
+
+/**
+ * Parse a line of git svn clone or fetch output
+ *
+ * @param line Output line
+ * @return revision fetched, null if line is not a fetched revision
+ */
+fun parseSvnFetchedRevision(line: String): Long? = SVN_FETCHED.find(line)?.groupValues?.get(1)?.toLongOrNull()
+
+/**
+ * Parse a line of git push --progress output
+ *
+ * @param line Output line
+ * @return bytes written so far by the push, null if line is not a write progress
+ */
+fun parsePushWrittenBytes(line: String): Long? = PUSH_WRITING.find(line)?.let { match ->
+    val value = match.groupValues[1].toDoubleOrNull() ?: return null
+    val unit = when (match.groupValues[2]) {
+        "KiB" -> 1024L
+        "MiB" -> 1024L * 1024
+        "GiB" -> 1024L * 1024 * 1024
+        else -> 1L
     }
-    builder.directory(File(Shell.formatDirectory(directory)))
-    val p = builder.start()
-    val reader = BufferedReader(InputStreamReader(p.inputStream))
-    val remotes: MutableList<String> = ArrayList()
-    reader.lines().iterator().forEachRemaining { e: String -> remotes.add(e) }
-    p.waitFor()
-    p.destroy()
-    return remotes
+    (value * unit).toLong()
 }
 
 /**
@@ -183,6 +235,17 @@ fun listTagsOnly(remotes: List<String>): List<String>? = remotes.stream()
         .filter { b: String -> !b.contains("\${") }
         .collect(Collectors.toList())
 
+// git-svn-id: https://svn.local/repo/project/branches/b1@1234 uuid
+private val GIT_SVN_ID = Regex("^git-svn-id: \\S*?/(trunk|(?:branches|tags)/[^/@]+)(?:/[^@]*)?@\\d+", setOf(RegexOption.MULTILINE, RegexOption.IGNORE_CASE))
+
+/**
+ * Svn location a git svn commit comes from
+ *
+ * @param message Message of the commit
+ * @return trunk, branches/xxx or tags/xxx, null if not found
+ */
+fun svnLocationOf(message: String): String? = GIT_SVN_ID.find(message)?.groupValues?.get(1)
+
 fun isFileInFolder(dirPath: String): Boolean {
     val log = LoggerFactory.getLogger(GitManager::class.java)
     var isFileInFolder: Boolean
@@ -201,7 +264,8 @@ fun isFileInFolder(dirPath: String): Boolean {
                 } else {
                     log.info("Skipping check for files in .git folder")
                 }
-            } else {
+            } else if (!file.name.equals(".git", ignoreCase = true)) {
+                // In a worktree, .git is a file pointing to the repository
                 log.info("Found at least one file in this folder: " + file.absolutePath)
                 return true
             }
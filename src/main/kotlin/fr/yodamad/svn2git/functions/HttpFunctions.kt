@@ -1,26 +1,13 @@
 package fr.yodamad.svn2git.functions
 
-import khttp.structures.authorization.BasicAuthorization
-import khttp.structures.files.FileLike
+/**
+ * URL of a file in a GitLab generic package
+ */
+fun gitlabPackageUrl(gitlabUrl: String, projectId: Int, projectName: String, version: String, fileName: String) =
+    "${gitlabUrl.trimEnd('/')}/api/v4/projects/$projectId/packages/generic/$projectName/$version/$fileName"
 
-fun uploadFileToGitlab(gitlabUrl: String, gitlabToken: String, projectId: Int, projectName: String, version: String, fileName: String, filePath: String) =
-     khttp.put(
-        url = "$gitlabUrl/api/v4/projects/$projectId/packages/generic/$projectName/$version/$fileName",
-        headers = mapOf(
-            Pair("PRIVATE-TOKEN", gitlabToken)
-        ),
-        files = listOf(
-            FileLike(fileName, filePath)
-        )
-    ).statusCode
-
-fun uploadFileToNexus(nexusUrl: String, nexusRepo: String, nexusUser: String, nexusPwd: String,
-                      groupName: String, projectName: String, version: String,
-                      fileName: String, filePath: String) =
-    khttp.put(
-        url = "$nexusUrl/repository/$nexusRepo/$groupName/$projectName/$version/$fileName",
-        auth = BasicAuthorization(nexusUser, nexusPwd),
-        files = listOf(
-            FileLike(fileName, filePath)
-        )
-    ).statusCode
+/**
+ * URL of a file in a Nexus raw repository
+ */
+fun nexusFileUrl(nexusUrl: String, nexusRepo: String, groupName: String, projectName: String, version: String, fileName: String) =
+    "${nexusUrl.trimEnd('/')}/repository/$nexusRepo/$groupName/$projectName/$version/$fileName"
@@ -0,0 +1,40 @@
+package fr.yodamad.svn2git.functions
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.Migration
+import org.springframework.util.StringUtils.hasLength
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager
+import org.tmatesoft.svn.core.internal.wc.DefaultSVNAuthenticationManager
+
+/**
+ * Check if a migration covers a whole SVN repository
+ */
+fun isSvnRepositoryRoot(migration: Migration) =
+    migration.svnProject.isNullOrBlank() || migration.svnProject.trim('/').isEmpty() || migration.svnGroup == migration.svnProject
+
+/**
+ * Url of the project of a migration, holding its trunk, branches & tags
+ */
+fun buildSvnProjectUrl(workUnit: WorkUnit): String {
+    val root = buildSvnCompleteUrl(workUnit).trimEnd('/')
+    return if (isSvnRepositoryRoot(workUnit.migration)) root else "$root/${workUnit.migration.svnProject.trim('/')}"
+}
+
+/**
+ * SVN user of a migration, default one if migration has no credentials
+ */
+fun svnUser(migration: Migration, applicationProperties: ApplicationProperties): String? =
+    if (hasLength(migration.svnPassword)) migration.svnUser else applicationProperties.svn.user
+
+/**
+ * SVN password of a migration, default one if migration has no credentials
+ */
+fun svnPassword(migration: Migration, applicationProperties: ApplicationProperties): String? =
+    if (hasLength(migration.svnPassword)) migration.svnPassword else applicationProperties.svn.password
+
+/**
+ * SVNKit authentication for a migration
+ */
+fun svnAuthManager(migration: Migration, applicationProperties: ApplicationProperties): ISVNAuthenticationManager =
+    DefaultSVNAuthenticationManager(null, true, svnUser(migration, applicationProperties), svnPassword(migration, applicationProperties), null, null)
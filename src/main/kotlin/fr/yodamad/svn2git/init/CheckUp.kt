@@ -14,7 +14,8 @@ import kotlin.system.exitProcess
 @Component
 @Profile("dev")
 class CheckUp {
-    private val GIT_ERROR = "⛔️ svn2git requires Git v2.20+ or newer"
+    // GIT_CONFIG_GLOBAL, used to isolate migrations, is supported since git 2.32
+    private val GIT_ERROR = "⛔️ svn2git requires Git v2.32+ or newer"
 
     private val GIT_SVN_VERSION = "git-svn version 2"
     private val GIT_SVN_ERROR = "⛔️ svn2git requires 'git svn' extension in v2+"
@@ -78,8 +79,9 @@ class CheckUp {
 
     private fun checkGitSvnClone(): Boolean {
         val result = execCommand("git --version")
-        val regex = "git version 2\\.[2-9][0-9]\\.[0-9]".toRegex()
-        return if (regex.containsMatchIn(result)) true
+        val version = "git version (\\d+)\\.(\\d+)".toRegex().find(result)?.destructured
+            ?.let { (major, minor) -> major.toInt() to minor.toInt() }
+        return if (version != null && (version.first > 2 || (version.first == 2 && version.second >= 32))) true
         else {
             LOG.error(GIT_ERROR)
             false
@@ -0,0 +1,164 @@
+package fr.yodamad.svn2git.io
+
+import org.slf4j.LoggerFactory
+import java.io.BufferedReader
+import java.io.File
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Result of a command
+ *
+ * @param exitCode       Exit status, -1 if command timed out
+ * @param stdout         Captured lines of standard output, the last ones if output exceeded capture
+ * @param stderr         Captured error output, the last lines if output exceeded capture
+ * @param wallTimeMillis Duration of command
+ * @param timedOut       Whether command has been killed after its timeout
+ */
+data class ExecResult(val exitCode: Int,
+                      val stdout: List<String>,
+                      val stderr: String,
+                      val wallTimeMillis: Long,
+                      val timedOut: Boolean = false) {
+    val isSuccess: Boolean get() = exitCode == 0 && !timedOut
+}
+
+/**
+ * Ring buffer keeping the last lines of an output
+ */
+class LineRing(private val capacity: Int) {
+    private val lines = ArrayDeque<String>()
+    /** Number of lines dropped because capture was full */
+    var dropped = 0L
+        private set
+
+    @Synchronized
+    fun add(line: String) {
+        if (capacity <= 0) { dropped++; return }
+        if (lines.size == capacity) {
+            lines.removeFirst()
+            dropped++
+        }
+        lines.addLast(line)
+    }
+
+    @Synchronized
+    fun lines(): List<String> = ArrayList(lines)
+}
+
+/**
+ * Run processes, reading their outputs from a pool shared by all commands
+ */
+object ProcessEngine {
+    private val LOG = LoggerFactory.getLogger(ProcessEngine::class.java)
+
+    /** Unlimited capture */
+    const val ALL = Int.MAX_VALUE
+
+    /**
+     * Readers of outputs, two for each running command. Beyond MAX_READERS, outputs are read once a reader is free
+     * and commands wait meanwhile.
+     */
+    private val ioPool: ExecutorService = ThreadPoolExecutor(MAX_READERS, MAX_READERS, IDLE_SECONDS, TimeUnit.SECONDS,
+        LinkedBlockingQueue(), object : ThreadFactory {
+            private val count = AtomicInteger()
+            override fun newThread(r: Runnable) = Thread(r, "svn-2-git-Shell-${count.incrementAndGet()}").apply { isDaemon = true }
+        }).apply { allowCoreThreadTimeOut(true) }
+
+    /**
+     * Run a command until it exits, its timeout expires or calling thread is interrupted
+     *
+     * @param command       Command & arguments
+     * @param directory     Working directory
+     * @param environment   Variables added to environment
+     * @param timeoutMillis Maximum duration, 0 to wait without limit
+     * @param stdoutLines   Number of lines of standard output to keep
+     * @param stderrLines   Number of lines of error output to keep
+     * @param onStdout      Consumer of each line of standard output
+     * @param onStderr      Consumer of each line of error output
+     * @throws InterruptedException if calling thread is interrupted, process is then killed
+     */
+    @Throws(InterruptedException::class, java.io.IOException::class)
+    fun run(command: List<String>, directory: File, environment: Map<String, String>,
+            timeoutMillis: Long = 0, stdoutLines: Int = ALL, stderrLines: Int = ALL,
+            onStdout: (String) -> Unit = {}, onStderr: (String) -> Unit = {}): ExecResult {
+        val builder = ProcessBuilder(command).directory(directory)
+        builder.environment().putAll(environment)
+        val start = System.currentTimeMillis()
+        val process = builder.start()
+        val stdout = LineRing(stdoutLines)
+        val stderr = LineRing(stderrLines)
+        val readers = listOf(
+            ioPool.submit { drain(process.inputStream, stdout, onStdout) },
+            ioPool.submit { drain(process.errorStream, stderr, onStderr) })
+        try {
+            val exited = if (timeoutMillis > 0) process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS) else { process.waitFor(); true }
+            if (!exited) {
+                LOG.error("Command ${command.last()} timed out after $timeoutMillis ms, kill it")
+                kill(process)
+            }
+            await(readers, !exited)
+            val result = ExecResult(if (exited) process.exitValue() else -1, stdout.lines(),
+                stderr.lines().joinToString(System.lineSeparator()), System.currentTimeMillis() - start, !exited)
+            if (stdout.dropped > 0 || stderr.dropped > 0) {
+                LOG.debug("Output truncated : ${stdout.dropped} lines of stdout, ${stderr.dropped} lines of stderr dropped")
+            }
+            return result
+        } catch (iEx: InterruptedException) {
+            // Cancelled : don't leave the process running
+            kill(process)
+            throw iEx
+        }
+    }
+
+    private fun drain(stream: InputStream, capture: LineRing, consumer: (String) -> Unit) {
+        BufferedReader(InputStreamReader(stream)).use { reader ->
+            reader.lineSequence().forEach { line ->
+                consumer(line)
+                capture.add(line)
+            }
+        }
+    }
+
+    /**
+     * Wait for outputs to be fully read, streams are closed once process is over.
+     * When process has been killed, its children may still hold the streams, so wait is bounded.
+     */
+    private fun await(readers: List<Future<*>>, killed: Boolean) {
+        readers.forEach {
+            try {
+                if (killed) it.get(KILL_WAIT_SECONDS, TimeUnit.SECONDS) else it.get()
+            } catch (eEx: ExecutionException) {
+                LOG.warn("Failed to read output of command", eEx.cause)
+            } catch (tEx: TimeoutException) {
+                it.cancel(true)
+            }
+        }
+    }
+
+    private fun kill(process: Process) {
+        // Commands run through a shell : kill git, perl... started by the shell, before they are detached from it
+        process.descendants().forEach { it.destroyForcibly() }
+        process.destroyForcibly()
+        try {
+            process.waitFor(KILL_WAIT_SECONDS, TimeUnit.SECONDS)
+        } catch (iEx: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+        // Unblock readers if children of the process still hold its outputs
+        listOf(process.inputStream, process.errorStream).forEach { runCatching { it.close() } }
+    }
+
+    private const val KILL_WAIT_SECONDS = 10L
+    private const val MAX_READERS = 256
+    private const val IDLE_SECONDS = 60L
+}
@@ -2,16 +2,12 @@ package fr.yodamad.svn2git.io
 
 import fr.yodamad.svn2git.domain.Migration
 import fr.yodamad.svn2git.service.util.CommandManager
-import org.apache.commons.io.IOUtils
 import org.slf4j.LoggerFactory
 import org.springframework.util.StringUtils.hasLength
-import org.springframework.util.StringUtils.isEmpty
-import java.io.*
-import java.nio.charset.Charset
+import java.io.File
+import java.io.IOException
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
-import java.util.concurrent.Executors
-import java.util.function.Consumer
 
 /**
  * Shell utilities
@@ -67,39 +63,74 @@ object Shell {
      */
     @JvmOverloads
     @Throws(InterruptedException::class, IOException::class)
-    fun execCommand(commandManager: CommandManager, directory: String, command: String?, securedCommandToPrint: String? = command, usePowershell: Boolean = false, alwaysPrintOutput: Boolean = false): Int {
-        val builder = ProcessBuilder()
+    fun execCommand(commandManager: CommandManager, directory: String, command: String?, securedCommandToPrint: String? = command, usePowershell: Boolean = false, alwaysPrintOutput: Boolean = false,
+                    onOutput: ((String) -> Boolean)? = null): Int {
+        val result = exec(commandManager, directory, command!!, securedCommandToPrint, usePowershell, alwaysPrintOutput, STDOUT_CAPTURE, onOutput)
+        if (!result.isSuccess) throw RuntimeException(result.stderr)
+        return result.exitCode
+    }
+
+    /**
+     * Execute a command through process and keep its standard output, whatever its exit code
+     * @param directory Directory in which running command
+     * @param command command to execute
+     * @return output of command
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @JvmOverloads
+    @Throws(InterruptedException::class, IOException::class)
+    fun execForOutput(commandManager: CommandManager, directory: String, command: String, securedCommandToPrint: String = command,
+                      onOutput: ((String) -> Boolean)? = null): ExecResult =
+        exec(commandManager, directory, command, securedCommandToPrint, stdoutLines = ProcessEngine.ALL, onOutput = onOutput)
+
+    /**
+     * Execute a command through process engine, with timeout of migration
+     * @param directory Directory in which running command
+     * @param command command to execute
+     * @param securedCommandToPrint command to trace, null to skip tracing
+     * @param stdoutLines number of lines of standard output to keep
+     * @param onOutput listener of output lines, error lines it reports as progress are only logged at debug level
+     * @return exit code, output & duration of command
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Throws(InterruptedException::class, IOException::class)
+    fun exec(commandManager: CommandManager, directory: String, command: String, securedCommandToPrint: String? = command,
+             usePowershell: Boolean = false, alwaysPrintOutput: Boolean = false, stdoutLines: Int = STDOUT_CAPTURE,
+             onOutput: ((String) -> Boolean)? = null): ExecResult {
         val execDir = formatDirectory(directory)
-        if (isWindows) {
-            if (usePowershell) builder.command("powershell.exe", "-File", command)
-            else builder.command("cmd.exe", "/c", command)
-        } else {
-            builder.command("sh", "-c", command)
-        }
-        builder.directory(File(execDir))
+        val commandLine = commandLine(command, usePowershell)
         LOG.debug(String.format("Exec command : %s", securedCommandToPrint))
         LOG.debug(String.format("in %s", execDir))
-        val process = builder.start()
-        val streamGobbler = StreamGobbler(process.inputStream) { s: String? -> if (alwaysPrintOutput && hasLength(s) && !s!!.contains("password", true)) LOG.info(s) else LOG.debug(s) }
-        Executors.newSingleThreadExecutor().submit(streamGobbler)
-        val errorStreamGobbler = StreamGobbler(process.errorStream) { s: String? -> LOG.error(s) }
-        Executors.newSingleThreadExecutor().submit(errorStreamGobbler)
-        val stderr = IOUtils.toString(process.errorStream, Charset.defaultCharset())
-        val exitCode = process.waitFor()
-        LOG.debug(String.format("Exit : %d", exitCode))
-        if (exitCode != 0) {
-            // trace failed commands
-            if (securedCommandToPrint != null) {
-                commandManager.addFailedCommand(directory, securedCommandToPrint, stderr)
-            }
-            throw RuntimeException(stderr)
-        } else {
-            // trace successful commands
-            if (securedCommandToPrint != null) {
-                commandManager.addSuccessfulCommand(directory, securedCommandToPrint)
-            }
+        val output = ProcessEngine.run(commandLine, File(execDir), commandManager.environment, commandManager.commandTimeoutMillis,
+            stdoutLines, STDERR_CAPTURE,
+            { s ->
+                onOutput?.invoke(s)
+                if (alwaysPrintOutput && hasLength(s) && !s.contains("password", true)) LOG.info(s) else LOG.debug(s)
+            },
+            // git reports progress on error output
+            { s -> if (onOutput?.invoke(s) == true) LOG.debug(s) else LOG.error(s) })
+        LOG.debug(String.format("Exit : %d in %d ms", output.exitCode, output.wallTimeMillis))
+        val result = if (output.timedOut) output.copy(stderr = "Timed out after ${output.wallTimeMillis} ms${System.lineSeparator()}${output.stderr}") else output
+        if (securedCommandToPrint != null) {
+            // trace commands
+            if (result.isSuccess) commandManager.addSuccessfulCommand(directory, securedCommandToPrint)
+            else commandManager.addFailedCommand(directory, securedCommandToPrint, result.stderr)
         }
-        return exitCode
+        return result
+    }
+
+    /**
+     * Wrap a command in shell of the platform
+     * @param command command to execute
+     * @param usePowershell whether command is a powershell script, on windows only
+     * @return command line to start
+     */
+    fun commandLine(command: String, usePowershell: Boolean = false): List<String> = when {
+        isWindows && usePowershell -> listOf("powershell.exe", "-File", command)
+        isWindows -> listOf("cmd.exe", "/c", command)
+        else -> listOf("sh", "-c", command)
     }
 
     /**
@@ -115,11 +146,8 @@ object Shell {
         return execDir
     }
 
-    // Utils
-    private class StreamGobbler constructor(private val inputStream: InputStream, private val consumer: Consumer<String?>) : Runnable {
-        override fun run() {
-            BufferedReader(InputStreamReader(inputStream)).lines()
-                .forEach(consumer)
-        }
-    }
+    /** Lines of standard output kept by default, the whole output is logged */
+    private const val STDOUT_CAPTURE = 200
+    /** Lines of error output kept to report failures */
+    private const val STDERR_CAPTURE = 1000
 }
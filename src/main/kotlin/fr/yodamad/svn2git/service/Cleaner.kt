@@ -1,12 +1,11 @@
 package fr.yodamad.svn2git.service
 
-import com.madgag.git.bfg.cli.Main
 import fr.yodamad.svn2git.config.ApplicationProperties
 import fr.yodamad.svn2git.data.CleanedFiles
+import fr.yodamad.svn2git.data.CleaningRules
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.domain.MigrationHistory
 import fr.yodamad.svn2git.domain.MigrationRemovedFile
-import fr.yodamad.svn2git.domain.enumeration.Reason
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum.*
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
@@ -16,24 +15,36 @@ import fr.yodamad.svn2git.domain.enumeration.SvnLayout.TAG
 import fr.yodamad.svn2git.functions.*
 import fr.yodamad.svn2git.io.Shell
 import fr.yodamad.svn2git.io.Shell.execCommand
+import fr.yodamad.svn2git.repository.MigrationRemovedFileBatchWriter
+import fr.yodamad.svn2git.repository.MigrationRemovedFileBatchWriter.Batch
 import fr.yodamad.svn2git.repository.MigrationRemovedFileRepository
-import fr.yodamad.svn2git.service.client.ArtifactoryAdmin
-import fr.yodamad.svn2git.service.util.checkout
-import fr.yodamad.svn2git.service.util.deleteBranch
+import fr.yodamad.svn2git.service.bfg.BfgRunner
+import fr.yodamad.svn2git.service.git.GitBackend
+import fr.yodamad.svn2git.service.git.ObjectInventory
+import fr.yodamad.svn2git.service.git.RemovedBlob
+import fr.yodamad.svn2git.service.git.TreeStats
+import fr.yodamad.svn2git.service.git.openRepository
+import fr.yodamad.svn2git.service.upload.UploadFile
+import fr.yodamad.svn2git.service.upload.UploadPipeline
+import fr.yodamad.svn2git.service.upload.UploadPipeline.UploadSession
 import fr.yodamad.svn2git.service.util.gc
-import fr.yodamad.svn2git.service.util.resetHead
+import fr.yodamad.svn2git.service.util.remoteRef
 import org.apache.commons.lang3.StringUtils
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
 import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.data.util.Pair
 import org.springframework.stereotype.Service
 import java.io.File
+import java.io.FileOutputStream
 import java.io.IOException
-import java.lang.Long.valueOf
-import java.nio.file.DirectoryStream
 import java.nio.file.Files
-import java.nio.file.Path
 import java.nio.file.Paths
+import java.security.DigestOutputStream
+import java.security.MessageDigest
 import java.util.*
+import java.util.concurrent.ForkJoinPool
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.function.Consumer
 import java.util.stream.Collectors
@@ -44,16 +55,24 @@ import java.util.stream.Collectors
 @Service
 open class Cleaner(val historyMgr: HistoryManager,
                    val mrfRepo: MigrationRemovedFileRepository,
+                   private val mrfWriter: MigrationRemovedFileBatchWriter,
                    val applicationProperties: ApplicationProperties,
-                   private val artifactoryAdmin: ArtifactoryAdmin) {
+                   private val gitBackend: GitBackend,
+                   private val bfgRunner: BfgRunner,
+                   private val uploadPipeline: UploadPipeline,
+                   @Qualifier("scanPool") private val scanPool: ForkJoinPool) {
 
     private val LOG = LoggerFactory.getLogger(Cleaner::class.java)
     private val GIT_LIST = "git-list"
     private val SVN_LIST = "svn-list"
     private val TAGS = "tags/"
+    private val HISTORY = "history"
+    private val ARTIFACTS = "artifacts"
 
     /**
-     * List files that are going to be cleaned by BFG
+     * List files that are going to be cleaned by BFG.
+     * Files are read from the objects of the repository, for all refs & their history, without checking anything out.
+     * Trees of all refs are scanned at once on the scan pool, then results are recorded & uploaded for each svn location.
      *
      * @param workUnit Current migration information
      * @throws IOException
@@ -64,74 +83,58 @@ open class Cleaner(val historyMgr: HistoryManager,
         val history: MigrationHistory = historyMgr.startStep(workUnit.migration, LIST_REMOVED_FILES, "")
 
         val warnings = AtomicBoolean(false)
-        if (!StringUtils.isEmpty(workUnit.migration.trunk)) {
-            val cleanedFilesTrunk: CleanedFiles = listCleanedFilesInSvnLocation(workUnit, workUnit.migration.trunk, SvnLayout.TRUNK)
-            cleanedFilesMap[workUnit.migration.trunk] = cleanedFilesTrunk
-        }
-
-        if (!workUnit.migration.cleaning) {
-            historyMgr.endStep(history, IGNORED, "No cleaning asked")
-            return CleanedFilesManager(cleanedFilesMap)
-        }
+        // Removed files are inserted in batches, all pending ones being flushed before listing them
+        val removedFiles = mrfWriter.open()
+        // Files removed from tags are uploaded while next locations are recorded
+        val uploads = uploadPipeline.open(workUnit)
+        val repository = openRepository(workUnit.directory)
+        try {
+            ObjectInventory(repository, CleaningRules.of(workUnit.migration), scanPool).use { inventory ->
+                // Commit of each svn location inspected, trunk first
+                val locations: MutableMap<String, Pair<SvnLayout, ObjectId>> = LinkedHashMap()
+                val head = repository.resolve(Constants.HEAD)
+                if (!StringUtils.isEmpty(workUnit.migration.trunk) && head != null) {
+                    locations[workUnit.migration.trunk] = Pair.of(SvnLayout.TRUNK, head)
+                }
 
-        val remotes = listRemotes(workUnit.directory)
-        listBranchesOnly(remotes, workUnit.migration.trunk)!!.forEach(
-            Consumer { b: String ->
-                try {
-                    // get branchName
-                    var branchName = b.replaceFirst("refs/remotes/origin/".toRegex(), "")
-                    branchName = branchName.replaceFirst("origin/".toRegex(), "")
-                    LOG.debug("Branch $branchName", branchName)
-                    // checkout new branchName from existing remote branch
-                    val gitCommand = String.format("git checkout -b \"%s\" \"%s\"", branchName, b)
-                    execCommand(workUnit.commandManager, workUnit.directory, gitCommand)
-                    // listCleanedFilesInSvnLocation
+                if (workUnit.migration.cleaning) {
+                    val remotes = gitBackend.remoteBranches(workUnit)
                     val branches = if (workUnit.migration.uppercase) "branches".uppercase() else "branches"
-                    val cleanedFilesBranch: CleanedFiles = listCleanedFilesInSvnLocation(workUnit, b.replace("origin", branches), SvnLayout.BRANCH)
-                    cleanedFilesMap[b.replace("origin", branches)] = cleanedFilesBranch
-                    // clean potential modification
-                    execCommand(workUnit.commandManager, workUnit.directory, resetHead())
-                    // back to master
-                    execCommand(workUnit.commandManager, workUnit.directory, checkout())
-                    // delete the temporary branch
-                    execCommand(workUnit.commandManager, workUnit.directory, deleteBranch(branchName))
-                } catch (ioEx: IOException) {
-                    LOG.warn("Failed to list removed files on $b")
-                    warnings.set(true)
-                } catch (ioEx: InterruptedException) {
-                    LOG.warn("Failed to list removed files on $b")
-                    warnings.set(true)
-                }
-            }
-        )
-        listTagsOnly(remotes)!!.forEach(
-            Consumer { t: String ->
-                try {
-                    // checkout new branch 'tmp_tag' from existing tag
-                    val gitCommand = String.format("git checkout -b tmp_tag \"%s\"", t)
-                    execCommand(workUnit.commandManager, workUnit.directory, gitCommand)
-                    // listCleanedFilesInSvnLocation
                     val tags = if (workUnit.migration.uppercase) "tags".uppercase() else "tags"
-                    val cleanedFilesTag: CleanedFiles = listCleanedFilesInSvnLocation(workUnit, t.replace("origin", tags), TAG)
-                    cleanedFilesMap[t.replace("origin", tags)] = cleanedFilesTag
-                    // clean potential modification
-                    execCommand(workUnit.commandManager, workUnit.directory, resetHead())
-                    // back to master
-                    execCommand(workUnit.commandManager, workUnit.directory, checkout())
-                    // delete the temporary branch
-                    execCommand(workUnit.commandManager, workUnit.directory, deleteBranch("tmp_tag"))
-                } catch (ioEx: IOException) {
-                    LOG.warn(String.format("Failed to list removed files on %s", t))
-                    warnings.set(true)
-                } catch (ioEx: InterruptedException) {
-                    LOG.warn(String.format("Failed to list removed files on %s", t))
-                    warnings.set(true)
+                    val refs = listBranchesOnly(remotes, workUnit.migration.trunk)!!.map { Triple(it, it.replace("origin", branches), SvnLayout.BRANCH) } +
+                        listTagsOnly(remotes)!!.map { Triple(it, it.replace("origin", tags), TAG) }
+                    refs.forEach { (ref, svnLocation, svnLayout) ->
+                        try {
+                            val commit = repository.resolve(remoteRef(ref)) ?: throw IOException("Unknown ref $ref")
+                            locations[svnLocation] = Pair.of(svnLayout, commit)
+                        } catch (ioEx: IOException) {
+                            LOG.warn("Failed to list removed files on $ref")
+                            warnings.set(true)
+                        }
+                    }
+                }
+
+                val stats = inventory.statsOf(locations.mapValues { it.value.second })
+                locations.forEach { (svnLocation, location) ->
+                    cleanedFilesMap[svnLocation] = recordCleanedFiles(workUnit, inventory, removedFiles, uploads, stats.getValue(svnLocation), svnLocation, location.first)
+                }
+
+                if (!workUnit.migration.cleaning) {
+                    historyMgr.endStep(history, IGNORED, "No cleaning asked")
+                    return CleanedFilesManager(cleanedFilesMap)
                 }
-            }
-        )
 
-        // back to master
-        execCommand(workUnit.commandManager, workUnit.directory, checkout())
+                // BFG rewrites the whole history : add files only found in previous commits
+                val inRefs = stats.values.flatMap { it.removed }.map { it.id }.toHashSet()
+                val inHistory = inventory.removedInHistory(locations.values.map { it.second }) { message -> historyLocation(workUnit, message) }
+                    .filterKeys { !inRefs.contains(it.id) }
+                inHistory.forEach { (blob, svnLocation) -> removedFiles.add(removedFile(workUnit, svnLocation, blob)) }
+            }
+        } finally {
+            repository.close()
+            removedFiles.close()
+            uploads?.close()
+        }
 
         // get list of files that will in principle be removed
         val migrationRemovedFiles: List<MigrationRemovedFile> = mrfRepo.findAllByMigration_Id(workUnit.migration.id)
@@ -147,241 +150,129 @@ open class Cleaner(val historyMgr: HistoryManager,
     }
 
     /**
-     * List files that are going to be cleaned by BFG
+     * Remove files listed for a migration
      *
-     * @param workUnit
-     * @param svnLocation
-     * @param svnLayout
-     * @return
-     * @throws IOException
+     * @param workUnit Current migration information
      */
-    @Throws(IOException::class)
-    open fun listCleanedFilesInSvnLocation(workUnit: WorkUnit, svnLocation: String, svnLayout: SvnLayout): CleanedFiles {
-        val cleanedFiles = CleanedFiles(svnLocation, svnLayout)
-        val workingPath = Paths.get(workUnit.directory)
-        inspectPath(workUnit, workingPath, svnLocation, cleanedFiles)
-        return cleanedFiles
+    open fun clearRemovedFiles(workUnit: WorkUnit) {
+        mrfRepo.deleteAll(mrfRepo.findAllByMigration_Id(workUnit.migration.id))
     }
 
     /**
-     * Inspect current path (recursively)
+     * Record files that are going to be cleaned by BFG in a svn location, from the content of its tree.
+     * Removed files are added to the batch, then uploaded for tags.
      *
-     * @param workUnit    Current migration information
-     * @param workingPath Current path
-     * @param svnLocation Current svn location (trunk, branch, ...)
+     * @param workUnit     Current migration information
+     * @param inventory    Inventory of repository objects
+     * @param removedFiles Batch of removed files to insert
+     * @param uploads      Upload session of the migration, null if files are not uploaded
+     * @param stats        Content of the tree of the svn location
+     * @param svnLocation  Current svn location (trunk, branch, ...)
+     * @param svnLayout    Layout of the svn location
+     * @return
      * @throws IOException
      */
     @Throws(IOException::class)
-    open fun inspectPath(workUnit: WorkUnit, workingPath: Path, svnLocation: String, cleanedFiles: CleanedFiles) {
-        val initialPath = Paths.get(workUnit.directory)
-        val pathFilter = DirectoryStream.Filter { path: Path ->
-            if (path.toFile().isDirectory) {
-                // Ignore git folder
-                if (path.toFile().name == ".git") {
-                    return@Filter false
-                }
-                inspectPath(workUnit, path, svnLocation, cleanedFiles)
-                return@Filter false
-            } else {
-                val file = path.toFile()
-                val isForbiddenExtension: Boolean = isForbiddenExtension(workUnit, path)
-                val exceedsMaxSize: Boolean = exceedsMaxSize(workUnit, path)
-                val isToBeDeleted = (file.isFile
-                    && (isForbiddenExtension || exceedsMaxSize))
-                if (file.isFile) {
-                    cleanedFiles.fileCountBeforeClean++
-                    cleanedFiles.fileSizeTotalBeforeClean += file.length()
-                    if (isToBeDeleted) {
-                        cleanedFiles.deletedFileCountAfterClean++
-                    } else {
-                        cleanedFiles.fileCountAfterClean++
-                        cleanedFiles.fileSizeTotalAfterClean += file.length()
-                    }
-                }
-                return@Filter isToBeDeleted
-            }
-        }
-
-        Files.newDirectoryStream(workingPath, pathFilter).use { dirStream ->
-            for (p in dirStream) {
-                val reason = if (isForbiddenExtension(workUnit, p)) Reason.EXTENSION else Reason.SIZE
-                val fileSize: Long = getFileSize(p)
-                val mrf = MigrationRemovedFile()
-                    .migration(workUnit.migration)
-                    .svnLocation(svnLocation)
-                    .path(initialPath.relativize(p).toString())
-                    .reason(reason)
-                    .fileSize(fileSize)
-                this.mrfRepo.save(mrf)
-            }
-        }
+    open fun recordCleanedFiles(workUnit: WorkUnit, inventory: ObjectInventory, removedFiles: Batch, uploads: UploadSession?, stats: TreeStats, svnLocation: String, svnLayout: SvnLayout): CleanedFiles {
+        val cleanedFiles = CleanedFiles(svnLocation, svnLayout)
+        cleanedFiles.fileCountBeforeClean = stats.fileCount
+        cleanedFiles.fileSizeTotalBeforeClean = stats.fileSize
+        cleanedFiles.deletedFileCountAfterClean = stats.removed.size
+        cleanedFiles.fileCountAfterClean = stats.fileCount - stats.removed.size
+        cleanedFiles.fileSizeTotalAfterClean = stats.fileSize - stats.removedSize
+        stats.removed.forEach { removedFiles.add(removedFile(workUnit, svnLocation, it)) }
 
         // Upload files from tags
-        if (svnLocation.startsWith(TAGS)) {
-            // Upload to Gitlab
-            if (applicationProperties.gitlab.uploadToRegistry && workUnit.migration.uploadType == "gitlab") {
-                val history = historyMgr.startStep(workUnit.migration, UPLOAD_TO_GITLAB, svnLocation)
-                var globalStatus = true
-                Files.newDirectoryStream(workingPath, pathFilter).use { dirStream ->
-                    for (p in dirStream) {
-                        val status = uploadFileToGitlab(
-                            workUnit.migration.gitlabUrl,
-                            if (workUnit.migration.gitlabToken != null) workUnit.migration.gitlabToken else applicationProperties.gitlab.token,
-                            workUnit.migration.gitlabProjectId,
-                            if (workUnit.migration.gitlabProject.isEmpty()) workUnit.migration.svnGroup else workUnit.migration.gitlabProject.split(
-                                "/"
-                            ).last(),
-                            extractVersion(svnLocation),
-                            p.fileName.toString(),
-                            p.toString()
-                        )
-                        println("Upload of $p is $status")
-                        globalStatus = globalStatus && (status == 201)
-                    }
-                }
-                historyMgr.endStep(history, if (globalStatus) DONE else DONE_WITH_WARNINGS)
-            }
-            // Upload to Artifactory
-            if (applicationProperties.artifactory.enabled && workUnit.migration.uploadType == "artifactory") {
-                val history = historyMgr.startStep(workUnit.migration, UPLOAD_TO_ARTIFACTORY, svnLocation)
-                Files.newDirectoryStream(workingPath, pathFilter).use { dirStream ->
-                    for (p in dirStream) {
-                        artifactoryAdmin.uploadArtifact(
-                            File(p.toString()),
-                            workUnit.migration.gitlabGroup,
-                            if (workUnit.migration.gitlabProject.isEmpty()) workUnit.migration.svnGroup else workUnit.migration.gitlabProject,
-                            extractVersion(svnLocation))
-                    }
-                }
-                historyMgr.endStep(history, DONE)
-            }
-
-            // Upload to Nexus
-            if (applicationProperties.nexus.enabled && workUnit.migration.uploadType == "nexus") {
-                val history = historyMgr.startStep(workUnit.migration, UPLOAD_TO_NEXUS, svnLocation)
-                var globalStatus = true
-                Files.newDirectoryStream(workingPath, pathFilter).use { dirStream ->
-                    for (p in dirStream) {
-                        val status = uploadFileToNexus(
-                            applicationProperties.nexus.url,
-                            applicationProperties.nexus.repository,
-                            applicationProperties.nexus.user,
-                            applicationProperties.nexus.password,
-                            workUnit.migration.gitlabGroup,
-                            if (workUnit.migration.gitlabProject.isEmpty()) workUnit.migration.svnGroup else workUnit.migration.gitlabProject,
-                            extractVersion(svnLocation),
-                            p.fileName.toString(),
-                            p.toString()
-                        )
-                        println("Upload of $p is $status")
-                        globalStatus = globalStatus && (status == 201)
-                    }
-                }
-                historyMgr.endStep(history, if (globalStatus) DONE else DONE_WITH_WARNINGS)
-            }
+        if (uploads != null && svnLocation.startsWith(TAGS) && stats.removed.isNotEmpty()) {
+            uploadRemovedFiles(workUnit, inventory, uploads, svnLocation, stats.removed)
         }
+        return cleanedFiles
     }
 
+    private fun removedFile(workUnit: WorkUnit, svnLocation: String, blob: RemovedBlob) = MigrationRemovedFile()
+        .migration(workUnit.migration)
+        .svnLocation(svnLocation)
+        .path(blob.path)
+        .reason(blob.reason)
+        .fileSize(blob.size)
+
     /**
-     * Get File Size of the file found at path.
-     *
-     * @param path The path of a file
-     * @return
+     * Svn location of a commit from its git-svn-id, defaults to trunk
      */
-    private fun getFileSize(path: Path): Long {
-        val file = path.toFile()
-        return if (!file.exists() || !file.isFile) {
-            -1L
-        } else {
-            valueOf(file.length())
-        }
+    private fun historyLocation(workUnit: WorkUnit, message: String): String {
+        val location = svnLocationOf(message)
+        return if (location == null || location.equals("trunk", true)) workUnit.migration.trunk ?: HISTORY else location
     }
 
     /**
-     * Clean files with forbiddene extensions if configured
+     * Upload files removed from a tag. They only exist as objects, so they are extracted in migration root first,
+     * then handed over to the upload pipeline while next locations are recorded.
      *
-     * @param workUnit
-     * @return
+     * @param inventory   Inventory of repository objects
+     * @param uploads     Upload session of the migration
+     * @param svnLocation Tag
+     * @param removed     Files removed from the tag
      */
-    @Throws(IOException::class, InterruptedException::class)
-    open fun cleanForbiddenExtensions(workUnit: WorkUnit): Boolean {
-        var clean = false
-        if (!StringUtils.isEmpty(workUnit.migration.forbiddenFileExtensions)) {
-            // needed?
-            execCommand(workUnit.commandManager, workUnit.directory, gc())
-
-            // 3.1 Clean files based on their extensions
-            Arrays.stream(workUnit.migration.forbiddenFileExtensions.split(",").toTypedArray())
-                .forEach { s: String ->
-                    val innerHistory = historyMgr.startStep(workUnit.migration, StepEnum.GIT_CLEANING,
-                        "Remove files with extension : ${s.lowercase()} and ${s.uppercase()}")
-                    try {
-                        Main.main(arrayOf("--delete-files", s.lowercase(), "--no-blob-protection", workUnit.directory))
-                        Main.main(arrayOf("--delete-files", s.lowercase(), "--no-blob-protection", workUnit.directory))
-                        historyMgr.endStep(innerHistory, DONE, null)
-                    } catch (exc: Throwable) {
-                        historyMgr.endStep(innerHistory, StatusEnum.FAILED, exc.message)
-                        workUnit.warnings.set(true)
-                    }
-                }
-            clean = true
+    private fun uploadRemovedFiles(workUnit: WorkUnit, inventory: ObjectInventory, uploads: UploadSession, svnLocation: String, removed: List<RemovedBlob>) {
+        val folder = Paths.get(workUnit.root, ARTIFACTS, svnLocation).toFile()
+        try {
+            val files = removed.map { blob ->
+                val file = File(folder, blob.path)
+                file.parentFile.mkdirs()
+                val digest = MessageDigest.getInstance("SHA-1")
+                DigestOutputStream(FileOutputStream(file), digest).use { inventory.copy(blob.id, it) }
+                UploadFile(file.toPath(), digest.digest().joinToString("") { "%02x".format(it) }, blob.size)
+            }
+            uploads.submit(svnLocation, folder, files)
+        } catch (exc: Exception) {
+            folder.deleteRecursively()
+            throw exc
         }
-        return clean
     }
 
     /**
-     * Clean large files if configured
+     * Remove files with forbidden extensions, large files & folders pushed to artifactory from history.
+     * With LFS option, files with forbidden extensions are converted to Git LFS pointers instead.
+     * All rules are applied by a single BFG run, so history is rewritten once.
      *
-     * @param workUnit
-     * @return
+     * A failed rewrite doesn't stop the migration : it's recorded as a failed step & the migration ends with warnings.
+     *
+     * @param workUnit Current migration information
+     * @return true if history has been rewritten
      * @throws IOException
      * @throws InterruptedException
      */
     @Throws(IOException::class, InterruptedException::class)
-    open fun cleanLargeFiles(workUnit: WorkUnit): Boolean {
-        var clean = false
-        if (!StringUtils.isEmpty(workUnit.migration.maxFileSize) && Character.isDigit(workUnit.migration.maxFileSize[0])) {
-            // 3.2 Clean files based on size
-            val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_CLEANING,
-                "Remove files bigger than ${workUnit.migration.maxFileSize}")
-
+    open fun cleanHistory(workUnit: WorkUnit): Boolean {
+        // Folders can only be deleted by name, not by path
+        val folders = if (applicationProperties.artifactory.enabled) applicationProperties.artifactory.deleteFolderWithBFG else null
+        val args = bfgArguments(workUnit.migration.forbiddenFileExtensions, workUnit.migration.maxFileSize, folders,
+            workUnit.migration.lfs == true) ?: return false
+
+        val rules = args.dropLast(1).joinToString(" ")
+        val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_CLEANING, rules)
+        val report = try {
             // This is necessary for BFG to work
             execCommand(workUnit.commandManager, workUnit.directory, gc())
-            Main.main(arrayOf(
-                "--strip-blobs-bigger-than", workUnit.migration.maxFileSize,
-                "--no-blob-protection", workUnit.directory))
-            clean = true
-            historyMgr.endStep(history, DONE)
+            bfgRunner.run(workUnit, args)
+        } catch (iEx: InterruptedException) {
+            historyMgr.endStep(history, StatusEnum.FAILED, iEx.message)
+            throw iEx
+        } catch (exc: Exception) {
+            LOG.error("Failed to clean history", exc)
+            historyMgr.endStep(history, StatusEnum.FAILED, exc.message)
+            workUnit.warnings.set(true)
+            return false
         }
-        return clean
-    }
-
-    /**
-     * Used to delete folder that is pushed to artifactory.
-     * Note : This is only useful if the foldername is unique. Apparently not possible to provide a folder path.
-     * Note : Needed to put this before other cleaning options (extension and size)
-     *
-     * @param workUnit
-     * @return
-     * @throws IOException
-     * @throws InterruptedException
-     */
-    @Throws(IOException::class, InterruptedException::class)
-    open fun cleanFolderWithBFG(workUnit: WorkUnit): Boolean {
-        var clean = false
-        if (applicationProperties.artifactory.enabled && StringUtils.isNotEmpty(applicationProperties.artifactory.deleteFolderWithBFG)) {
-            // Delete folders based on a folder name
-            val history = historyMgr.startStep(workUnit.migration, StepEnum.ARTIFACTORY_FOLDER_CLEANING,
-                "Remove Folders called ${applicationProperties.artifactory.deleteFolderWithBFG}")
-
-            execCommand(workUnit.commandManager, workUnit.directory, gc())
-            Main.main(arrayOf(
-                "--delete-folders", "{" + applicationProperties.artifactory.deleteFolderWithBFG + "}",
-                "--no-blob-protection", workUnit.directory))
-            clean = true
-            historyMgr.endStep(history, DONE)
+        // Keep BFG report, duration & memory used with the step
+        if (!report.isSuccess) {
+            LOG.error("BFG rewrite failed with exit code ${report.exitCode} : ${report.error}")
+            historyMgr.endStep(history, StatusEnum.FAILED, "$rules${System.lineSeparator()}$report${System.lineSeparator()}${report.error}")
+            workUnit.warnings.set(true)
+            return false
         }
-        return clean
+        historyMgr.endStep(history, DONE, "$rules${System.lineSeparator()}$report")
+        return true
     }
 
     /**
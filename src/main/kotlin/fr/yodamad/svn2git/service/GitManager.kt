@@ -2,35 +2,50 @@ package fr.yodamad.svn2git.service
 
 import fr.yodamad.svn2git.config.ApplicationProperties
 import fr.yodamad.svn2git.config.Constants
+import fr.yodamad.svn2git.data.GitEnvironment
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.domain.Migration
 import fr.yodamad.svn2git.domain.MigrationHistory
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.lfsAttributes
+import fr.yodamad.svn2git.functions.missingLfsAttributes
 import fr.yodamad.svn2git.io.Shell.execCommand
 import fr.yodamad.svn2git.io.Shell.isWindows
+import fr.yodamad.svn2git.service.git.GitBackend
 import fr.yodamad.svn2git.service.util.*
 import org.apache.commons.lang3.StringUtils
 import org.apache.commons.lang3.StringUtils.isEmpty
 import org.apache.commons.text.StringEscapeUtils
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Service
+import java.io.File
 import java.io.IOException
 import java.nio.charset.Charset.defaultCharset
+import java.nio.file.Paths
 
 @Service
 open class GitManager(val historyMgr: HistoryManager,
                       val gitCommandManager: GitCommandManager,
                       val repoFormatter: GitRepositoryFormatter,
+                      val gitBackend: GitBackend,
+                      val progressManager: ProgressManager,
                       var applicationProperties: ApplicationProperties) {
 
     private val LOG = LoggerFactory.getLogger(GitManager::class.java)
     private val ORIGIN_ALREADY_ADDED = "Origin already added"
+    private val GIT_ATTRIBUTES = ".gitattributes"
 
     /**
      * Set git config for migration
      */
     open fun setGitConfig(commandManager: CommandManager, workUnit: WorkUnit) {
+        // Use a private home so that "global" config only applies to this migration
+        val gitEnvironment = GitEnvironment.of(workUnit)
+        gitEnvironment.init()
+        commandManager.environment = gitEnvironment.variables()
+        LOG.info("Git environment of migration ${workUnit.migration.id} in ${gitEnvironment.home}")
+
         // Avoid implicit git gc that may trigger error: fatal: gc is already running on machine '<servername>' pid 124077 (use --force if not)
         // Note: Git GC will be triggered following git svn clone (on large projects) which causes a crash in following steps.
         val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_CONFIG_GLOBAL_GC_AUTO_OFF, "Assure Git Garbage Collection doesn't run in background to avoid conflicts.")
@@ -38,6 +53,13 @@ open class GitManager(val historyMgr: HistoryManager,
         execCommand(commandManager, workUnit.directory, gitCommand)
         historyMgr.endStep(history, StatusEnum.DONE, null)
 
+        // Git LFS filters are set in private global config, so that conversion by BFG can be checked out & pushed
+        if (workUnit.migration.lfs == true) {
+            val lfsHistory = historyMgr.startStep(workUnit.migration, StepEnum.GIT_SET_CONFIG, "Enable Git LFS")
+            execCommand(commandManager, workUnit.directory, lfsInstall())
+            historyMgr.endStep(lfsHistory, StatusEnum.DONE, null)
+        }
+
         // Log all git config before
         gitCommandManager.logGitConfig(workUnit)
         gitCommandManager.logUlimit(workUnit)
@@ -55,10 +77,10 @@ open class GitManager(val historyMgr: HistoryManager,
             if (configParts.size == 2) {
                 val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_DYNAMIC_LOCAL_CONFIG, dynamicLocalConfigDesc)
                 LOG.info("Setting Git Config")
-                execCommand(workUnit.commandManager, workUnit.directory, setConfig(dynamicLocalConfig))
+                gitBackend.setConfig(workUnit, configParts[0], configParts[1])
 
                 LOG.info("Checking Git Config")
-                execCommand(workUnit.commandManager, workUnit.directory, readConfig(configParts[0]))
+                LOG.info("${configParts[0]} = ${gitBackend.readConfig(workUnit, configParts[0])}")
                 historyMgr.endStep(history, StatusEnum.DONE, null)
             } else {
                 LOG.warn("Problem applying dynamic git local configuration")
@@ -107,20 +129,22 @@ open class GitManager(val historyMgr: HistoryManager,
         // Only Clone if first attempt at migration
         var cloneOK = true
         if (workUnit.commandManager.isFirstAttemptMigration) {
-            try {
-                execCommand(workUnit.commandManager, workUnit.root, cloneCommand, safeCommand, true, true)
-            } catch (thr: Throwable) {
-                cloneOK = false
-                LOG.warn("Cannot git svn clone", thr.message)
-                var round = 0
-                var notOk = true
-                while (round++ < applicationProperties.svn.maxFetchAttempts && notOk) {
-                    notOk = gitSvnFetch(workUnit, round)
-                    gitGC(workUnit, round)
-                }
-                if (notOk) {
-                    historyMgr.endStep(history, StatusEnum.FAILED, null)
-                    throw RuntimeException()
+            if (workUnit.commandManager.isResumed && File(workUnit.directory, ".git").exists()) {
+                // An interrupted clone is completed with fetch
+                LOG.info("Clone of migration ${workUnit.migration.id} interrupted, complete it with git svn fetch")
+                fetchUntilDone(workUnit, history, null)
+            } else {
+                try {
+                    execCommand(workUnit.commandManager, workUnit.root, cloneCommand, safeCommand, true, true,
+                        progressManager.cloneListener(workUnit.migration))
+                } catch (exc: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    historyMgr.endStep(history, StatusEnum.FAILED, exc.message)
+                    throw exc
+                } catch (thr: Throwable) {
+                    cloneOK = false
+                    LOG.warn("Cannot git svn clone : ${thr.message}", thr)
+                    fetchUntilDone(workUnit, history, thr)
                 }
             }
         }
@@ -131,28 +155,54 @@ open class GitManager(val historyMgr: HistoryManager,
         }
     }
 
+    /**
+     * Fetch until all revisions are there, failing clone step if attempts are exhausted
+     *
+     * @param workUnit Current work unit
+     * @param history  Clone step
+     * @param cloneFailure Failure of clone completed by fetch, if any
+     */
+    private fun fetchUntilDone(workUnit: WorkUnit, history: MigrationHistory, cloneFailure: Throwable?) {
+        var round = 0
+        var failure = cloneFailure
+        var done = false
+        while (round++ < applicationProperties.svn.maxFetchAttempts && !done) {
+            failure = gitSvnFetch(workUnit, round)
+            done = failure == null
+            gitGC(workUnit, round)
+        }
+        if (!done) {
+            historyMgr.endStep(history, StatusEnum.FAILED, failure?.message)
+            throw RuntimeException("Cannot git svn fetch after ${round - 1} attempts", failure)
+        }
+    }
+
     /**
      * Git svn fetch command to copy svn as git repository
      *
      * @param workUnit Current work unit
      * @param round Round number
-     * @return if fetch is in failure or not
+     * @return failure of fetch, null if fetch is done
      * @throws IOException
      * @throws InterruptedException
      */
     @Throws(IOException::class, InterruptedException::class)
-    open fun gitSvnFetch(workUnit: WorkUnit, round: Int) : Boolean {
-        val fetchCommand = "git svn fetch";
+    open fun gitSvnFetch(workUnit: WorkUnit, round: Int) : Throwable? {
+        val fetchCommand = "git svn fetch ${gitCommandManager.logWindowSize(workUnit)}".trim()
 
         val history = historyMgr.startStep(workUnit.migration, StepEnum.SVN_FETCH, "$fetchCommand (Round $round)")
         return try {
-            execCommand(workUnit.commandManager, workUnit.directory, fetchCommand)
+            execCommand(workUnit.commandManager, workUnit.directory, fetchCommand, onOutput = progressManager.cloneListener(workUnit.migration))
             historyMgr.endStep(history, StatusEnum.DONE, null)
-            false
+            null
+        } catch (exc: InterruptedException) {
+            Thread.currentThread().interrupt()
+            historyMgr.endStep(history, StatusEnum.FAILED, exc.message)
+            throw exc
         } catch (thr: Throwable) {
-            LOG.error("Cannot git svn fetch", thr.printStackTrace())
-            historyMgr.endStep(history, StatusEnum.FAILED, null)
-            true
+            LOG.error("Cannot git svn fetch", thr)
+            historyMgr.endStep(history, StatusEnum.FAILED, thr.message)
+            thr
         }
     }
 
@@ -174,8 +224,12 @@ open class GitManager(val historyMgr: HistoryManager,
             execCommand(workUnit.commandManager, workUnit.directory, gcCommand)
             historyMgr.endStep(history, StatusEnum.DONE, null)
             false
+        } catch (exc: InterruptedException) {
+            Thread.currentThread().interrupt()
+            historyMgr.endStep(history, StatusEnum.FAILED, exc.message)
+            throw exc
         } catch (thr: Throwable) {
-            LOG.error("Cannot git gc", thr.printStackTrace())
+            LOG.error("Cannot git gc", thr)
             historyMgr.endStep(history, StatusEnum.FAILED, null)
             true
         }
@@ -188,13 +242,25 @@ open class GitManager(val historyMgr: HistoryManager,
         val history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "SVN ${migration.trunk} -> GitLab master")
 
         // Set origin
-        execCommand(commandManager, workUnit.directory,
-            gitCommandManager.buildRemoteCommand(workUnit, svn, false),
-            gitCommandManager.buildRemoteCommand(workUnit, svn, true))
+        try {
+            gitBackend.addRemote(workUnit, ORIGIN,
+                gitCommandManager.remoteUrl(workUnit, svn, false),
+                gitCommandManager.remoteUrl(workUnit, svn, true))
+        } catch (rEx: RuntimeException) {
+            // Already set by interrupted execution
+            if (!commandManager.isResumed) throw rEx
+            LOG.debug(ORIGIN_ALREADY_ADDED)
+        }
         if (migration.trunk != "trunk") {
             execCommand(workUnit.commandManager, workUnit.directory, checkoutFromOrigin(migration.trunk))
-            execCommand(workUnit.commandManager, workUnit.directory, deleteBranch(MASTER))
-            execCommand(workUnit.commandManager, workUnit.directory, renameBranch(MASTER))
+            gitBackend.deleteBranch(workUnit, MASTER)
+            gitBackend.renameBranch(workUnit, MASTER)
+        }
+
+        // Files converted by BFG : track them & upload their content before any ref references it
+        if (migration.lfs == true) {
+            trackLfsFiles(workUnit)
+            pushLfsObjects(workUnit)
         }
 
         // if no history option set
@@ -202,7 +268,7 @@ open class GitManager(val historyMgr: HistoryManager,
             removeHistory(workUnit, MASTER, false, history)
         } else {
             // Push with upstream
-            execCommand(commandManager, workUnit.directory, "$GIT_PUSH --set-upstream origin master")
+            gitCommandManager.push(workUnit, "$GIT_PUSH --set-upstream origin master")
             historyMgr.endStep(history, StatusEnum.DONE)
         }
 
@@ -214,6 +280,47 @@ open class GitManager(val historyMgr: HistoryManager,
         workUnit.warnings.set(workUnit.warnings.get() || warning)
     }
 
+    /**
+     * Commit .gitattributes on master so that files converted to LFS pointers are checked out with their content
+     *
+     * @param workUnit Current work unit
+     */
+    open fun trackLfsFiles(workUnit: WorkUnit) {
+        if (lfsAttributes(workUnit.migration.forbiddenFileExtensions).isEmpty()) return
+        // Index & working tree still hold files as before rewrite
+        execCommand(workUnit.commandManager, workUnit.directory, resetHead())
+        val file = File(workUnit.directory, GIT_ATTRIBUTES)
+        val existing = if (file.exists()) file.readLines() else emptyList()
+        val missing = missingLfsAttributes(existing, workUnit.migration.forbiddenFileExtensions)
+        if (missing.isEmpty()) return
+        file.writeText((existing + missing).joinToString("\n", postfix = "\n"))
+        execCommand(workUnit.commandManager, workUnit.directory, add(GIT_ATTRIBUTES))
+        execCommand(workUnit.commandManager, workUnit.directory, commit("Track files converted to Git LFS"))
+    }
+
+    /**
+     * Upload to GitLab LFS storage the objects written by BFG conversion, in batches of object ids.
+     * GitLab rejects pushes referencing LFS objects it doesn't have, so this runs before pushing refs.
+     *
+     * @param workUnit Current work unit
+     */
+    open fun pushLfsObjects(workUnit: WorkUnit) {
+        val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_PUSH, "Git LFS objects")
+        val objects = Paths.get(workUnit.directory, ".git", "lfs", "objects").toFile()
+        val oids = objects.walkTopDown().filter { it.isFile }.map { it.name }.toList()
+        if (oids.isEmpty()) {
+            historyMgr.endStep(history, StatusEnum.IGNORED, "No file converted to Git LFS")
+            return
+        }
+        try {
+            lfsPush(oids).forEach { gitCommandManager.push(workUnit, it) }
+            historyMgr.endStep(history, StatusEnum.DONE, "Push ${oids.size} Git LFS objects")
+        } catch (exc: Exception) {
+            historyMgr.endStep(history, StatusEnum.FAILED, exc.message)
+            throw exc
+        }
+    }
+
     /**
      * Remove commit history on a given branch
      *
@@ -226,42 +333,17 @@ open class GitManager(val historyMgr: HistoryManager,
         try {
             LOG.debug("Remove history on $branch")
 
-            // Create new orphan branch and switch to it. The first commit made on this new branch
-            // will have no parents and it will be the root of a new history totally disconnected from all the
-            // other branches and commits
-            execCommand(workUnit.commandManager, workUnit.directory,
-                gitCommand(CHECKOUT, "--orphan", "\"TEMP_BRANCH_$branch\""))
-
-            // Stage All (new, modified, deleted) files. Equivalent to git add . (in Git Version 2.x)
-            execCommand(workUnit.commandManager, workUnit.directory, gitCommand("add", flags = "-A"))
-            try {
-                // Create a new commit. Runs git add on any file that is 'tracked' and provide a message
-                // for the commit
-                execCommand(workUnit.commandManager, workUnit.directory, commitAll("Reset history on $branch"))
-            } catch (ex: RuntimeException) {
-                // Ignored failed step
-            }
-            try {
-                // Delete (with force) the passed in branch name
-                execCommand(workUnit.commandManager, workUnit.directory, deleteBranch(branch!!))
-            } catch (ex: RuntimeException) {
-                if (ex.message.equals("1", ignoreCase = true)) {
-                    // Ignored failed step
-                }
-            }
-
-            // move/rename a branch and the corresponding reflog
-            // (i.e. rename the orphan branch - without history - to the passed in branch name)
-            // Note : This fails with exit code 128 (git branch -m tmp_tag) when only folders in the subversion tag.
-            // git commit -am above fails because no files
-            execCommand(workUnit.commandManager, workUnit.directory, renameBranch(branch!!))
+            // Write a commit without parent from the tree of the branch and move the branch on it.
+            // Index and working tree already match this tree, so they are left untouched
+            val snapshot = snapshot(workUnit, "refs/heads/$branch", "Reset history on $branch")
+            gitBackend.updateRef(workUnit, "refs/heads/$branch", snapshot)
 
             // i.e. if it is a branch
             if (!isTag) {
                 // create the remote
                 addRemote(workUnit, true)
                 // push to remote
-                execCommand(workUnit.commandManager, workUnit.directory, gitCommand("push", "-f", "origin \"$branch\""))
+                gitCommandManager.push(workUnit, gitCommand("push", "-f", "origin \"$branch\""))
                 historyMgr.endStep(history, StatusEnum.DONE, "Push $branch with no history")
             }
         } catch (gitEx: IOException) {
@@ -271,6 +353,33 @@ open class GitManager(val historyMgr: HistoryManager,
         }
     }
 
+    /**
+     * Create a commit without parent holding the content of a ref, i.e. its history is dropped.
+     * Only the existing tree object is reused, whatever the size of the repository.
+     *
+     * @param workUnit Current work unit
+     * @param ref      Ref to snapshot
+     * @param message  Message of the commit
+     * @return hash of the created commit
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    open fun snapshot(workUnit: WorkUnit, ref: String, message: String): String {
+        val tree = gitBackend.resolve(workUnit, "$ref^{tree}")
+        return gitBackend.commitTree(workUnit, tree, message)
+    }
+
+    /**
+     * Ref to push for a migrated svn ref : the ref itself, or a snapshot of its content when history is not kept
+     *
+     * @param workUnit Current work unit
+     * @param ref      Svn ref to migrate
+     * @param name     Name of migrated element
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    open fun sourceOf(workUnit: WorkUnit, ref: String, name: String): String =
+        if (workUnit.migration.svnHistory == "all") ref
+        else snapshot(workUnit, ref, "Reset history on $name")
+
     /**
      * Add remote url to git folder
      *
@@ -278,12 +387,14 @@ open class GitManager(val historyMgr: HistoryManager,
      * @param trunkOnly Only check trunk or not
      */
     open fun addRemote(workUnit: WorkUnit, trunkOnly: Boolean) {
+        // Remote has already been added for all worktrees
+        if (workUnit.worktree != null) return
         if (workUnit.migration.trunk == null && (trunkOnly || workUnit.migration.branches == null)) {
             try {
                 // Set origin
-                execCommand(workUnit.commandManager, workUnit.directory,
-                    gitCommandManager.buildRemoteCommand(workUnit, null, false),
-                    gitCommandManager.buildRemoteCommand(workUnit, null, true))
+                gitBackend.addRemote(workUnit, ORIGIN,
+                    gitCommandManager.remoteUrl(workUnit, null, false),
+                    gitCommandManager.remoteUrl(workUnit, null, true))
             } catch (rEx: IOException) {
                 LOG.debug(ORIGIN_ALREADY_ADDED)
                 // Skip
@@ -6,6 +6,7 @@ import fr.yodamad.svn2git.domain.MigrationHistory
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
 import fr.yodamad.svn2git.service.client.GitlabAdmin
+import fr.yodamad.svn2git.service.client.RateLimiter
 import fr.yodamad.svn2git.service.util.STARS
 import org.apache.commons.lang3.StringUtils.isEmpty
 import org.gitlab4j.api.GitLabApi
@@ -19,7 +20,8 @@ import org.springframework.stereotype.Service
 
 @Service
 open class GitlabManager(val historyMgr: HistoryManager,
-                    var applicationProperties: ApplicationProperties) {
+                    var applicationProperties: ApplicationProperties,
+                    val rateLimiter: RateLimiter) {
 
     private val LOG = LoggerFactory.getLogger(GitlabManager::class.java)
 
@@ -58,13 +60,16 @@ open class GitlabManager(val historyMgr: HistoryManager,
                 gitlabAdmin.setGitlabApi(api)
             }
         }
+        // Every call to GitLab API goes through the rate limiter of the server
+        val admin = gitlabAdmin!!
+        val endpoint = RateLimiter.endpointOf(admin.api().gitLabServerUrl)
         try {
-            val group = gitlabAdmin!!.groupApi().getGroup(migration.gitlabGroup)
+            val group = rateLimiter.call(endpoint) { admin.groupApi().getGroup(migration.gitlabGroup) }
             val gitlabProjectId : Int
 
             // If no svn project specified, use svn group instead
             if (isEmpty(migration.svnProject) && isEmpty(migration.gitlabProject)) {
-                gitlabProjectId = gitlabAdmin.projectApi().createProject(group.id, migration.svnGroup).id
+                gitlabProjectId = rateLimiter.call(endpoint) { admin.projectApi().createProject(group.id, migration.svnGroup).id }
                 historyMgr.endStep(history, StatusEnum.DONE, null)
             } else {
                 // split svn structure to create gitlab elements (group(s), project)
@@ -81,20 +86,20 @@ open class GitlabManager(val historyMgr: HistoryManager,
                         currentPath += String.format("/%s", structure[module])
                         gitlabSubGroup.parentId = groupId
                         try {
-                            groupId = gitlabAdmin.groupApi().addGroup(gitlabSubGroup).id
+                            groupId = rateLimiter.call(endpoint) { admin.groupApi().addGroup(gitlabSubGroup).id }
                         } catch (gitlabApiEx: GitLabApiException) {
                             // Ignore error & get existing groupId
-                            groupId = gitlabAdmin.groupApi().getGroup(currentPath).id
+                            groupId = rateLimiter.call(endpoint) { admin.groupApi().getGroup(currentPath).id }
                             continue
                         }
                     }
                 }
-                val project = gitlabAdmin.groupApi().getProjects(groupId)
+                val project = rateLimiter.call(endpoint) { admin.groupApi().getProjects(groupId) }
                     .stream()
                     .filter { p: Project -> p.name.equals(structure[structure.size - 1], ignoreCase = true) }
                     .findFirst()
                 if (!project.isPresent) {
-                    gitlabProjectId = gitlabAdmin.projectApi().createProject(groupId, structure[structure.size - 1]).id
+                    gitlabProjectId = rateLimiter.call(endpoint) { admin.projectApi().createProject(groupId, structure[structure.size - 1]).id }
                     historyMgr.endStep(history, StatusEnum.DONE, null)
                 } else {
                     throw GitLabApiException("Please remove the destination project '${group.name}/${structure[structure.size - 1]}'")
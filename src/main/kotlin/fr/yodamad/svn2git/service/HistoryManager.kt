@@ -58,6 +58,39 @@ open class HistoryManager(private val migrationHistoryRepository: MigrationHisto
         LOG.info("Finish step ${history.step} with status $status in ${history.executionTime}")
     }
 
+    /**
+     * Create history of a step already done
+     * @param migration
+     * @param step
+     * @param status
+     * @param durationMillis Duration of the step
+     * @param data
+     * @return
+     */
+    open fun recordStep(migration: Migration?, step: StepEnum?, status: StatusEnum?, durationMillis: Long, data: String?): MigrationHistory {
+        val end = Instant.now()
+        val history = MigrationHistory()
+            .step(step)
+            .migration(migration)
+            .date(end)
+            .status(status)
+            .startTime(end.minusMillis(durationMillis))
+            .data(data)
+        history.executionTime = DateFormatter.toNiceFormat(durationMillis)
+        LOG.info("Step $step $data done with status $status in ${history.executionTime}")
+        return migrationHistoryRepository.save(history)
+    }
+
+    /**
+     * Update data of a running step
+     * @param history
+     * @param data
+     */
+    open fun updateStep(history: MigrationHistory, data: String) {
+        history.data = data
+        migrationHistoryRepository.save(history)
+    }
+
     /**
      * Load eagerly a migration
      * @param migId Migration ID
@@ -1,5 +1,6 @@
 package fr.yodamad.svn2git.service
 
+import fr.yodamad.svn2git.config.ApplicationProperties
 import fr.yodamad.svn2git.domain.Migration
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.repository.MigrationRepository
@@ -8,6 +9,7 @@ import org.springframework.context.annotation.DependsOn
 import org.springframework.context.annotation.Lazy
 import org.springframework.stereotype.Service
 import org.springframework.transaction.annotation.Transactional
+import java.io.File
 import java.util.function.Consumer
 import javax.annotation.PostConstruct
 
@@ -20,24 +22,35 @@ open class MigrationChecker(
     /** Migration manager.  */
     private val manager: MigrationManager,
     /** Migration repo.  */
-    private val repository: MigrationRepository) {
+    private val repository: MigrationRepository,
+    /** Leases of worker nodes.  */
+    private val leaseManager: MigrationLeaseManager,
+    private val applicationProperties: ApplicationProperties) {
 
     /**
-     * Check if application crashed, if so restarts waiting migrations and fails those which are "running"
+     * Check if application crashed, if so restarts waiting migrations and resumes (or fails) those which are "running"
      */
     @Transactional
     @PostConstruct
     @DependsOn("asyncConfiguration")
     open fun checkDb() {
+        if (applicationProperties.worker.enabled) {
+            checkOwnedLeases()
+            return
+        }
         try {
             // Start waiting migrations
             repository.findAllByStatusOrderByDateDesc(StatusEnum.WAITING).forEach(
                 Consumer { mig: Migration -> manager.startMigration(mig.id, false) })
-            // Fail running migrations
+            // Resume interrupted migrations if possible, fail others
             repository.findAllByStatusOrderByDateDesc(StatusEnum.RUNNING).forEach(
                 Consumer { mig: Migration ->
-                    mig.status(StatusEnum.FAILED)
-                    repository.save(mig)
+                    if (isResumable(mig)) {
+                        manager.resumeMigration(mig.id)
+                    } else {
+                        mig.status(StatusEnum.FAILED)
+                        repository.save(mig)
+                    }
                 })
         } catch (exc: Exception) {
             LOG.error("Failed to check migration on startup", exc)
@@ -50,6 +63,34 @@ open class MigrationChecker(
         }
     }
 
+    /**
+     * In worker mode, only migrations leased by this node are concerned : running ones are resumed (or failed)
+     * and waiting ones are released so that any node can claim them.
+     * Other migrations are handled by their owner or requeued once their lease has expired.
+     */
+    private fun checkOwnedLeases() {
+        leaseManager.owned().forEach { lease ->
+            val mig = repository.findById(lease.migrationId).orElse(null)
+            if (mig != null && mig.status == StatusEnum.RUNNING && isResumable(mig)) {
+                // Keep the lease while resuming
+                manager.resumeMigration(mig.id)
+            } else {
+                if (mig != null && mig.status == StatusEnum.RUNNING) {
+                    mig.status(StatusEnum.FAILED)
+                    repository.save(mig)
+                }
+                leaseManager.release(lease.migrationId)
+            }
+        }
+    }
+
+    /**
+     * @param mig Interrupted migration
+     * @return true if migration has a checkpoint & its workspace is still there
+     */
+    open fun isResumable(mig: Migration) =
+        applicationProperties.work.resumeOnStartup && !mig.workspace.isNullOrBlank() && File(mig.workspace).isDirectory
+
     companion object {
         private val LOG = LoggerFactory.getLogger(MigrationChecker::class.java)
     }
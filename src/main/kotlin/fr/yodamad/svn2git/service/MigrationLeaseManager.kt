@@ -0,0 +1,100 @@
+package fr.yodamad.svn2git.service
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.domain.MigrationLease
+import fr.yodamad.svn2git.repository.MigrationLeaseRepository
+import org.slf4j.LoggerFactory
+import org.springframework.dao.DataIntegrityViolationException
+import org.springframework.stereotype.Service
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.transaction.support.TransactionTemplate
+import java.net.InetAddress
+import java.net.UnknownHostException
+import java.time.Instant
+
+/**
+ * Leases of migrations owned by worker nodes sharing the same database
+ */
+@Service
+open class MigrationLeaseManager(val repository: MigrationLeaseRepository,
+                                 val applicationProperties: ApplicationProperties,
+                                 transactionManager: PlatformTransactionManager) {
+
+    private val LOG = LoggerFactory.getLogger(MigrationLeaseManager::class.java)
+
+    /** Claims run in their own transaction, rolled back before a lost race is handled */
+    private val claimTransaction = TransactionTemplate(transactionManager).apply {
+        propagationBehavior = TransactionDefinition.PROPAGATION_REQUIRES_NEW
+    }
+
+    /** Identifier of current node, stable across restarts so that leases of a crashed node are found again */
+    val nodeId: String = applicationProperties.worker.nodeId.ifBlank { hostName() }
+
+    /**
+     * Try to claim a waiting migration, either never leased or whose lease has expired
+     *
+     * @param migrationId Migration to claim
+     * @return true if current node now owns the migration
+     */
+    open fun claim(migrationId: Long): Boolean = try {
+        claimTransaction.execute {
+            val now = Instant.now()
+            repository.insertLease(migrationId, nodeId, now) == 1 || repository.takeOver(migrationId, nodeId, now, expiry(now)) == 1
+        } == true
+    } catch (e: DataIntegrityViolationException) {
+        // Lease inserted concurrently by another node
+        LOG.debug("Migration $migrationId already claimed by another node")
+        false
+    }
+
+    /**
+     * Refresh leases of current node
+     */
+    @Transactional
+    open fun heartbeat() = repository.heartbeat(nodeId, Instant.now())
+
+    /**
+     * Release a migration owned by current node
+     *
+     * @param migrationId Migration to release
+     */
+    @Transactional
+    open fun release(migrationId: Long) {
+        if (repository.release(migrationId, nodeId) > 0) LOG.debug("Migration $migrationId released by $nodeId")
+    }
+
+    /**
+     * Drop an expired lease, if no other node took it over in the meantime
+     *
+     * @param migrationId Migration whose lease has expired
+     * @return true if the lease has been dropped by current node
+     */
+    @Transactional
+    open fun dropExpired(migrationId: Long) = repository.deleteExpired(migrationId, expiry(Instant.now())) == 1
+
+    /**
+     * @return leases of current node
+     */
+    open fun owned(): List<MigrationLease> = repository.findAllByOwner(nodeId)
+
+    /**
+     * @return leases without heartbeat for too long
+     */
+    open fun expired(): List<MigrationLease> = repository.findAllByHeartbeatBefore(expiry(Instant.now()))
+
+    private fun expiry(now: Instant) = now.minusSeconds(applicationProperties.worker.leaseSeconds)
+
+    companion object {
+        /**
+         * @return name of current host
+         */
+        @JvmStatic
+        fun hostName(): String = try {
+            InetAddress.getLocalHost().hostName
+        } catch (e: UnknownHostException) {
+            System.getenv("HOSTNAME") ?: "localhost"
+        }
+    }
+}
@@ -2,26 +2,39 @@ package fr.yodamad.svn2git.service
 
 import fr.yodamad.svn2git.config.ApplicationProperties
 import fr.yodamad.svn2git.config.Constants
+import fr.yodamad.svn2git.data.CapacityClass
+import fr.yodamad.svn2git.data.GitEnvironment
+import fr.yodamad.svn2git.data.ProgressPhase
 import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.Migration
 import fr.yodamad.svn2git.domain.MigrationHistory
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
 import fr.yodamad.svn2git.domain.enumeration.SvnLayout
-import fr.yodamad.svn2git.functions.listRemotes
 import fr.yodamad.svn2git.io.Shell
 import fr.yodamad.svn2git.io.Shell.execCommand
 import fr.yodamad.svn2git.io.Shell.formatDirectory
 import fr.yodamad.svn2git.io.Shell.isWindows
 import fr.yodamad.svn2git.repository.MigrationHistoryRepository
 import fr.yodamad.svn2git.repository.MigrationRepository
+import fr.yodamad.svn2git.service.git.GitBackend
+import fr.yodamad.svn2git.service.pipeline.StepContext
+import fr.yodamad.svn2git.service.pipeline.StepGraph
+import fr.yodamad.svn2git.service.pipeline.StepKey
+import fr.yodamad.svn2git.service.pipeline.StepNode
+import fr.yodamad.svn2git.service.svn.SvnAnalyzer
+import fr.yodamad.svn2git.service.svn.SvnMirror
 import fr.yodamad.svn2git.service.util.*
 import org.apache.commons.lang3.StringUtils.isEmpty
 import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.scheduling.annotation.Async
 import org.springframework.scheduling.annotation.AsyncResult
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
 import org.springframework.stereotype.Component
 import java.io.IOException
 import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.stream.Collectors.toMap
 
@@ -37,37 +50,68 @@ open class MigrationManager(val cleaner: Cleaner,
                             val migrationHistoryRepository: MigrationHistoryRepository,
                             val applicationProperties: ApplicationProperties,
                             val summaryManager: SummaryManager,
-                            val ioManager: IOManager) {
+                            val ioManager: IOManager,
+                            val scheduler: MigrationScheduler,
+                            val leaseManager: MigrationLeaseManager,
+                            val gitBackend: GitBackend,
+                            val svnAnalyzer: SvnAnalyzer,
+                            val svnMirror: SvnMirror,
+                            val progressManager: ProgressManager,
+                            @Qualifier("stepExecutor") val stepExecutor: ThreadPoolTaskExecutor) {
 
     companion object {
         private val LOG = LoggerFactory.getLogger(MigrationManager::class.java)
+
+        // Values exchanged between migration steps
+        val PROJECT_ID = StepKey<Int>("gitlabProjectId")
+        val ANALYZED = StepKey<Boolean>("analyzed")
+        val WORKSPACE = StepKey<String>("workspace")
+        val REFS_CLEANED = StepKey<Boolean>("refsCleaned")
+        val CLEANED_FILES = StepKey<CleanedFilesManager>("cleanedFiles")
+        val HISTORY_CLEANED = StepKey<Boolean>("historyCleaned")
+        val PUSHED = StepKey<Boolean>("pushed")
     }
 
     private val FAILED_DIR = "Failed to create directory : %s"
 
     /**
-     * Start a migration in a dedicated thread
+     * Start a migration in a dedicated thread, once admitted by the scheduler
      *
      * @param migrationId ID for migration to start
      * @param retry       Flag to know if it's the first attempt or a retry
      */
-    @Async
-    open fun startMigration(migrationId: Long, retry: Boolean): Future<String>? {
+    @Async("migrationExecutor")
+    open fun startMigration(migrationId: Long, retry: Boolean): Future<String>? = runMigration(migrationId, false)
+
+    /**
+     * Resume an interrupted migration from its last checkpoint, in its previous workspace
+     *
+     * @param migrationId ID for migration to resume
+     */
+    @Async("migrationExecutor")
+    open fun resumeMigration(migrationId: Long): Future<String>? = runMigration(migrationId, true)
+
+    private fun runMigration(migrationId: Long, resume: Boolean): Future<String>? {
 
         val migration = migrationRepository.findById(migrationId).orElseThrow { NoSuchElementException() }
         var history: MigrationHistory? = null
         val rootDir: String
         val commandManager = CommandManager(migration)
+        commandManager.isResumed = resume
+        commandManager.commandTimeoutMillis = TimeUnit.MINUTES.toMillis(applicationProperties.work.commandTimeoutMinutes)
         try {
             history = historyMgr.startStep(migration, StepEnum.INIT,
-                (if (commandManager.isFirstAttemptMigration) "" else Constants.REEXECUTION_SKIPPING) + "Create working directory")
+                (if (resume) "Resume from checkpoint [${migration.checkpoint}] in "
+                else if (commandManager.isFirstAttemptMigration) "" else Constants.REEXECUTION_SKIPPING) + "Create working directory")
             // If migration.workingDirectory is set we are reexecuting a 'partial' migration
-            rootDir = if (commandManager.isFirstAttemptMigration) {
+            rootDir = if (resume) {
+                migration.workspace
+            } else if (commandManager.isFirstAttemptMigration) {
                 Shell.workingDir(commandManager, applicationProperties.work.directory, migration)
             } else {
                 commandManager.workingDirectoryPath
             }
-            historyMgr.endStep(history, StatusEnum.DONE, null)
+            historyMgr.endStep(history, StatusEnum.DONE, if (resume) rootDir else null)
         } catch (ex: IOException) {
             historyMgr.endStep(history, StatusEnum.FAILED, String.format(FAILED_DIR, ex.message))
             migration.status = StatusEnum.FAILED
@@ -86,103 +130,24 @@ open class MigrationManager(val cleaner: Cleaner,
         }
         val workUnit = WorkUnit(migration, formatDirectory(rootDir),
             Shell.gitWorkingDir(rootDir, migration.svnGroup), AtomicBoolean(false), commandManager)
+        // Private git environment applies from the first git command, it is initialized with git config
+        commandManager.environment = GitEnvironment.of(workUnit).variables()
+        var interrupted = false
         try {
 
-            // Start migration
+            // Start migration, keeping track of its workspace & completed steps to resume it if interrupted
+            val completed: MutableSet<StepEnum> = if (resume) parseCheckpoint(migration.checkpoint) else mutableSetOf()
             migration.status = StatusEnum.RUNNING
+            migration.workspace = rootDir
+            migration.checkpoint = formatCheckpoint(completed)
             migrationRepository.save(migration)
 
-            // 1. Create project on gitlab : OK
-            val projectId = gitlabManager.createGitlabProject(migration)
-            migration.gitlabProjectId(projectId)
-            migrationRepository.save(migration)
-
-            // If reexecution we initialise from clean copy.
-            ioManager.initRootDirectoryFromCopy(workUnit)
-
-            // 2. Checkout empty repository : OK
-            val svn: String = initDirectory(workUnit)
-
-            // 2.1 Set some git config
-            gitManager.setGitConfig(commandManager, workUnit)
-
-            // 2.2. SVN checkout
-            gitManager.gitSvnClone(workUnit)
-            checkGitConfig(workUnit)
-            ioManager.copyRootDirectory(workUnit)
-            // Migration is now reexecutable in cases where there is a failure
-            commandManager.isReexecutable = true
-
-            // Apply dynamic local configuration
-            applicationProperties.getGitlab().getDynamicLocalConfig().stream()
-                .map { s: String -> s.split(",").toTypedArray() }
-                .collect(toMap({ a: Array<String> -> a[0].trim { it <= ' ' } }, { a: Array<String> -> a[1].trim { it <= ' ' } }))
-                .forEach { (key: String?, value: String?) ->
-                    try {
-                        gitManager.addDynamicLocalConfig(workUnit, key, value)
-                    } catch (e: IOException) {
-                        LOG.error(e.message, e)
-                    } catch (e: InterruptedException) {
-                        Thread.currentThread().interrupt()
-                        throw RuntimeException(e)
-                    }
-                }
-
-            // 2.3. Remove phantom elements
-            cleaner.cleanElementsOn(workUnit, false)
-            cleaner.cleanElementsOn(workUnit, true)
-
-            // 3. Clean files
-            // 3.1 List files to remove. uploads binaries to Artifactory.
-            val cleanedFilesManager = cleaner.listCleanedFiles(workUnit)
-            LOG.info(cleanedFilesManager.toString())
-
-            // Only launch clean steps if there is a file to clean in trunk, branches or tags.
-            // If no files at this stage, no migration is executed i.e. no push to gitlab.
-            if (cleanedFilesManager!!.existsFileInSvnLayout(true, SvnLayout.ALL)) {
-
-                if (migration.cleaning) {
-                    // 3.2 Remove
-                    val cleanFolderWithBFG = cleaner.cleanFolderWithBFG(workUnit)
-                    val cleanExtensions = cleaner.cleanForbiddenExtensions(workUnit)
-                    val cleanLargeFiles = cleaner.cleanLargeFiles(workUnit)
-                    if (cleanExtensions || cleanLargeFiles || cleanFolderWithBFG) { gitClean(commandManager, workUnit) }
-                }
-
-                // 4. Git push master based on SVN trunk
-                if (migration.trunk != null) {
-                    gitManager.manageMaster(commandManager, workUnit, migration, svn)
-                } else {
-                    history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, migration.trunk)
-                    historyMgr.endStep(history, StatusEnum.IGNORED, "Skip ${migration.trunk}")
-                }
-
-                // 6. List branches & tags
-                val remotes: List<String> = listRemotes(workUnit.directory)
-                // Extract branches
-                if (!isEmpty(migration.branches) && migration.branches == "*") {
-                    gitBranchManager.manageBranches(workUnit, remotes)
-                } else {
-                    history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "Branches")
-                    historyMgr.endStep(history, StatusEnum.IGNORED, "Skip branches")
-                }
-
-                // Extract tags
-                if (!isEmpty(migration.tags) && migration.tags == "*") {
-                    gitTagManager.manageTags(workUnit, remotes)
-                } else {
-                    history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "Tags")
-                    historyMgr.endStep(history, StatusEnum.IGNORED, "Skip tags")
-                }
-
-                // Generate summary
-                summaryManager.prepareAndGenerate(commandManager,  cleanedFilesManager, workUnit, migration)
-            } else {
-                history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "${migration.trunk}, Tags, Branches")
-                historyMgr.endStep(history, StatusEnum.IGNORED, "Skipping Migration : No Files Available. No Push to Gitlab")
+            // Run migration steps, independent ones concurrently
+            buildPipeline(workUnit).run(StepContext(), stepExecutor, completed) { node ->
+                completed.add(node.step)
+                saveMigration(migration) { it.checkpoint = formatCheckpoint(completed) }
             }
 
-
             // Finalize migration
             if (workUnit.warnings.get()) {
                 migration.status = StatusEnum.DONE_WITH_WARNINGS
@@ -192,12 +157,20 @@ open class MigrationManager(val cleaner: Cleaner,
 
             // migration was successful assure workingDirectory is set to empty so no reexecution is possible
             migration.workingDirectory = ""
+            migration.workspace = ""
+            migration.checkpoint = ""
             if (applicationProperties.work.cleanAtTheEnd) ioManager.deleteWorkingRoot(workUnit, true)
             migrationRepository.save(migration)
 
             // Log all git config after operations
             gitCommandManager.logGitConfig(workUnit)
         } catch (exc: Throwable) {
+            if (isInterruption(exc)) {
+                // Application is stopping : keep migration running & its workspace so that it's resumed on next startup
+                interrupted = true
+                LOG.warn("Migration $migrationId interrupted at checkpoint [${migration.checkpoint}], it will be resumed")
+                return AsyncResult(StatusEnum.KO.name)
+            }
             history = migrationHistoryRepository.findFirstByMigration_IdOrderByIdDesc(migrationId)
             if (history != null) {
                 LOG.error("Failed step : ${history.step}", exc)
@@ -211,14 +184,21 @@ open class MigrationManager(val cleaner: Cleaner,
                 LOG.info("Deleting working directory")
                 LOG.info("REASON:commandManager.isReexecutable() AND ERROR during migration")
             }
+            // A failed migration is reexecuted from the copy, not resumed
+            migration.workspace = ""
+            migration.checkpoint = ""
             migration.status = StatusEnum.FAILED
             migrationRepository.save(migration)
         } finally {
+            progressManager.release(migrationId)
             LOG.debug("=====           Commands Executed          =======")
             LOG.debug("==================================================")
             commandManager.commandLog.forEach { (k: String, v: String) -> LOG.debug("Directory : $k Command : $v") }
             LOG.debug("==================================================")
-            if (applicationProperties.getFlags().getCleanupWorkDirectory()) {
+            if (interrupted) {
+                LOG.info("Not cleaning up working directory")
+                LOG.info("REASON:Migration interrupted")
+            } else if (applicationProperties.getFlags().getCleanupWorkDirectory()) {
                 if (applicationProperties.work.cleanAtTheEnd) ioManager.deleteWorkingRoot(workUnit, false)
             } else {
                 LOG.info("Not cleaning up working directory")
@@ -228,19 +208,230 @@ open class MigrationManager(val cleaner: Cleaner,
                 migration.svnGroup, migration.svnProject,
                 migration.gitlabGroup,
                 migration.status))
+            if (!interrupted) leaseManager.release(migrationId)
         }
         return AsyncResult("THE_END")
     }
 
+    /**
+     * @param exc Migration failure
+     * @return true if failure is due to thread interruption (i.e. application stopping)
+     */
+    private fun isInterruption(exc: Throwable): Boolean {
+        var cause: Throwable? = exc
+        while (cause != null) {
+            if (cause is InterruptedException) return true
+            cause = cause.cause
+        }
+        return Thread.currentThread().isInterrupted
+    }
+
+    /**
+     * Update & save a migration. Steps running concurrently share the migration entity, so that saves are serialized.
+     *
+     * @param migration Migration to save
+     * @param update    Changes to apply before saving
+     */
+    private fun saveMigration(migration: Migration, update: (Migration) -> Unit) {
+        synchronized(migration) {
+            update(migration)
+            migrationRepository.save(migration)
+        }
+    }
+
+    private fun parseCheckpoint(checkpoint: String?): MutableSet<StepEnum> =
+        if (checkpoint.isNullOrBlank()) mutableSetOf()
+        else checkpoint.split(",").map { StepEnum.valueOf(it.trim()) }.toMutableSet()
+
+    private fun formatCheckpoint(completed: Set<StepEnum>) = completed.joinToString(",") { it.name }
+
+    /**
+     * Build migration steps graph.
+     * Steps working on the git repository are chained, only GitLab project creation is independent from svn clone & cleaning.
+     *
+     * @param workUnit Current work unit
+     * @return steps graph
+     */
+    open fun buildPipeline(workUnit: WorkUnit): StepGraph {
+        val migration = workUnit.migration
+        val commandManager = workUnit.commandManager
+        return StepGraph(listOf(
+            // 1. Create project on gitlab : OK
+            StepNode(StepEnum.GITLAB_PROJECT_CREATION, setOf(), setOf(PROJECT_ID),
+                { context -> context[PROJECT_ID] = migration.gitlabProjectId }) { context ->
+                val projectId = gitlabManager.createGitlabProject(migration)
+                saveMigration(migration) { it.gitlabProjectId(projectId) }
+                context[PROJECT_ID] = projectId
+            },
+            // 2. Analyze svn content, ignoring unwanted folders before fetching them
+            StepNode(StepEnum.SVN_ANALYSIS, setOf(), setOf(ANALYZED),
+                { context -> context[ANALYZED] = true }) { context ->
+                svnAnalyzer.analyze(workUnit)
+                context[ANALYZED] = true
+            },
+            StepNode(StepEnum.SVN_CHECKOUT, setOf(ANALYZED), setOf(WORKSPACE),
+                { context ->
+                    // Work in the cloned repository as it is
+                    commandManager.isReexecutable = true
+                    context[WORKSPACE] = initDirectory(workUnit)
+                }) { context ->
+                // If reexecution we initialise from clean copy.
+                ioManager.initRootDirectoryFromCopy(workUnit)
+
+                // 2. Checkout empty repository : OK
+                val svn: String = initDirectory(workUnit)
+
+                // 2.1 Set some git config
+                gitManager.setGitConfig(commandManager, workUnit)
+
+                // 2.2. SVN checkout, from first revision of the project
+                val scan = if (commandManager.isFirstAttemptMigration) svnAnalyzer.scanRevisions(workUnit) else null
+                scheduler.withSlot(CapacityClass.SVN_CLONE) {
+                    if (commandManager.isFirstAttemptMigration) svnMirror.stage(workUnit)
+                    progressManager.start(migration, ProgressPhase.CLONE, scan?.head)
+                    try {
+                        gitManager.gitSvnClone(workUnit)
+                    } finally {
+                        progressManager.end(migration)
+                        // Also after a failed or resumed clone, so that svn-remote never points to a mirror
+                        svnMirror.release(workUnit)
+                    }
+                }
+                checkGitConfig(workUnit)
+                ioManager.copyRootDirectory(workUnit)
+                // Migration is now reexecutable in cases where there is a failure
+                commandManager.isReexecutable = true
+
+                // Apply dynamic local configuration
+                applicationProperties.getGitlab().getDynamicLocalConfig().stream()
+                    .map { s: String -> s.split(",").toTypedArray() }
+                    .collect(toMap({ a: Array<String> -> a[0].trim { it <= ' ' } }, { a: Array<String> -> a[1].trim { it <= ' ' } }))
+                    .forEach { (key: String?, value: String?) ->
+                        try {
+                            gitManager.addDynamicLocalConfig(workUnit, key, value)
+                        } catch (e: IOException) {
+                            LOG.error(e.message, e)
+                        } catch (e: InterruptedException) {
+                            Thread.currentThread().interrupt()
+                            throw RuntimeException(e)
+                        }
+                    }
+                context[WORKSPACE] = svn
+            },
+            // 2.3. Remove phantom elements
+            StepNode(StepEnum.BRANCH_CLEAN, setOf(WORKSPACE), setOf(REFS_CLEANED),
+                { context -> context[REFS_CLEANED] = true }) { context ->
+                cleaner.cleanElementsOn(workUnit, false)
+                cleaner.cleanElementsOn(workUnit, true)
+                context[REFS_CLEANED] = true
+            },
+            // 3. Clean files
+            // 3.1 List files to remove. uploads binaries to Artifactory (or GitLab registry of the project).
+            StepNode(StepEnum.LIST_REMOVED_FILES, setOf(REFS_CLEANED, PROJECT_ID), setOf(CLEANED_FILES),
+                { context -> context[CLEANED_FILES] = ioManager.loadCleanedFiles(workUnit) }) { context ->
+                // Files listed by an interrupted execution are listed again
+                if (commandManager.isResumed) cleaner.clearRemovedFiles(workUnit)
+                val cleanedFilesManager = cleaner.listCleanedFiles(workUnit)
+                LOG.info(cleanedFilesManager.toString())
+                ioManager.saveCleanedFiles(workUnit, cleanedFilesManager!!)
+                context[CLEANED_FILES] = cleanedFilesManager
+            },
+            // 3.2 Remove
+            StepNode(StepEnum.GIT_CLEANING, setOf(CLEANED_FILES), setOf(HISTORY_CLEANED),
+                { context -> context[HISTORY_CLEANED] = true }) { context ->
+                // Only launch clean steps if there is a file to clean in trunk, branches or tags.
+                if (context[CLEANED_FILES].existsFileInSvnLayout(true, SvnLayout.ALL) && migration.cleaning) {
+                    scheduler.withSlot(CapacityClass.BFG_REWRITE) {
+                        if (cleaner.cleanHistory(workUnit)) { gitClean(commandManager, workUnit) }
+                    }
+                }
+                context[HISTORY_CLEANED] = true
+            },
+            StepNode(StepEnum.GIT_PUSH, setOf(WORKSPACE, PROJECT_ID, CLEANED_FILES, HISTORY_CLEANED), setOf(PUSHED),
+                { context -> context[PUSHED] = true }) { context ->
+                // If no files at this stage, no migration is executed i.e. no push to gitlab.
+                if (context[CLEANED_FILES].existsFileInSvnLayout(true, SvnLayout.ALL)) {
+                    pushAll(workUnit, context[WORKSPACE])
+                } else {
+                    val history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "${migration.trunk}, Tags, Branches")
+                    historyMgr.endStep(history, StatusEnum.IGNORED, "Skipping Migration : No Files Available. No Push to Gitlab")
+                }
+                context[PUSHED] = true
+            },
+            // Generate summary
+            StepNode(StepEnum.README_MD, setOf(PUSHED, CLEANED_FILES), setOf()) { context ->
+                if (context[CLEANED_FILES].existsFileInSvnLayout(true, SvnLayout.ALL)) {
+                    summaryManager.prepareAndGenerate(commandManager, context[CLEANED_FILES], workUnit, migration)
+                }
+            }
+        )) { node, duration, failure ->
+            historyMgr.recordStep(migration, StepEnum.PIPELINE_STEP,
+                if (failure == null) StatusEnum.DONE else StatusEnum.FAILED, duration, node.step.name)
+        }
+    }
+
+    /**
+     * Push master, branches & tags to GitLab
+     *
+     * @param workUnit Current work unit
+     * @param svn      Svn name of the migrated element
+     */
+    private fun pushAll(workUnit: WorkUnit, svn: String) {
+        val migration = workUnit.migration
+        scheduler.withSlot(CapacityClass.GITLAB_PUSH) {
+            progressManager.start(migration, ProgressPhase.PUSH)
+            try {
+                pushRefs(workUnit, svn)
+            } finally {
+                progressManager.end(migration)
+            }
+        }
+    }
+
+    /**
+     * Push master, branches & tags
+     *
+     * @param workUnit Current work unit
+     * @param svn      Svn name of the migrated element
+     */
+    private fun pushRefs(workUnit: WorkUnit, svn: String) {
+        val migration = workUnit.migration
+        // 4. Git push master based on SVN trunk
+        if (migration.trunk != null) {
+            gitManager.manageMaster(workUnit.commandManager, workUnit, migration, svn)
+        } else {
+            val history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, migration.trunk)
+            historyMgr.endStep(history, StatusEnum.IGNORED, "Skip ${migration.trunk}")
+        }
+
+        // 6. List branches & tags
+        val remotes: List<String> = gitBackend.remoteBranches(workUnit)
+        // Extract branches
+        if (!isEmpty(migration.branches) && migration.branches == "*") {
+            gitBranchManager.manageBranches(workUnit, remotes)
+        } else {
+            val history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "Branches")
+            historyMgr.endStep(history, StatusEnum.IGNORED, "Skip branches")
+        }
+
+        // Extract tags
+        if (!isEmpty(migration.tags) && migration.tags == "*") {
+            gitTagManager.manageTags(workUnit, remotes)
+        } else {
+            val history = historyMgr.startStep(migration, StepEnum.GIT_PUSH, "Tags")
+            historyMgr.endStep(history, StatusEnum.IGNORED, "Skip tags")
+        }
+    }
+
     @Throws(IOException::class, InterruptedException::class)
     open fun checkGitConfig(workUnit: WorkUnit) {
         val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_SET_CONFIG, "Log Git Config and origin of config.")
         try {
-            execCommand(workUnit.commandManager, workUnit.directory, readConfig("user.name"))
-        } catch (rEx: RuntimeException) {
-            LOG.info("Git user.email and user.name not set, use default values based on gitlab user set in UI")
-            execCommand(workUnit.commandManager, workUnit.directory, setConfig("user.email", "${workUnit.migration.user}@svn2git.fake"))
-            execCommand(workUnit.commandManager, workUnit.directory, setConfig("user.name", workUnit.migration.user))
+            if (gitBackend.readConfig(workUnit, "user.name") == null) {
+                LOG.info("Git user.email and user.name not set, use default values based on gitlab user set in UI")
+                gitBackend.setConfig(workUnit, "user.email", "${workUnit.migration.user}@svn2git.fake")
+                gitBackend.setConfig(workUnit, "user.name", workUnit.migration.user)
+            }
         } finally {
             historyMgr.endStep(history, StatusEnum.DONE)
         }
@@ -0,0 +1,133 @@
+package fr.yodamad.svn2git.service
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.CapacityClass
+import fr.yodamad.svn2git.data.CapacityClass.*
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
+import org.springframework.stereotype.Service
+import java.util.*
+import java.util.concurrent.Semaphore
+
+/**
+ * Admit migrations and their expensive phases according to available slots.
+ * Each capacity class has its own limit, tunable at runtime, so that cheap phases
+ * of a migration can overlap with expensive ones of another.
+ */
+@Service
+open class MigrationScheduler(val applicationProperties: ApplicationProperties,
+                              @Qualifier("migrationExecutor") private val migrationExecutor: ThreadPoolTaskExecutor,
+                              @Qualifier("publishExecutor") private val publishExecutor: ThreadPoolTaskExecutor) {
+
+    private val LOG = LoggerFactory.getLogger(MigrationScheduler::class.java)
+
+    private val slots: MutableMap<CapacityClass, ResizableSemaphore> = EnumMap(CapacityClass::class.java)
+
+    init {
+        slots[SVN_CLONE] = ResizableSemaphore(applicationProperties.scheduler.svnClone)
+        slots[BFG_REWRITE] = ResizableSemaphore(applicationProperties.scheduler.bfgRewrite)
+        slots[GITLAB_PUSH] = ResizableSemaphore(applicationProperties.scheduler.gitlabPush)
+        slots[ARTIFACT_UPLOAD] = ResizableSemaphore(applicationProperties.scheduler.artifactUpload)
+    }
+
+    /**
+     * Execute an operation once a slot is available for the given capacity class
+     *
+     * @param capacity Capacity class of the operation
+     * @param block    Operation to execute
+     * @return operation result
+     */
+    open fun <T> withSlot(capacity: CapacityClass, block: () -> T): T {
+        val semaphore = slots[capacity] ?: return block()
+        if (!semaphore.tryAcquire()) {
+            LOG.info("Waiting for a $capacity slot (${semaphore.limit} max)")
+            semaphore.acquire()
+        }
+        try {
+            return block()
+        } finally {
+            semaphore.release()
+        }
+    }
+
+    /**
+     * @return Number of migrations that can still be admitted right now
+     */
+    open fun availableMigrationSlots(): Int =
+        Math.max(0, migrationExecutor.corePoolSize - migrationExecutor.activeCount - migrationExecutor.threadPoolExecutor.queue.size)
+
+    /**
+     * @return current limit & usage for each capacity class
+     */
+    open fun status(): List<SlotStatus> {
+        val status = mutableListOf(SlotStatus(MIGRATION, migrationExecutor.corePoolSize,
+            migrationExecutor.activeCount, migrationExecutor.threadPoolExecutor.queue.size))
+        slots.forEach { (capacity, semaphore) ->
+            status.add(SlotStatus(capacity, semaphore.limit, semaphore.limit - semaphore.availablePermits(), semaphore.queueLength))
+        }
+        return status
+    }
+
+    /**
+     * Change limit of a capacity class.
+     * Running operations are never interrupted, a lower limit applies to next admissions.
+     *
+     * @param capacity Capacity class to update
+     * @param limit    New limit
+     */
+    @Synchronized
+    open fun updateLimit(capacity: CapacityClass, limit: Int) {
+        if (limit < 1) throw IllegalArgumentException("Limit for $capacity must be at least 1")
+        LOG.info("Set $capacity limit to $limit")
+        when (capacity) {
+            MIGRATION -> {
+                resize(migrationExecutor, limit)
+                applicationProperties.scheduler.migrations = limit
+            }
+            SVN_CLONE -> applicationProperties.scheduler.svnClone = limit
+            BFG_REWRITE -> applicationProperties.scheduler.bfgRewrite = limit
+            GITLAB_PUSH -> {
+                // Each push slot publishes with its own workers
+                resize(publishExecutor, Math.max(1, applicationProperties.publish.parallelWorkers) * limit)
+                applicationProperties.scheduler.gitlabPush = limit
+            }
+            ARTIFACT_UPLOAD -> applicationProperties.scheduler.artifactUpload = limit
+        }
+        slots[capacity]?.resize(limit)
+    }
+
+    /**
+     * Resize a pool, core size never exceeding max size
+     */
+    private fun resize(executor: ThreadPoolTaskExecutor, size: Int) {
+        if (size > executor.maxPoolSize) {
+            executor.maxPoolSize = size
+            executor.corePoolSize = size
+        } else {
+            executor.corePoolSize = size
+            executor.maxPoolSize = size
+        }
+    }
+
+    /**
+     * Semaphore whose number of permits can be changed while in use
+     */
+    private class ResizableSemaphore(limit: Int) : Semaphore(limit, true) {
+        @Volatile
+        var limit = limit
+            private set
+
+        @Synchronized
+        fun resize(newLimit: Int) {
+            val delta = newLimit - limit
+            limit = newLimit
+            if (delta > 0) release(delta) else if (delta < 0) reducePermits(-delta)
+        }
+    }
+}
+
+/**
+ * Snapshot of a capacity class
+ */
+data class SlotStatus(val capacity: CapacityClass, val limit: Int, val inUse: Int, val waiting: Int)
@@ -0,0 +1,88 @@
+package fr.yodamad.svn2git.service
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.repository.MigrationRepository
+import org.slf4j.LoggerFactory
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Service
+import java.io.File
+
+/**
+ * Worker mode : each node polls the shared database, claims waiting migrations through a lease
+ * and keeps it alive with heartbeats while running them locally.
+ * Migrations whose node stopped sending heartbeats are put back in the queue.
+ */
+@Service
+open class MigrationWorker(val applicationProperties: ApplicationProperties,
+                           val migrationRepository: MigrationRepository,
+                           val migrationManager: MigrationManager,
+                           val leaseManager: MigrationLeaseManager,
+                           val scheduler: MigrationScheduler) {
+
+    private val LOG = LoggerFactory.getLogger(MigrationWorker::class.java)
+
+    private val ACTIVE = listOf(StatusEnum.WAITING, StatusEnum.RUNNING)
+
+    /**
+     * Poll database for migrations to run
+     */
+    @Scheduled(fixedDelayString = "\${application.worker.pollMilliSeconds:10000}")
+    open fun poll() {
+        if (!applicationProperties.worker.enabled) return
+        try {
+            leaseManager.heartbeat()
+            releaseFinished()
+            requeueExpired()
+            claimWaiting()
+        } catch (exc: Exception) {
+            LOG.error("Worker ${leaseManager.nodeId} failed to poll migrations", exc)
+        }
+    }
+
+    /**
+     * Release leases of migrations that are over
+     */
+    private fun releaseFinished() {
+        leaseManager.owned()
+            .filter { lease -> migrationRepository.findById(lease.migrationId).map { it.status !in ACTIVE }.orElse(true) }
+            .forEach { leaseManager.release(it.migrationId) }
+    }
+
+    /**
+     * Put back in queue migrations whose owner is gone
+     */
+    private fun requeueExpired() {
+        leaseManager.expired().forEach { lease ->
+            if (leaseManager.dropExpired(lease.migrationId)) {
+                migrationRepository.findById(lease.migrationId)
+                    .filter { it.status == StatusEnum.RUNNING }
+                    .ifPresent { mig ->
+                        LOG.warn("Migration ${mig.id} owned by ${lease.owner} has no heartbeat since ${lease.heartbeat}, requeue it")
+                        // Keep reexecution from copy only if workspace is reachable from this node
+                        if (!mig.workingDirectory.isNullOrBlank() && !File("${mig.workingDirectory}_copy").exists()) {
+                            mig.workingDirectory = ""
+                        }
+                        mig.status = StatusEnum.WAITING
+                        migrationRepository.save(mig)
+                    }
+            }
+        }
+    }
+
+    /**
+     * Claim waiting migrations, oldest first, according to free slots
+     */
+    private fun claimWaiting() {
+        var slots = scheduler.availableMigrationSlots()
+        if (slots == 0) return
+        for (mig in migrationRepository.findAllByStatusOrderByDateDesc(StatusEnum.WAITING).sortedBy { it.id }) {
+            if (slots == 0) break
+            if (leaseManager.claim(mig.id)) {
+                LOG.info("Migration ${mig.id} claimed by ${leaseManager.nodeId}")
+                migrationManager.startMigration(mig.id, false)
+                slots--
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package fr.yodamad.svn2git.service
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.ProgressPhase
+import fr.yodamad.svn2git.data.ProgressSnapshot
+import fr.yodamad.svn2git.data.RateWindow
+import fr.yodamad.svn2git.data.SampleRing
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.MigrationHistory
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.parsePushWrittenBytes
+import fr.yodamad.svn2git.functions.parseSvnFetchedRevision
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+import java.time.Instant
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Live progress of running migrations, parsed from output of git svn clone & fetch and git push.
+ * Progress of each migration is available while it runs, and sampled periodically in its history
+ * (one PROGRESS step per phase, keeping its most recent samples) so that it is also visible from other nodes.
+ */
+@Service
+open class ProgressManager(private val historyMgr: HistoryManager,
+                           private val applicationProperties: ApplicationProperties) {
+
+    private val LOG = LoggerFactory.getLogger(ProgressManager::class.java)
+    private val progresses: MutableMap<Long, Progress> = ConcurrentHashMap()
+
+    /**
+     * Start a phase of a migration, ending previous one
+     *
+     * @param migration      Migration
+     * @param phase          Phase started
+     * @param targetRevision Last SVN revision to fetch, if known
+     */
+    open fun start(migration: Migration, phase: ProgressPhase, targetRevision: Long? = null) {
+        end(migration)
+        val progress = progressOf(migration)
+        synchronized(progress) {
+            progress.phase = phase
+            progress.samples.clear()
+            if (targetRevision != null) progress.targetRevision = targetRevision
+            progress.lastSample = System.currentTimeMillis()
+            progress.history = historyMgr.startStep(migration, StepEnum.PROGRESS, phase.name)
+        }
+    }
+
+    /**
+     * End current phase of a migration, recording its last sample
+     *
+     * @param migration Migration
+     */
+    open fun end(migration: Migration) {
+        val progress = progresses[migration.id] ?: return
+        synchronized(progress) {
+            val history = progress.history ?: return
+            progress.samples.add(sample(progress))
+            historyMgr.endStep(history, StatusEnum.DONE, progress.samples.toString())
+            progress.history = null
+            progress.phase = null
+        }
+    }
+
+    /**
+     * Forget a migration once it's over
+     *
+     * @param migrationId Migration
+     */
+    open fun release(migrationId: Long) {
+        progresses.remove(migrationId)
+    }
+
+    /**
+     * Listener of git svn clone & fetch output of a migration
+     *
+     * @return consumer of output lines, returning true for lines reporting progress
+     */
+    open fun cloneListener(migration: Migration): (String) -> Boolean {
+        val progress = progressOf(migration)
+        return { line ->
+            val revision = parseSvnFetchedRevision(line)
+            if (revision != null) {
+                progress.currentRevision.set(revision)
+                progress.fetched.incrementAndGet()
+                progress.revisions.add(System.currentTimeMillis(), revision)
+                updated(progress)
+            }
+            revision != null
+        }
+    }
+
+    /**
+     * Listener of a git push output of a migration. Each push needs its own listener.
+     *
+     * @return consumer of output lines, returning true for lines reporting progress
+     */
+    open fun pushListener(migration: Migration): (String) -> Boolean {
+        val progress = progressOf(migration)
+        var written = 0L
+        return { line ->
+            val bytes = parsePushWrittenBytes(line)
+            if (bytes != null) {
+                // Several writes are reported by a push when it sends several packs
+                val sent = if (bytes >= written) bytes - written else bytes
+                written = bytes
+                progress.bytes.add(System.currentTimeMillis(), progress.bytesPushed.addAndGet(sent))
+                updated(progress)
+            }
+            bytes != null
+        }
+    }
+
+    /**
+     * @param migrationId Migration
+     * @return progress of the migration, null if it's not running on this node
+     */
+    open fun snapshot(migrationId: Long): ProgressSnapshot? = progresses[migrationId]?.let { snapshotOf(it) }
+
+    private fun progressOf(migration: Migration) = progresses.computeIfAbsent(migration.id) {
+        Progress(it, applicationProperties.progress.maxSamples)
+    }
+
+    private fun snapshotOf(progress: Progress): ProgressSnapshot {
+        val current = progress.currentRevision.get().takeIf { it >= 0 }
+        val target = progress.targetRevision
+        val rate = progress.revisions.perSecond()
+        val eta = if (current != null && target != null && rate > 0) ((target - current) / rate).toLong().coerceAtLeast(0) else null
+        return ProgressSnapshot(progress.migrationId, progress.phase, current, target, progress.fetched.get(), rate, eta,
+            progress.bytesPushed.get(), progress.bytes.perSecond(), progress.updatedAt)
+    }
+
+    /**
+     * Record a sample in history when sampling period is over
+     */
+    private fun updated(progress: Progress) {
+        progress.updatedAt = Instant.now()
+        val period = TimeUnit.SECONDS.toMillis(applicationProperties.progress.sampleSeconds.toLong())
+        if (period <= 0 || System.currentTimeMillis() - progress.lastSample < period) return
+        synchronized(progress) {
+            val history = progress.history ?: return
+            if (System.currentTimeMillis() - progress.lastSample < period) return
+            progress.lastSample = System.currentTimeMillis()
+            progress.samples.add(sample(progress))
+            try {
+                historyMgr.updateStep(history, progress.samples.toString())
+            } catch (exc: RuntimeException) {
+                // Progress must not break the command reporting it
+                LOG.warn("Cannot record progress of migration ${progress.migrationId} : ${exc.message}")
+            }
+        }
+    }
+
+    private fun sample(progress: Progress) = "${TIME.format(Instant.now())} ${snapshotOf(progress)}"
+
+    /**
+     * Mutable progress of a migration
+     */
+    private class Progress(val migrationId: Long, maxSamples: Int) {
+        @Volatile var phase: ProgressPhase? = null
+        @Volatile var targetRevision: Long? = null
+        @Volatile var updatedAt: Instant? = null
+        val currentRevision = AtomicLong(-1)
+        val fetched = AtomicLong()
+        val revisions = RateWindow()
+        val bytesPushed = AtomicLong()
+        val bytes = RateWindow()
+        // Guarded by progress
+        var history: MigrationHistory? = null
+        @Volatile var lastSample = 0L
+        val samples = SampleRing(maxSamples)
+    }
+
+    private companion object {
+        val TIME: DateTimeFormatter = DateTimeFormatter.ISO_INSTANT
+    }
+}
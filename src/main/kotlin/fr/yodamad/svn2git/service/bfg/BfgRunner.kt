@@ -0,0 +1,131 @@
+package fr.yodamad.svn2git.service.bfg
+
+import com.madgag.git.bfg.cli.Main
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.io.ProcessEngine
+import fr.yodamad.svn2git.io.Shell.formatDirectory
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+import java.io.File
+import java.util.concurrent.TimeUnit
+import java.util.jar.JarFile
+
+/**
+ * Outcome of a BFG rewrite
+ *
+ * @param exitCode       Exit status, -1 if rewrite timed out
+ * @param report         Last lines of BFG report
+ * @param error          Error output
+ * @param wallTimeMillis Duration of rewrite
+ * @param peakHeapBytes  Peak heap used, null if unknown
+ * @param timedOut       Whether rewrite has been killed after its timeout
+ */
+data class BfgReport(val exitCode: Int,
+                     val report: List<String>,
+                     val error: String,
+                     val wallTimeMillis: Long,
+                     val peakHeapBytes: Long?,
+                     val timedOut: Boolean = false) {
+    val isSuccess: Boolean get() = exitCode == 0 && !timedOut
+
+    override fun toString(): String {
+        val heap = if (peakHeapBytes != null) ", peak heap ${peakHeapBytes / MB} MB" else ""
+        val status = if (timedOut) "Timed out after" else "Took"
+        return (listOf("$status ${wallTimeMillis / 1000} s$heap") + report).joinToString(System.lineSeparator())
+    }
+
+    private companion object {
+        const val MB = 1024 * 1024
+    }
+}
+
+/**
+ * Run BFG rewrites. By default, each rewrite runs in its own JVM with a bounded heap, so that it cannot exhaust
+ * the server heap, and is killed after application.bfg.timeoutMinutes.
+ * Concurrent rewrites are bounded by application.scheduler.bfgRewrite.
+ */
+@Service
+open class BfgRunner(private val applicationProperties: ApplicationProperties) {
+
+    private val LOG = LoggerFactory.getLogger(BfgRunner::class.java)
+
+    /**
+     * Rewrite history of the repository of a migration
+     *
+     * @param workUnit Current migration information
+     * @param args     BFG arguments, without repository
+     * @return report of the rewrite
+     */
+    @Throws(InterruptedException::class, java.io.IOException::class)
+    open fun run(workUnit: WorkUnit, args: List<String>): BfgReport {
+        val directory = formatDirectory(workUnit.directory)
+        val traced = "bfg ${args.joinToString(" ")}"
+        if (!applicationProperties.bfg.fork) {
+            val start = System.currentTimeMillis()
+            Main.main((args + directory).toTypedArray())
+            workUnit.commandManager.addSuccessfulCommand(workUnit.directory, traced)
+            return BfgReport(0, emptyList(), "", System.currentTimeMillis() - start, null)
+        }
+
+        val command = command(directory, args)
+        LOG.debug("Exec BFG : ${command.joinToString(" ")}")
+        val output = ProcessEngine.run(command, File(directory), workUnit.commandManager.environment, timeoutMillis(workUnit),
+            REPORT_LINES, REPORT_LINES, { s -> LOG.debug(s) }, { s -> LOG.warn(s) })
+
+        val peakHeap = output.stdout.lastOrNull { it.startsWith(BfgWorker.PEAK_HEAP) }?.removePrefix(BfgWorker.PEAK_HEAP)?.toLongOrNull()
+        val report = BfgReport(output.exitCode, output.stdout.filter { !it.startsWith(BfgWorker.PEAK_HEAP) },
+            output.stderr, output.wallTimeMillis, peakHeap, output.timedOut)
+        if (report.isSuccess) workUnit.commandManager.addSuccessfulCommand(workUnit.directory, traced)
+        else workUnit.commandManager.addFailedCommand(workUnit.directory, traced, if (report.timedOut) report.toString() else report.error)
+        LOG.info("BFG rewrite of ${workUnit.directory} : exit ${report.exitCode} in ${report.wallTimeMillis} ms, peak heap $peakHeap bytes")
+        return report
+    }
+
+    private fun timeoutMillis(workUnit: WorkUnit) =
+        if (applicationProperties.bfg.timeoutMinutes > 0) TimeUnit.MINUTES.toMillis(applicationProperties.bfg.timeoutMinutes)
+        else workUnit.commandManager.commandTimeoutMillis
+
+    /**
+     * Command of a forked rewrite
+     *
+     * @param directory Repository to rewrite
+     * @param args      BFG arguments, without repository
+     */
+    open fun command(directory: String, args: List<String>): List<String> = javaCommand() + args + directory
+
+    /**
+     * Command starting a JVM running [BfgWorker], from the classpath of the server
+     */
+    private fun javaCommand(): List<String> {
+        val java = File(File(System.getProperty("java.home"), "bin"), "java").path
+        val options = listOf("-Xmx${applicationProperties.bfg.maxHeap}") +
+            (applicationProperties.bfg.jvmOptions ?: "").split(" ").filter { it.isNotBlank() }
+        return listOf(java) + options + mainClass()
+    }
+
+    /**
+     * Main class of forked JVM. Libraries of an executable jar are nested, so it is started through Spring Boot launcher.
+     */
+    private fun mainClass(): List<String> {
+        val classPath = System.getProperty("java.class.path")
+        val archive = classPath.split(File.pathSeparator).singleOrNull()?.let { File(it) }
+        return if (archive != null && archive.isFile && isExecutableJar(archive)) {
+            listOf("-cp", archive.path, "-Dloader.main=${BfgWorker::class.java.name}", BOOT_LAUNCHER)
+        } else {
+            listOf("-cp", classPath, BfgWorker::class.java.name)
+        }
+    }
+
+    private fun isExecutableJar(archive: File) = try {
+        JarFile(archive).use { it.manifest?.mainAttributes?.getValue("Main-Class")?.startsWith(BOOT_LOADER) == true }
+    } catch (ioEx: java.io.IOException) {
+        false
+    }
+
+    private companion object {
+        const val REPORT_LINES = 200
+        const val BOOT_LOADER = "org.springframework.boot.loader."
+        const val BOOT_LAUNCHER = "${BOOT_LOADER}PropertiesLauncher"
+    }
+}
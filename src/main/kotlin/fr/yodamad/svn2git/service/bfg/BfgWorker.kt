@@ -0,0 +1,24 @@
+package fr.yodamad.svn2git.service.bfg
+
+import com.madgag.git.bfg.cli.Main
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+
+/**
+ * Entry point of forked BFG JVMs : run BFG, then report peak heap used on exit
+ */
+object BfgWorker {
+
+    /** Prefix of the line reporting peak heap, in bytes */
+    const val PEAK_HEAP = "svn2git-bfg-peak-heap="
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        Runtime.getRuntime().addShutdownHook(Thread { println("$PEAK_HEAP${peakHeap()}") })
+        Main.main(args)
+    }
+
+    private fun peakHeap() = ManagementFactory.getMemoryPoolMXBeans()
+        .filter { it.type == MemoryType.HEAP }
+        .sumOf { it.peakUsage?.used ?: 0L }
+}
@@ -1,9 +1,8 @@
 package fr.yodamad.svn2git.service.client
 
 import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.service.client.StreamingUploadClient.Companion.basicAuth
 import org.apache.commons.lang3.StringUtils
-import org.jfrog.artifactory.client.Artifactory
-import org.jfrog.artifactory.client.ArtifactoryClientBuilder
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Component
 import java.io.File
@@ -12,37 +11,50 @@ import java.io.File
  * Artifactory administration tool to interact with the tool
  */
 @Component
-open class ArtifactoryAdmin(applicationProperties: ApplicationProperties) {
-    private var artifactory: Artifactory? = null
+open class ArtifactoryAdmin(applicationProperties: ApplicationProperties,
+                            private val rateLimiter: RateLimiter,
+                            private val uploadClient: StreamingUploadClient) {
+    private val baseUrl: String
+    private val authorization: Pair<String, String>
     private val defaultRepository: String
     private val groupIdPrefix: String
     private val uploadPauseMilliSeconds: Long
+    private val endpoint: String
 
     /**
-     * Upload a binary to artifactory
+     * Path of a binary in artifactory
+     */
+    open fun artifactPath(fileName: String, groupId: String?, artifactId: String?, version: String?) = "$groupId/$artifactId/$version/$fileName"
+
+    /**
+     * Upload a binary to artifactory. Binary is first deployed by checksum, so that its content is not sent
+     * if artifactory already stores it (identical file, upload completed by a previous attempt).
      * @param artifact Binary to upload
      * @param groupId groupId to add to default groupId
      * @param artifactId Artifact name
      * @param version Artifact version
+     * @param sha1 SHA-1 of the binary
      *
-     * @return artifactPath used to upload the artifact
+     * @return result of the transfer
      */
-    open fun uploadArtifact(artifact: File, groupId: String?, artifactId: String?, version: String?): String {
-        LOG.info("Upload file ${artifact.name} to artifactory")
-        val artifactPath = "$groupId/$artifactId/$version/${artifact.name}"
-        artifactory!!.repository(defaultRepository).upload(artifactPath, artifact).doUpload()
+    open fun uploadArtifact(artifact: File, groupId: String?, artifactId: String?, version: String?, sha1: String): TransferResult {
+        val url = "$baseUrl/$defaultRepository/${artifactPath(artifact.name, groupId, artifactId, version)}"
+        val headers = mapOf(authorization, "X-Checksum-Sha1" to sha1)
 
         // To avoid overloading Artifactory
-        if (uploadPauseMilliSeconds > 0) {
-            try {
-                LOG.info("Waiting uploadPauseMilliSeconds:$uploadPauseMilliSeconds")
-                Thread.sleep(uploadPauseMilliSeconds)
-            } catch (e: InterruptedException) {
-                Thread.currentThread().interrupt()
-                throw RuntimeException(e)
-            }
+        val deployed = rateLimiter.call(endpoint, uploadPauseMilliSeconds, false, { r: TransferResult -> RateLimiter.isThrottled(r.status) }) {
+            uploadClient.put(url, headers + ("X-Checksum-Deploy" to "true"))
+        }
+        if (deployed.isSuccess) {
+            LOG.info("Deployed file ${artifact.name} to artifactory by checksum")
+            return deployed
+        }
+
+        // Checksum unknown by artifactory : send content
+        LOG.info("Upload file ${artifact.name} to artifactory")
+        return rateLimiter.call(endpoint, uploadPauseMilliSeconds, false, { r: TransferResult -> RateLimiter.isThrottled(r.status) }) {
+            uploadClient.put(url, artifact, headers)
         }
-        return artifactPath
     }
 
     companion object {
@@ -50,21 +62,15 @@ open class ArtifactoryAdmin(applicationProperties: ApplicationProperties) {
     }
 
     init {
-        artifactory = if (!StringUtils.isEmpty(applicationProperties.artifactory.password)) {
-            ArtifactoryClientBuilder.create()
-                .setUrl(applicationProperties.artifactory.url)
-                .setUsername(applicationProperties.artifactory.user)
-                .setPassword(applicationProperties.artifactory.password)
-                .build()
+        baseUrl = applicationProperties.artifactory.url.trimEnd('/')
+        authorization = if (!StringUtils.isEmpty(applicationProperties.artifactory.password)) {
+            basicAuth(applicationProperties.artifactory.user, applicationProperties.artifactory.password)
         } else {
-            ArtifactoryClientBuilder.create()
-                .setUrl(applicationProperties.artifactory.url)
-                .setUsername(applicationProperties.artifactory.user)
-                .setAccessToken(applicationProperties.artifactory.accessToken)
-                .build()
+            "Authorization" to "Bearer ${applicationProperties.artifactory.accessToken}"
         }
         defaultRepository = applicationProperties.artifactory.repository
         groupIdPrefix = applicationProperties.artifactory.groupIdPrefix
         uploadPauseMilliSeconds = applicationProperties.artifactory.uploadPauseMilliSeconds
+        endpoint = RateLimiter.endpointOf(applicationProperties.artifactory.url)
     }
 }
@@ -0,0 +1,178 @@
+package fr.yodamad.svn2git.service.client
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import org.gitlab4j.api.GitLabApiException
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Component
+import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Rate limiter shared by all migrations, with a token bucket for each server.
+ * Rate of a server is slowly increased while it answers well, and reduced on throttling (429, 5xx) or high latency.
+ */
+@Component
+open class RateLimiter(val applicationProperties: ApplicationProperties) {
+
+    private val LOG = LoggerFactory.getLogger(RateLimiter::class.java)
+
+    private val buckets = ConcurrentHashMap<String, AdaptiveBucket>()
+
+    /**
+     * Execute a request on a server once allowed
+     *
+     * @param endpoint          Server targeted, see [endpointOf]
+     * @param pauseMilliSeconds Fixed pause after request, only used when rate limiting is disabled
+     * @param trackLatency      Whether latency reflects load of server, false when it mostly depends on size of data sent
+     * @param throttledBy       Check if a response means server is throttling requests
+     * @param request           Request to execute
+     */
+    open fun <T> call(endpoint: String, pauseMilliSeconds: Long = 0, trackLatency: Boolean = true,
+                      throttledBy: (T) -> Boolean = { false }, request: () -> T): T {
+        if (!applicationProperties.rateLimit.enabled) {
+            val result = request()
+            pause(pauseMilliSeconds)
+            return result
+        }
+        val bucket = buckets.computeIfAbsent(endpoint) { newBucket() }
+        val wait = bucket.reserve()
+        if (wait > 0) {
+            LOG.debug("Waiting ${TimeUnit.NANOSECONDS.toMillis(wait)} ms before calling $endpoint")
+            TimeUnit.NANOSECONDS.sleep(wait)
+        }
+        val start = System.currentTimeMillis()
+        val result = try {
+            request()
+        } catch (exc: Exception) {
+            if (isThrottled(exc)) throttle(endpoint, bucket)
+            throw exc
+        }
+        if (throttledBy(result)) throttle(endpoint, bucket)
+        else bucket.onResponse(if (trackLatency) System.currentTimeMillis() - start else 0, applicationProperties.rateLimit.latencyThresholdMilliSeconds)
+        return result
+    }
+
+    /**
+     * @return current rate of each server
+     */
+    open fun rates(): Map<String, Double> = buckets.mapValues { it.value.rate }
+
+    private fun throttle(endpoint: String, bucket: AdaptiveBucket) {
+        bucket.onThrottled()
+        LOG.warn("$endpoint is throttling requests, rate reduced to ${"%.2f".format(bucket.rate)}/s")
+    }
+
+    private fun newBucket() = with(applicationProperties.rateLimit) {
+        AdaptiveBucket(initialRate, minRate, maxRate, burst)
+    }
+
+    private fun pause(pauseMilliSeconds: Long) {
+        if (pauseMilliSeconds > 0) {
+            try {
+                LOG.info("Waiting $pauseMilliSeconds MilliSeconds")
+                Thread.sleep(pauseMilliSeconds)
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw RuntimeException(e)
+            }
+        }
+    }
+
+    companion object {
+        /** Endpoint of git operations executed locally */
+        const val LOCAL = "local"
+
+        // git reports "The requested URL returned error: 429" or "RPC failed; HTTP 503"
+        private val THROTTLED_MESSAGE = Regex("(error:|HTTP) (429|50[0-4])\\b|Too Many Requests", RegexOption.IGNORE_CASE)
+
+        /**
+         * @param url Url of a server
+         * @return endpoint of the server
+         */
+        @JvmStatic
+        fun endpointOf(url: String?): String = url?.let { runCatching { URI.create(it).authority }.getOrNull() } ?: url ?: LOCAL
+
+        @JvmStatic
+        fun isThrottled(status: Int) = status == 429 || status >= 500
+
+        @JvmStatic
+        fun isThrottled(message: String?) = message?.let { THROTTLED_MESSAGE.containsMatchIn(it) } ?: false
+
+        /**
+         * Check if a failure comes from a server throttling requests, either from HTTP status or message of git
+         */
+        @JvmStatic
+        fun isThrottled(exc: Exception): Boolean =
+            if (exc is GitLabApiException && exc.httpStatus > 0) isThrottled(exc.httpStatus)
+            else isThrottled(exc.message)
+    }
+}
+
+/**
+ * Token bucket whose rate follows an additive increase / multiplicative decrease
+ *
+ * @param clock Nanoseconds clock
+ */
+class AdaptiveBucket(initialRate: Double,
+                     private val minRate: Double,
+                     private val maxRate: Double,
+                     private val burst: Int,
+                     private val clock: () -> Long = System::nanoTime) {
+
+    /** Requests per second currently allowed */
+    @Volatile
+    var rate: Double = min(maxRate, max(minRate, initialRate))
+        private set
+    private var tokens = burst.toDouble()
+    private var last = clock()
+
+    /**
+     * Take a token, possibly in advance
+     *
+     * @return nanoseconds to wait before sending the request
+     */
+    @Synchronized
+    fun reserve(): Long {
+        refill()
+        tokens -= 1
+        return if (tokens >= 0) 0 else (-tokens / rate * NANOS).toLong()
+    }
+
+    /**
+     * Adapt rate to a response
+     *
+     * @param latency   Duration of request in milliseconds
+     * @param threshold Latency above which server is considered as loaded
+     */
+    @Synchronized
+    fun onResponse(latency: Long, threshold: Long) {
+        refill()
+        rate = if (latency > threshold) max(minRate, rate * SLOW_FACTOR) else min(maxRate, rate + INCREASE)
+    }
+
+    /**
+     * Server is throttling requests : halve rate and drop tokens available
+     */
+    @Synchronized
+    fun onThrottled() {
+        refill()
+        rate = max(minRate, rate * THROTTLED_FACTOR)
+        tokens = min(tokens, 0.0)
+    }
+
+    private fun refill() {
+        val now = clock()
+        tokens = min(burst.toDouble(), tokens + (now - last) * rate / NANOS)
+        last = now
+    }
+
+    companion object {
+        private const val NANOS = 1_000_000_000.0
+        private const val INCREASE = 0.5
+        private const val SLOW_FACTOR = 0.8
+        private const val THROTTLED_FACTOR = 0.5
+    }
+}
@@ -0,0 +1,107 @@
+package fr.yodamad.svn2git.service.client
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Component
+import java.io.File
+import java.io.FileInputStream
+import java.io.InputStream
+import java.net.HttpURLConnection
+import java.net.URL
+import java.nio.channels.Channels
+import java.util.Base64
+import java.util.concurrent.TimeUnit
+
+/**
+ * Result of a transfer
+ *
+ * @param status         HTTP status of the response
+ * @param bytes          Bytes sent
+ * @param wallTimeMillis Duration of the transfer
+ */
+data class TransferResult(val status: Int, val bytes: Long, val wallTimeMillis: Long) {
+    val isSuccess: Boolean get() = status in 200..299
+    /** Throughput of the transfer */
+    val bytesPerSecond: Long get() = if (wallTimeMillis > 0) bytes * 1000 / wallTimeMillis else bytes
+}
+
+/**
+ * HTTP client uploading files as raw request bodies, streamed from their file channel with a fixed length,
+ * so that whatever their size, files are never held in memory.
+ */
+@Component
+open class StreamingUploadClient(private val applicationProperties: ApplicationProperties) {
+
+    private val LOG = LoggerFactory.getLogger(StreamingUploadClient::class.java)
+
+    /**
+     * Upload a file with a PUT request
+     *
+     * @param url     Destination
+     * @param file    File to send
+     * @param headers Request headers (authentication, checksums)
+     */
+    open fun put(url: String, file: File, headers: Map<String, String> = emptyMap()): TransferResult {
+        val length = file.length()
+        return send(url, headers, length) { connection ->
+            FileInputStream(file).channel.use { channel ->
+                connection.outputStream.use { out ->
+                    val target = Channels.newChannel(out)
+                    var position = 0L
+                    while (position < length) {
+                        position += channel.transferTo(position, length - position, target)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Send a PUT request without body, such as a deploy by checksum
+     *
+     * @param url     Destination
+     * @param headers Request headers
+     */
+    open fun put(url: String, headers: Map<String, String>): TransferResult = send(url, headers, 0) { }
+
+    private fun send(url: String, headers: Map<String, String>, length: Long, write: (HttpURLConnection) -> Unit): TransferResult {
+        val start = System.currentTimeMillis()
+        val connection = URL(url).openConnection() as HttpURLConnection
+        try {
+            connection.requestMethod = "PUT"
+            connection.doOutput = true
+            connection.connectTimeout = TimeUnit.SECONDS.toMillis(applicationProperties.upload.connectTimeoutSeconds.toLong()).toInt()
+            connection.readTimeout = TimeUnit.SECONDS.toMillis(applicationProperties.upload.readTimeoutSeconds.toLong()).toInt()
+            // Fixed length : body is streamed instead of being buffered to compute its length
+            connection.setFixedLengthStreamingMode(length)
+            connection.setRequestProperty("Content-Type", "application/octet-stream")
+            headers.forEach { (name, value) -> connection.setRequestProperty(name, value) }
+            write(connection)
+
+            val status = connection.responseCode
+            // Read response so that connection can be reused
+            drain(if (status >= 400) connection.errorStream else connection.inputStream)
+            val result = TransferResult(status, length, System.currentTimeMillis() - start)
+            LOG.debug("PUT $url : $status, $length bytes in ${result.wallTimeMillis} ms (${result.bytesPerSecond / 1024} KB/s)")
+            return result
+        } finally {
+            connection.disconnect()
+        }
+    }
+
+    private fun drain(stream: InputStream?) {
+        val buffer = ByteArray(BUFFER_SIZE)
+        stream?.use { while (it.read(buffer) >= 0) Unit }
+    }
+
+    companion object {
+        private const val BUFFER_SIZE = 8192
+
+        /**
+         * Basic authentication header
+         */
+        @JvmStatic
+        fun basicAuth(user: String, password: String) =
+            "Authorization" to "Basic " + Base64.getEncoder().encodeToString("$user:$password".toByteArray())
+    }
+}
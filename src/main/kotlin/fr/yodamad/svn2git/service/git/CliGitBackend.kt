@@ -0,0 +1,65 @@
+package fr.yodamad.svn2git.service.git
+
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.io.Shell.execCommand
+import fr.yodamad.svn2git.io.Shell.execForOutput
+import fr.yodamad.svn2git.service.util.BRANCH
+import fr.yodamad.svn2git.service.util.commitTree
+import fr.yodamad.svn2git.service.util.deleteBranch
+import fr.yodamad.svn2git.service.util.gitCommand
+import fr.yodamad.svn2git.service.util.readConfig
+import fr.yodamad.svn2git.service.util.readOutput
+import fr.yodamad.svn2git.service.util.renameBranch
+import fr.yodamad.svn2git.service.util.revParse
+import fr.yodamad.svn2git.service.util.setConfig
+import fr.yodamad.svn2git.service.util.updateRef
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Service
+
+/**
+ * Git backend forking a git command for each operation
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.git", name = ["backend"], havingValue = "cli")
+open class CliGitBackend : GitBackend {
+
+    override fun remoteBranches(workUnit: WorkUnit): List<String> {
+        val output = execForOutput(workUnit.commandManager, workUnit.directory, gitCommand(BRANCH, "-r"))
+        if (output.exitCode != 0) throw RuntimeException(output.stderr)
+        return output.stdout.map { it.trim() }.filter { it.isNotEmpty() }
+    }
+
+    override fun resolve(workUnit: WorkUnit, revision: String) = readOutput(workUnit, revParse(revision))
+
+    override fun commitTree(workUnit: WorkUnit, tree: String, message: String) = readOutput(workUnit, commitTree(tree, message))
+
+    override fun updateRef(workUnit: WorkUnit, ref: String, commit: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, updateRef(ref, commit))
+    }
+
+    override fun deleteBranch(workUnit: WorkUnit, branch: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, deleteBranch(branch))
+    }
+
+    override fun renameBranch(workUnit: WorkUnit, newName: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, renameBranch(newName))
+    }
+
+    override fun tag(workUnit: WorkUnit, name: String, target: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, gitCommand("tag", "-f", "\"$name\" \"$target\""))
+    }
+
+    override fun readConfig(workUnit: WorkUnit, key: String): String? {
+        // git config exits with 1 when key is not set
+        val output = execForOutput(workUnit.commandManager, workUnit.directory, readConfig(key))
+        return if (output.exitCode == 0) output.stdout.firstOrNull()?.trim() else null
+    }
+
+    override fun setConfig(workUnit: WorkUnit, key: String, value: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, setConfig(key, "\"$value\""))
+    }
+
+    override fun addRemote(workUnit: WorkUnit, name: String, url: String, securedUrl: String) {
+        execCommand(workUnit.commandManager, workUnit.directory, "git remote add $name $url", "git remote add $name $securedUrl")
+    }
+}
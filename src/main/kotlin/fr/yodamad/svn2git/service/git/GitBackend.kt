@@ -0,0 +1,65 @@
+package fr.yodamad.svn2git.service.git
+
+import fr.yodamad.svn2git.data.WorkUnit
+
+/**
+ * Ref, tag, config & remote operations on the repository of a migration.
+ * Implementations fail with a [RuntimeException] holding the error, as git commands do.
+ */
+interface GitBackend {
+
+    /**
+     * List svn branches & tags cloned, as listed by git branch -r (origin/xxx, origin/tags/xxx)
+     */
+    fun remoteBranches(workUnit: WorkUnit): List<String>
+
+    /**
+     * @return hash of the object a revision points to
+     */
+    fun resolve(workUnit: WorkUnit, revision: String): String
+
+    /**
+     * Create a commit without parent from a tree
+     *
+     * @return hash of the commit
+     */
+    fun commitTree(workUnit: WorkUnit, tree: String, message: String): String
+
+    /**
+     * Move (or create) a ref on a commit
+     */
+    fun updateRef(workUnit: WorkUnit, ref: String, commit: String)
+
+    /**
+     * Delete a local branch, even if not merged
+     */
+    fun deleteBranch(workUnit: WorkUnit, branch: String)
+
+    /**
+     * Rename current branch
+     */
+    fun renameBranch(workUnit: WorkUnit, newName: String)
+
+    /**
+     * Create or replace a lightweight tag
+     */
+    fun tag(workUnit: WorkUnit, name: String, target: String)
+
+    /**
+     * @return value of a config key, null if not set
+     */
+    fun readConfig(workUnit: WorkUnit, key: String): String?
+
+    /**
+     * Set a config key in repository config
+     */
+    fun setConfig(workUnit: WorkUnit, key: String, value: String)
+
+    /**
+     * Add a remote, failing if it already exists
+     *
+     * @param url       Url of the remote, with credentials
+     * @param securedUrl Url to trace, without credentials
+     */
+    fun addRemote(workUnit: WorkUnit, name: String, url: String, securedUrl: String)
+}
@@ -0,0 +1,181 @@
+package fr.yodamad.svn2git.service.git
+
+import fr.yodamad.svn2git.data.GitEnvironment
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.io.Shell.formatDirectory
+import org.eclipse.jgit.api.Git
+import org.eclipse.jgit.lib.CommitBuilder
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.PersonIdent
+import org.eclipse.jgit.lib.RefUpdate
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.lib.UserConfig
+import org.eclipse.jgit.storage.file.FileBasedConfig
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder
+import org.eclipse.jgit.util.FS
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Service
+import java.io.File
+
+/**
+ * Open repository of a migration (not a worktree) with JGit
+ *
+ * @param directory Directory of the migration
+ */
+fun openRepository(directory: String): Repository = FileRepositoryBuilder()
+    .setGitDir(File(formatDirectory(directory), Constants.DOT_GIT))
+    .setMustExist(true)
+    .build()
+
+/**
+ * Git backend running operations in process with JGit, avoiding to fork a git command for each ref of large repositories.
+ * Worktrees are not supported by JGit, so operations in a worktree are still run with git command line.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.git", name = ["backend"], havingValue = "jgit", matchIfMissing = true)
+open class JGitBackend : CliGitBackend() {
+
+    override fun remoteBranches(workUnit: WorkUnit): List<String> =
+        inRepository(workUnit, "git branch -r", { super.remoteBranches(workUnit) }) { repo ->
+            repo.refDatabase.getRefsByPrefix(Constants.R_REMOTES)
+                .filter { !it.isSymbolic }
+                .map { it.name.removePrefix(Constants.R_REMOTES) }
+                .sorted()
+        }
+
+    override fun resolve(workUnit: WorkUnit, revision: String): String =
+        inRepository(workUnit, "git rev-parse \"$revision\"", { super.resolve(workUnit, revision) }) { repo ->
+            resolveId(repo, revision).name
+        }
+
+    override fun commitTree(workUnit: WorkUnit, tree: String, message: String): String =
+        inRepository(workUnit, "git commit-tree $tree -m \"$message\"", { super.commitTree(workUnit, tree, message) }) { repo ->
+            val ident = migrationIdent(workUnit, repo)
+            val commit = CommitBuilder()
+            commit.setTreeId(ObjectId.fromString(tree))
+            commit.author = ident
+            commit.committer = ident
+            // git commit-tree -m ends message with a new line
+            commit.message = "$message\n"
+            val inserter = repo.newObjectInserter()
+            try {
+                val id = inserter.insert(commit)
+                inserter.flush()
+                id.name
+            } finally {
+                inserter.close()
+            }
+        }
+
+    override fun updateRef(workUnit: WorkUnit, ref: String, commit: String) {
+        inRepository(workUnit, "git update-ref \"$ref\" $commit", { super.updateRef(workUnit, ref, commit) }) { repo ->
+            forceRef(repo, ref, ObjectId.fromString(commit))
+        }
+    }
+
+    override fun deleteBranch(workUnit: WorkUnit, branch: String) {
+        inRepository(workUnit, "git branch -D \"$branch\"", { super.deleteBranch(workUnit, branch) }) { repo ->
+            val deleted = Git.wrap(repo).branchDelete().setBranchNames(branch).setForce(true).call()
+            if (deleted.isEmpty()) throw RuntimeException("error: branch '$branch' not found.")
+        }
+    }
+
+    override fun renameBranch(workUnit: WorkUnit, newName: String) {
+        inRepository(workUnit, "git branch -m \"$newName\"", { super.renameBranch(workUnit, newName) }) { repo ->
+            // Without old name, current branch is renamed
+            Git.wrap(repo).branchRename().setNewName(newName).call()
+        }
+    }
+
+    override fun tag(workUnit: WorkUnit, name: String, target: String) {
+        inRepository(workUnit, "git tag -f \"$name\" \"$target\"", { super.tag(workUnit, name, target) }) { repo ->
+            forceRef(repo, Constants.R_TAGS + name, resolveId(repo, target))
+        }
+    }
+
+    override fun readConfig(workUnit: WorkUnit, key: String): String? =
+        inRepository(workUnit, "git config $key", { super.readConfig(workUnit, key) }) { repo ->
+            val (section, subsection, name) = configKey(key)
+            repo.config.getString(section, subsection, name)
+        }
+
+    override fun setConfig(workUnit: WorkUnit, key: String, value: String) {
+        inRepository(workUnit, "git config $key \"$value\"", { super.setConfig(workUnit, key, value) }) { repo ->
+            val (section, subsection, name) = configKey(key)
+            val config = repo.config
+            config.setString(section, subsection, name, value)
+            config.save()
+        }
+    }
+
+    override fun addRemote(workUnit: WorkUnit, name: String, url: String, securedUrl: String) {
+        inRepository(workUnit, "git remote add $name $securedUrl", { super.addRemote(workUnit, name, url, securedUrl) }) { repo ->
+            val config = repo.config
+            if (config.getSubsections("remote").contains(name)) throw RuntimeException("error: remote $name already exists.")
+            config.setString("remote", name, "url", url)
+            config.setString("remote", name, "fetch", "+${Constants.R_HEADS}*:${Constants.R_REMOTES}$name/*")
+            config.save()
+        }
+    }
+
+    /**
+     * Run an operation on the repository of the work unit, traced as the equivalent git command
+     *
+     * @param command  Equivalent git command, to trace
+     * @param fallback Operation with git command line, used in worktrees
+     * @param action   Operation with JGit
+     */
+    private fun <T> inRepository(workUnit: WorkUnit, command: String, fallback: () -> T, action: (Repository) -> T): T {
+        if (workUnit.worktree != null) return fallback()
+        try {
+            val repo = openRepository(workUnit.directory)
+            try {
+                val result = action(repo)
+                workUnit.commandManager.addSuccessfulCommand(workUnit.directory, command)
+                return result
+            } finally {
+                repo.close()
+            }
+        } catch (exc: Exception) {
+            workUnit.commandManager.addFailedCommand(workUnit.directory, command, exc.message ?: exc.javaClass.simpleName)
+            throw exc as? RuntimeException ?: RuntimeException(exc.message, exc)
+        }
+    }
+
+    /**
+     * Identity committing for the migration, read as git command line does from repository config
+     * then from global config of the migration environment, not from the one of the user running the application
+     */
+    private fun migrationIdent(workUnit: WorkUnit, repo: Repository): PersonIdent {
+        val global = workUnit.commandManager.environment[GitEnvironment.GIT_CONFIG_GLOBAL]
+            ?.let { FileBasedConfig(File(it), FS.DETECTED).apply { load() } }
+        val config = FileBasedConfig(global, File(repo.directory, Constants.CONFIG), FS.DETECTED)
+        config.load()
+        val user = config.get(UserConfig.KEY)
+        return PersonIdent(user.committerName, user.committerEmail)
+    }
+
+    private fun resolveId(repo: Repository, revision: String): ObjectId =
+        repo.resolve(revision) ?: throw RuntimeException("fatal: ambiguous argument '$revision': unknown revision")
+
+    private fun forceRef(repo: Repository, ref: String, id: ObjectId) {
+        val update = repo.updateRef(ref)
+        update.setNewObjectId(id)
+        update.isForceUpdate = true
+        when (val result = update.update()) {
+            RefUpdate.Result.NEW, RefUpdate.Result.FORCED, RefUpdate.Result.FAST_FORWARD, RefUpdate.Result.NO_CHANGE -> Unit
+            else -> throw RuntimeException("fatal: cannot update ref '$ref': $result")
+        }
+    }
+
+    /**
+     * Split a config key (section.name or section.subsection.name)
+     */
+    private fun configKey(key: String): Triple<String, String?, String> {
+        val section = key.substringBefore('.')
+        val name = key.substringAfterLast('.')
+        val subsection = key.substringAfter('.', "").substringBeforeLast('.', "").ifEmpty { null }
+        return Triple(section, subsection, name)
+    }
+}
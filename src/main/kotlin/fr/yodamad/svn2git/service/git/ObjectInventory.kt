@@ -0,0 +1,184 @@
+package fr.yodamad.svn2git.service.git
+
+import fr.yodamad.svn2git.data.CleaningRules
+import fr.yodamad.svn2git.domain.enumeration.Reason
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.FileMode
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectReader
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.revwalk.RevWalk
+import org.eclipse.jgit.treewalk.CanonicalTreeParser
+import java.io.Closeable
+import java.io.OutputStream
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveTask
+
+/**
+ * File matching cleaning rules
+ *
+ * @param id   Blob of the file
+ * @param path Path of the file in its tree
+ * @param size Size of the blob
+ */
+data class RemovedBlob(val id: ObjectId, val path: String, val size: Long, val reason: Reason)
+
+/**
+ * Content of a tree, recursively
+ *
+ * @param fileCount Number of files
+ * @param fileSize  Total size of files
+ * @param removed   Files matching cleaning rules
+ */
+class TreeStats(val fileCount: Int, val fileSize: Long, val removed: List<RemovedBlob>) {
+    val removedSize: Long get() = removed.sumOf { it.size }
+}
+
+/**
+ * Inventory of files read from tree & blob headers of the object store, without checking out anything.
+ * Trees are parsed once whatever the number of refs or commits sharing them, as svn branches & tags mostly do,
+ * and subtrees are scanned concurrently on a fork/join pool, each thread with its own object reader.
+ *
+ * @param repository Repository to inspect
+ * @param rules      Cleaning rules of the migration
+ * @param pool       Pool scanning trees
+ */
+class ObjectInventory(private val repository: Repository,
+                      private val rules: CleaningRules,
+                      private val pool: ForkJoinPool) : Closeable {
+
+    private val readers = ConcurrentLinkedQueue<ObjectReader>()
+    private val reader: ThreadLocal<ObjectReader> = ThreadLocal.withInitial { repository.newObjectReader().also { readers.add(it) } }
+    private val trees = ConcurrentHashMap<ObjectId, TreeStats>()
+    private val sizes = ConcurrentHashMap<ObjectId, Long>()
+
+    /**
+     * Content of the trees of several commits, scanned concurrently
+     *
+     * @param commits Commits (or refs resolved) to inspect, by key
+     * @return content of each commit, by key
+     */
+    fun <K> statsOf(commits: Map<K, ObjectId>): Map<K, TreeStats> {
+        val roots = commits.mapValues { treeOf(it.value) }
+        return pool.invoke(object : RecursiveTask<Map<K, TreeStats>>() {
+            override fun compute(): Map<K, TreeStats> {
+                val tasks = roots.mapValues { TreeTask(it.value).fork() }
+                return tasks.mapValues { it.value.join() }
+            }
+        })
+    }
+
+    /**
+     * Content of the tree of a commit
+     *
+     * @param commit Commit (or ref resolved) to inspect
+     */
+    fun statsOf(commit: ObjectId): TreeStats = statsOf(mapOf(commit to commit)).getValue(commit)
+
+    /**
+     * Files matching cleaning rules in the history of some commits, each blob being reported once.
+     * These are the blobs BFG rewrites, as blob protection is disabled.
+     *
+     * @param tips     Commits whose history is inspected
+     * @param location Location of a commit, used to report where a blob has been found first
+     */
+    fun removedInHistory(tips: Collection<ObjectId>, location: (String) -> String): Map<RemovedBlob, String> {
+        val seenTrees = HashSet<ObjectId>()
+        val removed = LinkedHashMap<ObjectId, Pair<RemovedBlob, String>>()
+        val walk = RevWalk(reader.get())
+        try {
+            tips.forEach { walk.markStart(walk.parseCommit(it)) }
+            var commit = walk.next()
+            while (commit != null) {
+                val where = location(commit.fullMessage)
+                collectRemoved(commit.tree, "", seenTrees) { blob -> removed.putIfAbsent(blob.id, Pair(blob, where)) }
+                commit = walk.next()
+            }
+        } finally {
+            walk.close()
+        }
+        return removed.values.associate { it }
+    }
+
+    /**
+     * Write content of a blob
+     */
+    fun copy(blob: ObjectId, out: OutputStream) = reader.get().open(blob, Constants.OBJ_BLOB).copyTo(out)
+
+    override fun close() = readers.forEach { it.close() }
+
+    private fun treeOf(commit: ObjectId): ObjectId {
+        val walk = RevWalk(reader.get())
+        try {
+            return walk.parseCommit(commit).tree.copy()
+        } finally {
+            walk.close()
+        }
+    }
+
+    /**
+     * Scan of a tree, forking a task for each subtree not scanned yet
+     */
+    private inner class TreeTask(private val tree: ObjectId) : RecursiveTask<TreeStats>() {
+        override fun compute(): TreeStats {
+            trees[tree]?.let { return it }
+            var count = 0
+            var size = 0L
+            val removed = ArrayList<RemovedBlob>()
+            val subtrees = ArrayList<Pair<String, () -> TreeStats>>()
+            forEachEntry(tree) { mode, name, id ->
+                if (mode == FileMode.TREE) {
+                    val known = trees[id]
+                    if (known != null) {
+                        subtrees.add(Pair(name, { known }))
+                    } else {
+                        val task = TreeTask(id).fork()
+                        subtrees.add(Pair(name, { task.join() }))
+                    }
+                } else {
+                    val blobSize = sizeOf(id)
+                    count++
+                    size += blobSize
+                    rules.reasonOf(name, blobSize)?.let { removed.add(RemovedBlob(id, name, blobSize, it)) }
+                }
+            }
+            subtrees.forEach { (name, stats) ->
+                val sub = stats()
+                count += sub.fileCount
+                size += sub.fileSize
+                sub.removed.mapTo(removed) { it.copy(path = "$name/${it.path}") }
+            }
+            val stats = TreeStats(count, size, removed)
+            trees.putIfAbsent(tree.copy(), stats)
+            return stats
+        }
+    }
+
+    private fun collectRemoved(tree: ObjectId, prefix: String, seenTrees: MutableSet<ObjectId>, onRemoved: (RemovedBlob) -> Unit) {
+        if (!seenTrees.add(tree.copy())) return
+        forEachEntry(tree) { mode, name, id ->
+            if (mode == FileMode.TREE) {
+                collectRemoved(id, "$prefix$name/", seenTrees, onRemoved)
+            } else {
+                val blobSize = sizeOf(id)
+                rules.reasonOf(name, blobSize)?.let { onRemoved(RemovedBlob(id, "$prefix$name", blobSize, it)) }
+            }
+        }
+    }
+
+    /**
+     * Iterate over files & subtrees of a tree with reader of current thread, submodules are ignored
+     */
+    private fun forEachEntry(tree: ObjectId, action: (FileMode, String, ObjectId) -> Unit) {
+        val parser = CanonicalTreeParser(null, reader.get(), tree)
+        while (!parser.eof()) {
+            val mode = parser.entryFileMode
+            if (mode != FileMode.GITLINK) action(mode, parser.entryPathString, parser.entryObjectId)
+            parser.next()
+        }
+    }
+
+    private fun sizeOf(blob: ObjectId): Long = sizes[blob] ?: reader.get().getObjectSize(blob, Constants.OBJ_BLOB).also { sizes[blob] = it }
+}
@@ -0,0 +1,179 @@
+package fr.yodamad.svn2git.service.pipeline
+
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import org.slf4j.LoggerFactory
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+
+/**
+ * Typed key of a value exchanged between steps
+ */
+class StepKey<T>(val name: String) {
+    override fun toString() = name
+}
+
+/**
+ * Values produced by steps of a migration
+ */
+class StepContext {
+    private val values: MutableMap<StepKey<*>, Any> = ConcurrentHashMap()
+
+    operator fun <T : Any> set(key: StepKey<T>, value: T) {
+        values[key] = value
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    operator fun <T : Any> get(key: StepKey<T>): T =
+        values[key] as T? ?: throw IllegalStateException("No value produced for $key")
+
+    fun contains(key: StepKey<*>) = values.containsKey(key)
+}
+
+/**
+ * Action of a step
+ */
+fun interface StepAction {
+    @Throws(Exception::class)
+    fun run(context: StepContext)
+}
+
+/**
+ * Listener of steps executions, invoked from the thread executing the step
+ */
+fun interface StepListener {
+    fun executed(node: StepNode, durationMillis: Long, failure: Throwable?)
+}
+
+/**
+ * Step of a migration with its declared inputs and outputs.
+ * When resuming a migration, a step already completed is not executed again, its restore action
+ * only gives back its outputs to the context.
+ */
+class StepNode @JvmOverloads constructor(val step: StepEnum,
+                                         val inputs: Set<StepKey<*>>,
+                                         val outputs: Set<StepKey<*>>,
+                                         val restore: StepAction = StepAction { },
+                                         val action: StepAction) {
+    override fun toString() = step.name
+}
+
+/**
+ * Migration pipeline as a DAG of steps.
+ * A step starts as soon as all its inputs have been produced, so independent steps run concurrently.
+ * On first failure, no other step is started, running ones are awaited and the failure is rethrown.
+ *
+ * @param nodes    Steps of the graph
+ * @param listener Listener notified with the duration of each executed step
+ */
+class StepGraph @JvmOverloads constructor(val nodes: List<StepNode>,
+                                          private val listener: StepListener = StepListener { _, _, _ -> }) {
+
+    private val LOG = LoggerFactory.getLogger(StepGraph::class.java)
+
+    init {
+        val producers = HashMap<StepKey<*>, StepNode>()
+        nodes.groupBy { it.step }.filter { it.value.size > 1 }.keys.forEach {
+            throw IllegalArgumentException("Step $it declared several times")
+        }
+        nodes.forEach { node ->
+            node.outputs.forEach { key ->
+                producers.put(key, node)?.let { throw IllegalArgumentException("$key produced by both $it and $node") }
+            }
+        }
+        nodes.forEach { node ->
+            node.inputs.filter { !producers.containsKey(it) }.forEach {
+                throw IllegalArgumentException("$it needed by $node is never produced")
+            }
+        }
+        // Check there is no cycle by resolving the graph
+        val produced = HashSet<StepKey<*>>()
+        val remaining = nodes.toMutableList()
+        while (remaining.isNotEmpty()) {
+            val ready = remaining.filter { produced.containsAll(it.inputs) }
+            if (ready.isEmpty()) throw IllegalArgumentException("Cycle between steps $remaining")
+            remaining.removeAll(ready)
+            ready.forEach { produced.addAll(it.outputs) }
+        }
+    }
+
+    /**
+     * Execute the graph
+     *
+     * @param context     Context shared by steps
+     * @param executor    Executor running steps
+     * @param completed   Steps already completed in a previous execution
+     * @param onCompleted Callback invoked (from calling thread) each time a step is completed
+     */
+    @JvmOverloads
+    @Throws(Exception::class)
+    fun run(context: StepContext, executor: Executor,
+            completed: Set<StepEnum> = emptySet(), onCompleted: (StepNode) -> Unit = {}) {
+        val produced = HashSet<StepKey<*>>()
+        val remaining = nodes.toMutableList()
+        val running = HashMap<StepNode, CompletableFuture<Void>>()
+        var failure: Throwable? = null
+
+        while (remaining.isNotEmpty() || running.isNotEmpty()) {
+            if (failure == null) {
+                var ready = remaining.filter { produced.containsAll(it.inputs) }
+                // Restore completed steps first, they may unlock others
+                while (ready.any { it.step in completed }) {
+                    ready.filter { it.step in completed }.forEach { node ->
+                        remaining.remove(node)
+                        LOG.info("Step $node already completed, skip it")
+                        node.restore.run(context)
+                        produced.addAll(node.outputs)
+                    }
+                    ready = remaining.filter { produced.containsAll(it.inputs) }
+                }
+                ready.forEach { node ->
+                    remaining.remove(node)
+                    running[node] = CompletableFuture.runAsync({ execute(node, context) }, executor)
+                }
+            }
+            if (running.isEmpty()) break
+
+            // Wait for any step to complete
+            CompletableFuture.anyOf(*running.values.toTypedArray()).handle { _, _ -> null }.join()
+            running.filterValues { it.isDone }.forEach { (node, future) ->
+                running.remove(node)
+                try {
+                    future.join()
+                    produced.addAll(node.outputs)
+                } catch (exc: CompletionException) {
+                    if (failure == null) failure = exc.cause ?: exc
+                    else LOG.error("Step $node also failed", exc.cause)
+                    return@forEach
+                }
+                try {
+                    onCompleted(node)
+                } catch (exc: Exception) {
+                    if (failure == null) failure = exc
+                }
+            }
+        }
+        failure?.let { throw it }
+    }
+
+    private fun execute(node: StepNode, context: StepContext) {
+        val start = System.currentTimeMillis()
+        LOG.debug("Start step $node")
+        var failure: Throwable? = null
+        try {
+            node.action.run(context)
+        } catch (thr: Throwable) {
+            failure = thr
+            throw thr
+        } finally {
+            val duration = System.currentTimeMillis() - start
+            LOG.info("Step $node completed in $duration ms")
+            try {
+                listener.executed(node, duration, failure)
+            } catch (exc: Exception) {
+                LOG.warn("Cannot record duration of step $node", exc)
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package fr.yodamad.svn2git.service.svn
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.CleaningRules
+import fr.yodamad.svn2git.data.RevisionScan
+import fr.yodamad.svn2git.data.SvnAnalysis
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.buildSvnProjectUrl
+import fr.yodamad.svn2git.functions.isSvnRepositoryRoot
+import fr.yodamad.svn2git.functions.svnAuthManager
+import fr.yodamad.svn2git.service.HistoryManager
+import fr.yodamad.svn2git.service.upload.UploadPipeline
+import org.apache.commons.lang3.StringUtils.isEmpty
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+import org.tmatesoft.svn.core.SVNDepth
+import org.tmatesoft.svn.core.SVNDirEntry
+import org.tmatesoft.svn.core.SVNErrorCode
+import org.tmatesoft.svn.core.SVNException
+import org.tmatesoft.svn.core.SVNLogEntry
+import org.tmatesoft.svn.core.SVNLogEntryPath
+import org.tmatesoft.svn.core.SVNNodeKind
+import org.tmatesoft.svn.core.SVNURL
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory
+import org.tmatesoft.svn.core.wc.SVNRevision
+import org.tmatesoft.svn.core.wc2.ISvnObjectReceiver
+import org.tmatesoft.svn.core.wc2.SvnOperationFactory
+import org.tmatesoft.svn.core.wc2.SvnTarget
+
+/**
+ * Analyze content of a SVN project before cloning it, so that unwanted content is known (and possibly ignored)
+ * before hours of git svn fetch.
+ */
+@Service
+open class SvnAnalyzer(private val applicationProperties: ApplicationProperties,
+                       private val historyMgr: HistoryManager,
+                       private val uploadPipeline: UploadPipeline) {
+
+    private val LOG = LoggerFactory.getLogger(SvnAnalyzer::class.java)
+
+    /**
+     * Walk SVN tree at HEAD (and optionally history) of a migration. Folders only containing files with a forbidden
+     * extension are reported, and ignored by git svn during this execution once history confirmed they never held kept files.
+     *
+     * @param workUnit Current migration information
+     * @return analysis, null if disabled or failed
+     */
+    open fun analyze(workUnit: WorkUnit): SvnAnalysis? {
+        if (!applicationProperties.svn.analysis) return null
+        val migration = workUnit.migration
+        val projectUrl = buildSvnProjectUrl(workUnit)
+        val history = historyMgr.startStep(migration, StepEnum.SVN_ANALYSIS, projectUrl)
+        val analysis = SvnAnalysis(CleaningRules.of(migration), applicationProperties.svn.biggestPaths)
+        try {
+            val url = SVNURL.parseURIEncoded(projectUrl)
+            val authManager = svnAuthManager(migration, applicationProperties)
+            elementsOf(migration).forEach { (path, isContainer) -> listTree(url, path, isContainer, authManager, analysis) }
+            if (applicationProperties.svn.analyzeHistory) listHistory(url, migration, authManager, analysis)
+        } catch (exc: SVNException) {
+            // Analysis is only informative, clone reports unreachable repositories
+            LOG.warn("Cannot analyze $projectUrl", exc)
+            historyMgr.endStep(history, StatusEnum.DONE_WITH_WARNINGS, "Analysis failed : ${exc.message}")
+            return null
+        }
+
+        val ignorable = analysis.ignorableFolders()
+        // Kept for this execution only, user mappings are left untouched
+        val ignored = if (canIgnore(migration)) ignorable else emptyList()
+        workUnit.commandManager.autoIgnoredPaths = ignored
+        LOG.info("Analysis of $projectUrl : $analysis")
+        historyMgr.endStep(history, StatusEnum.DONE, analysis.toString() + when {
+            ignored.isNotEmpty() -> "${System.lineSeparator()}Ignored folders : ${ignored.joinToString(", ")}"
+            ignorable.isNotEmpty() -> "${System.lineSeparator()}Folders only holding forbidden files : ${ignorable.joinToString(", ")}"
+            else -> ""
+        })
+        return analysis
+    }
+
+    /**
+     * Scan SVN log of the project, so that git svn clone starts at its first revision (when no start revision is set)
+     * and requests revisions by windows sized after the density of project revisions in the repository
+     *
+     * @param workUnit Current migration information
+     * @return revisions of the project, null if disabled, not relevant or failed
+     */
+    open fun scanRevisions(workUnit: WorkUnit): RevisionScan? {
+        val migration = workUnit.migration
+        // Project at the root of its repository : all revisions are relevant
+        if (!applicationProperties.svn.revisionScan || isSvnRepositoryRoot(migration)) return null
+        val projectUrl = buildSvnProjectUrl(workUnit)
+        val history = historyMgr.startStep(migration, StepEnum.SVN_ANALYSIS, "Revisions of $projectUrl")
+        val scan = try {
+            val repository = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(projectUrl))
+            try {
+                repository.authenticationManager = svnAuthManager(migration, applicationProperties)
+                val head = repository.latestRevision
+                var first = -1L
+                var count = 0L
+                repository.log(arrayOf(""), migration.svnRevision?.toLongOrNull() ?: 0, head, false, false) { entry: SVNLogEntry ->
+                    if (first < 0) first = entry.revision
+                    count++
+                }
+                RevisionScan(first, head, count)
+            } finally {
+                repository.closeSession()
+            }
+        } catch (exc: SVNException) {
+            LOG.warn("Cannot scan revisions of $projectUrl", exc)
+            historyMgr.endStep(history, StatusEnum.DONE_WITH_WARNINGS, "Revision scan failed : ${exc.message}")
+            return null
+        }
+
+        if (isEmpty(migration.svnRevision) && scan.first > 0) migration.svnRevision = scan.first.toString()
+        val windowSize = scan.logWindowSize(applicationProperties.svn.maxLogWindowSize)
+        if (windowSize != RevisionScan.DEFAULT_WINDOW) workUnit.commandManager.svnLogWindowSize = windowSize
+        LOG.info("Revisions of $projectUrl : $scan")
+        historyMgr.endStep(history, StatusEnum.DONE, "$scan, clone from r${migration.svnRevision ?: 0} with log window of $windowSize revisions")
+        return scan
+    }
+
+    /**
+     * Check if folders can be ignored by git svn : their files would be removed by cleaning, without being kept
+     * in git LFS or uploaded to a binary repository, and history has been analyzed so that they never held kept files.
+     */
+    private fun canIgnore(migration: Migration) = applicationProperties.svn.autoIgnorePaths && applicationProperties.svn.analyzeHistory
+        && migration.cleaning && migration.lfs != true && !migration.flat
+        && !uploadPipeline.isEnabled(migration)
+
+    /**
+     * List files of trunk, or of all branches or tags
+     *
+     * @param isContainer true if path contains branches or tags, false if it is trunk
+     */
+    private fun listTree(url: SVNURL, path: String, isContainer: Boolean, authManager: ISVNAuthenticationManager, analysis: SvnAnalysis) {
+        val operationFactory = SvnOperationFactory()
+        try {
+            operationFactory.authenticationManager = authManager
+            val list = operationFactory.createList()
+            list.depth = SVNDepth.INFINITY
+            list.revision = SVNRevision.HEAD
+            list.entryFields = SVNDirEntry.DIRENT_KIND or SVNDirEntry.DIRENT_SIZE
+            list.addTarget(SvnTarget.fromURL(if (path.isEmpty()) url else url.appendPath(path, false), SVNRevision.HEAD))
+            list.receiver = ISvnObjectReceiver { _, entry: SVNDirEntry ->
+                val name = entry.relativePath
+                if (entry.kind == SVNNodeKind.FILE && !name.isNullOrEmpty()) {
+                    // Branches & tags : remove their name to get path relative to their root
+                    val relativePath = if (isContainer) name.substringAfter('/', "") else name
+                    if (relativePath.isNotEmpty()) analysis.add(if (path.isEmpty()) name else "$path/$name", relativePath, entry.size)
+                }
+            }
+            list.run()
+        } catch (exc: SVNException) {
+            if (exc.errorMessage.errorCode != SVNErrorCode.FS_NOT_FOUND && exc.errorMessage.errorCode != SVNErrorCode.RA_ILLEGAL_URL) throw exc
+            LOG.info("No $path in $url")
+        } finally {
+            operationFactory.dispose()
+        }
+    }
+
+    /**
+     * List files added in history, from migration start revision
+     */
+    private fun listHistory(url: SVNURL, migration: Migration, authManager: ISVNAuthenticationManager, analysis: SvnAnalysis) {
+        val repository = SVNRepositoryFactory.create(url)
+        try {
+            repository.authenticationManager = authManager
+            val projectPath = url.path.removePrefix(repository.getRepositoryRoot(true).path)
+            val start = migration.svnRevision?.toLongOrNull() ?: 0
+            repository.log(arrayOf(""), start, -1, true, false) { entry: SVNLogEntry ->
+                entry.changedPaths.values
+                    .filter { it.type == SVNLogEntryPath.TYPE_ADDED || it.type == SVNLogEntryPath.TYPE_REPLACED }
+                    .filter { it.path.startsWith("$projectPath/") }
+                    .forEach {
+                        val path = it.path.removePrefix("$projectPath/")
+                        if (it.kind != SVNNodeKind.DIR) analysis.addFromHistory(path, relativePathOf(migration, path))
+                        // Files of a folder copied from outside are not listed in project history
+                        if (it.kind != SVNNodeKind.FILE && it.copyPath != null && !it.copyPath.startsWith("$projectPath/")) {
+                            relativePathOf(migration, path)?.let { folder -> analysis.addCopiedFromHistory(folder) }
+                        }
+                    }
+            }
+        } finally {
+            repository.closeSession()
+        }
+    }
+
+    /**
+     * Path relative to trunk, branch or tag root
+     *
+     * @param path Path in the project
+     * @return relative path, empty for a root, null if not in trunk, branches or tags
+     */
+    private fun relativePathOf(migration: Migration, path: String): String? {
+        for ((element, isContainer) in elementsOf(migration)) {
+            if (element.isEmpty()) return path
+            if (path == element) return ""
+            if (!path.startsWith("$element/")) continue
+            val inElement = path.removePrefix("$element/")
+            return if (isContainer) inElement.substringAfter('/', "") else inElement
+        }
+        return null
+    }
+
+    /**
+     * Paths of trunk, branches & tags of a migration, flagged if they contain branches or tags
+     */
+    private fun elementsOf(migration: Migration): List<Pair<String, Boolean>> {
+        if (migration.flat) return listOf("" to false)
+        fun name(element: String) = if (migration.uppercase) element.uppercase() else element
+        return listOfNotNull(
+            if (migration.trunk != null) name("trunk") to false else null,
+            if (migration.branches != null) name("branches") to true else null,
+            if (migration.tags != null) name("tags") to true else null)
+    }
+}
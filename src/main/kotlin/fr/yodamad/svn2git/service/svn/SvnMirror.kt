@@ -0,0 +1,156 @@
+package fr.yodamad.svn2git.service.svn
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.buildSvnCompleteUrl
+import fr.yodamad.svn2git.functions.buildSvnProjectUrl
+import fr.yodamad.svn2git.functions.svnAuthManager
+import fr.yodamad.svn2git.io.Shell
+import fr.yodamad.svn2git.io.Shell.isWindows
+import fr.yodamad.svn2git.service.HistoryManager
+import fr.yodamad.svn2git.service.git.GitBackend
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+import org.springframework.util.FileSystemUtils
+import org.tmatesoft.svn.core.SVNCancelException
+import org.tmatesoft.svn.core.SVNURL
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory
+import org.tmatesoft.svn.core.wc.SVNEvent
+import org.tmatesoft.svn.core.wc.SVNWCUtil
+import org.tmatesoft.svn.core.wc.admin.ISVNAdminEventHandler
+import org.tmatesoft.svn.core.wc.admin.SVNAdminClient
+import org.tmatesoft.svn.core.wc.admin.SVNAdminEvent
+import java.io.File
+import java.io.IOException
+
+/**
+ * Local mirror of the SVN project of a migration, replicated in the working directory as svnsync does (with SVNKit)
+ * so that git svn clone works against a file:// repository instead of the remote server.
+ * Clone is done with --rewrite-root, so that commits reference the remote server, then svn-remote is switched back to it.
+ */
+@Service
+open class SvnMirror(private val applicationProperties: ApplicationProperties,
+                     private val historyMgr: HistoryManager,
+                     private val gitBackend: GitBackend) {
+
+    private val LOG = LoggerFactory.getLogger(SvnMirror::class.java)
+
+    /**
+     * Replicate SVN project of a migration into a local repository, resuming a previous replication if any.
+     * Once done, clone uses the mirror.
+     *
+     * @param workUnit Current migration information
+     * @return true if mirror is used for clone
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    open fun stage(workUnit: WorkUnit): Boolean {
+        if (!applicationProperties.svn.mirror || isWindows) return false
+        val migration = workUnit.migration
+        val projectUrl = buildSvnProjectUrl(workUnit)
+        val mirror = mirrorOf(workUnit)
+        val history = historyMgr.startStep(migration, StepEnum.SVN_MIRROR, "Mirror $projectUrl")
+
+        try {
+            // Mirror keeps repository paths & uuid, so that commits can reference the remote repository
+            val authManager = svnAuthManager(migration, applicationProperties)
+            val cloneUrl = SVNURL.parseURIEncoded(buildSvnCompleteUrl(workUnit))
+            val remote = SVNRepositoryFactory.create(cloneUrl)
+            val (root, uuid) = try {
+                remote.authenticationManager = authManager
+                remote.getRepositoryRoot(true) to remote.getRepositoryUUID(true)
+            } finally {
+                remote.closeSession()
+            }
+
+            // Replicated in process, so that credentials never appear in a command line
+            val admin = SVNAdminClient(authManager, SVNWCUtil.createDefaultOptions(true))
+            admin.setEventHandler(CANCEL_ON_INTERRUPT)
+            val mirrorUrl = if (!File(mirror, "format").exists()) {
+                // svnsync records its progress in revision properties
+                SVNRepositoryFactory.createLocalRepository(mirror, uuid, true, false).also {
+                    admin.doInitialize(SVNURL.parseURIEncoded(projectUrl), it)
+                }
+            } else {
+                SVNURL.fromFile(mirror).also { stealLock(it) }
+            }
+            admin.doSynchronize(mirrorUrl)
+
+            // Same location as the remote clone url, in the mirror
+            workUnit.commandManager.svnMirrorUrl = mirrorUrl.appendPath(cloneUrl.path.removePrefix(root.path), false).toString()
+        } catch (exc: Exception) {
+            if (exc is InterruptedException) throw exc
+            if (exc is SVNCancelException && Thread.currentThread().isInterrupted) throw InterruptedException(exc.message)
+            // Mirror only speeds clone up : clone from remote server
+            LOG.warn("Cannot mirror $projectUrl, clone from remote server", exc)
+            FileSystemUtils.deleteRecursively(mirror)
+            historyMgr.endStep(history, StatusEnum.DONE_WITH_WARNINGS, "Mirror failed, clone from remote server : ${exc.message}")
+            return false
+        }
+        historyMgr.endStep(history, StatusEnum.DONE, "Mirror ${mirror.path} (${mirror.walkTopDown().filter { it.isFile }.sumOf { it.length() } / MB} MB)")
+        return true
+    }
+
+    /**
+     * Point svn-remote of the cloned repository to the remote server, then remove mirror.
+     * Mirror staged by an interrupted execution is found from svn-remote or from its folder, so that it is released too.
+     * If svn-remote cannot be switched, mirror is kept so that the repository can still be fetched.
+     *
+     * @param workUnit Current migration information
+     */
+    @Throws(InterruptedException::class)
+    open fun release(workUnit: WorkUnit) {
+        val mirror = mirrorOf(workUnit)
+        val svnUrl = if (File(workUnit.directory, ".git").exists()) gitBackend.readConfig(workUnit, SVN_REMOTE_URL) else null
+        val mirrored = svnUrl != null && svnUrl.startsWith(SVNURL.fromFile(mirror).toString())
+        if (workUnit.commandManager.svnMirrorUrl == null && !mirrored && !mirror.exists()) return
+
+        val remoteUrl = buildSvnCompleteUrl(workUnit)
+        val history = historyMgr.startStep(workUnit.migration, StepEnum.SVN_MIRROR, "Switch svn-remote to $remoteUrl")
+        try {
+            if (mirrored) {
+                gitBackend.setConfig(workUnit, SVN_REMOTE_URL, remoteUrl)
+                Shell.execCommand(workUnit.commandManager, workUnit.directory, "git config --unset svn-remote.svn.rewriteRoot")
+            }
+        } catch (exc: Exception) {
+            if (exc is InterruptedException) throw exc
+            LOG.warn("Cannot switch svn-remote to $remoteUrl, keep mirror ${mirror.path}", exc)
+            historyMgr.endStep(history, StatusEnum.DONE_WITH_WARNINGS, "svn-remote still uses mirror : ${exc.message}")
+            return
+        }
+        workUnit.commandManager.svnMirrorUrl = null
+        FileSystemUtils.deleteRecursively(mirror)
+        historyMgr.endStep(history, StatusEnum.DONE)
+    }
+
+    private fun mirrorOf(workUnit: WorkUnit) = File(workUnit.root, MIRROR)
+
+    /**
+     * Remove lock of an interrupted replication, as svnsync --steal-lock does
+     */
+    private fun stealLock(mirrorUrl: SVNURL) {
+        val repository = SVNRepositoryFactory.create(mirrorUrl)
+        try {
+            repository.setRevisionPropertyValue(0, SYNC_LOCK, null)
+        } finally {
+            repository.closeSession()
+        }
+    }
+
+    private companion object {
+        const val MIRROR = "svn-mirror"
+        const val SVN_REMOTE_URL = "svn-remote.svn.url"
+        const val MB = 1024 * 1024
+        const val SYNC_LOCK = "svn:sync-lock"
+
+        /** Replication stops when migration thread is interrupted */
+        val CANCEL_ON_INTERRUPT = object : ISVNAdminEventHandler {
+            override fun handleAdminEvent(event: SVNAdminEvent, progress: Double) {}
+            override fun handleEvent(event: SVNEvent, progress: Double) {}
+            override fun checkCancelled() {
+                if (Thread.currentThread().isInterrupted) throw SVNCancelException()
+            }
+        }
+    }
+}
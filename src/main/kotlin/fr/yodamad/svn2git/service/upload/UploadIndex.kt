@@ -0,0 +1,83 @@
+package fr.yodamad.svn2git.service.upload
+
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.UploadedArtifact
+import fr.yodamad.svn2git.repository.UploadedArtifactRepository
+import org.springframework.stereotype.Service
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * What to do with an artifact to upload
+ */
+enum class UploadDecision {
+    /** Never uploaded, send content */
+    UPLOAD,
+    /** Same content already uploaded elsewhere, link to it (checksum deploy) or skip it */
+    DUPLICATE,
+    /** Already uploaded at this path, by a previous execution */
+    DONE
+}
+
+/**
+ * Artifacts uploaded to a binary repository for a migration, indexed by path & by content.
+ * Identical files found in many tags are uploaded once, and retries skip what has already been uploaded.
+ *
+ * @param migration Current migration
+ * @param target    Binary repository (gitlab, artifactory, nexus)
+ */
+class UploadIndex(private val repository: UploadedArtifactRepository,
+                  private val migration: Migration,
+                  private val target: String,
+                  uploaded: List<UploadedArtifact>) {
+
+    private val byPath: MutableMap<String, UploadedArtifact> = ConcurrentHashMap(uploaded.associateBy { it.path })
+    private val bySha1: MutableMap<String, UploadedArtifact> = ConcurrentHashMap(uploaded.filter { it.linkedTo == null }.associateBy { it.sha1 })
+
+    /**
+     * @param path Path of the artifact in the binary repository
+     * @param sha1 SHA-1 of the content
+     */
+    fun decide(path: String, sha1: String): UploadDecision = when {
+        byPath.containsKey(path) -> UploadDecision.DONE
+        bySha1.containsKey(sha1) -> UploadDecision.DUPLICATE
+        else -> UploadDecision.UPLOAD
+    }
+
+    /**
+     * @return path of the artifact uploaded with this content, null if none
+     */
+    fun uploadedAs(sha1: String): String? = bySha1[sha1]?.path
+
+    /**
+     * Record an artifact once it has been uploaded, or linked to an identical one
+     *
+     * @param linkedTo Path of the identical artifact, null if content has been uploaded
+     */
+    fun record(path: String, sha1: String, svnLocation: String, size: Long, linkedTo: String? = null) {
+        val artifact = repository.save(UploadedArtifact()
+            .migrationId(migration.id)
+            .target(target)
+            .path(path)
+            .sha1(sha1)
+            .svnLocation(svnLocation)
+            .fileSize(size)
+            .linkedTo(linkedTo)
+            .uploadedAt(Instant.now()))
+        byPath[path] = artifact
+        if (linkedTo == null) bySha1.putIfAbsent(sha1, artifact)
+    }
+}
+
+/**
+ * Give access to upload indexes of migrations
+ */
+@Service
+open class UploadIndexes(private val repository: UploadedArtifactRepository) {
+
+    /**
+     * Load index of artifacts already uploaded to a binary repository for a migration
+     */
+    open fun of(migration: Migration, target: String) =
+        UploadIndex(repository, migration, target, repository.findAllByMigrationIdAndTarget(migration.id, target))
+}
@@ -0,0 +1,250 @@
+package fr.yodamad.svn2git.service.upload
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.CapacityClass
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.functions.extractVersion
+import fr.yodamad.svn2git.service.HistoryManager
+import fr.yodamad.svn2git.service.MigrationScheduler
+import fr.yodamad.svn2git.service.client.TransferResult
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+import java.io.Closeable
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import javax.annotation.PreDestroy
+
+/**
+ * Outcome of the upload of a file
+ */
+enum class UploadOutcome {
+    /** Content sent */
+    UPLOADED,
+    /** Identical content already uploaded, linked to it or skipped */
+    LINKED,
+    /** Already uploaded by a previous execution */
+    SKIPPED,
+    /** All attempts failed */
+    FAILED
+}
+
+/**
+ * Upload files removed from tags, concurrently with listing of next tags.
+ * Each binary repository has its own pool, sized by application.upload.xxxParallelism and shared by all migrations,
+ * and each file upload takes an ARTIFACT_UPLOAD slot of the scheduler, so that uploads can be throttled at runtime.
+ * Failed uploads are retried with an exponential backoff and each tag gets a single history step per target
+ * holding the aggregated status of its files and the throughput of transfers.
+ */
+@Service
+open class UploadPipeline(private val applicationProperties: ApplicationProperties,
+                          private val historyMgr: HistoryManager,
+                          private val scheduler: MigrationScheduler,
+                          private val uploadIndexes: UploadIndexes,
+                          private val targets: List<UploadTarget>) {
+
+    private val LOG = LoggerFactory.getLogger(UploadPipeline::class.java)
+    private val executors: MutableMap<String, ExecutorService> = ConcurrentHashMap()
+
+    /**
+     * Open an upload session for a migration
+     *
+     * @param workUnit Current migration information
+     * @return session, null if files of the migration are not uploaded
+     */
+    open fun open(workUnit: WorkUnit): UploadSession? {
+        val enabled = targets.filter { it.isEnabled(workUnit.migration) }
+        if (enabled.isEmpty()) return null
+        return UploadSession(workUnit, enabled.map { TargetUploads(it, uploadIndexes.of(workUnit.migration, it.name)) })
+    }
+
+    /**
+     * @return true if files removed from tags of the migration are uploaded
+     */
+    open fun isEnabled(migration: Migration) = targets.any { it.isEnabled(migration) }
+
+    @PreDestroy
+    open fun shutdown() = executors.values.forEach { it.shutdownNow() }
+
+    private fun executorOf(target: UploadTarget) = executors.computeIfAbsent(target.name) { name ->
+        Executors.newFixedThreadPool(Math.max(1, parallelismOf(name)), object : ThreadFactory {
+            private val count = AtomicInteger()
+            override fun newThread(r: Runnable) = Thread(r, "svn-2-git-Upload-$name-${count.incrementAndGet()}").apply { isDaemon = true }
+        })
+    }
+
+    private fun parallelismOf(target: String) = when (target) {
+        "gitlab" -> applicationProperties.upload.gitlabParallelism
+        "artifactory" -> applicationProperties.upload.artifactoryParallelism
+        else -> applicationProperties.upload.nexusParallelism
+    }
+
+    /**
+     * Uploads to a target during a session
+     *
+     * @param inFlight Contents being uploaded, completed with their path or null if upload failed
+     */
+    internal class TargetUploads(val target: UploadTarget,
+                                val index: UploadIndex,
+                                val inFlight: MutableMap<String, CompletableFuture<String?>> = ConcurrentHashMap())
+
+    /**
+     * Uploads of a migration. Submission blocks while application.upload.maxPendingTags tags are waiting for upload,
+     * to bound disk used by extracted files.
+     */
+    inner class UploadSession internal constructor(private val workUnit: WorkUnit,
+                                                   private val uploads: List<TargetUploads>) : Closeable {
+
+        private val pending = Semaphore(Math.max(1, applicationProperties.upload.maxPendingTags))
+        private val batches = ConcurrentLinkedQueue<CompletableFuture<Boolean>>()
+
+        /**
+         * Upload files of a tag to all targets of the migration. Folder is deleted once all uploads are over.
+         *
+         * @param svnLocation Tag
+         * @param folder      Folder where files have been extracted
+         * @param files       Files to upload
+         */
+        fun submit(svnLocation: String, folder: File, files: List<UploadFile>) {
+            pending.acquire()
+            val version = extractVersion(svnLocation)
+            val perTarget = uploads.map { uploadAll(it, svnLocation, version, files) }
+            val batch = CompletableFuture.allOf(*perTarget.toTypedArray())
+                .handle { _, _ -> perTarget.all { it.getNow(false) } }
+                .whenComplete { _, _ ->
+                    folder.deleteRecursively()
+                    pending.release()
+                }
+            batches.add(batch)
+        }
+
+        /**
+         * Wait for all submitted uploads
+         *
+         * @return true if all files have been uploaded
+         */
+        fun await(): Boolean = batches.map { it.join() }.all { it }
+
+        override fun close() {
+            await()
+        }
+
+        private fun uploadAll(uploads: TargetUploads, svnLocation: String, version: String, files: List<UploadFile>): CompletableFuture<Boolean> {
+            val history = historyMgr.startStep(workUnit.migration, uploads.target.step, svnLocation)
+            val transfers = Transfers()
+            val outcomes = files.map { file ->
+                CompletableFuture.supplyAsync({
+                    scheduler.withSlot(CapacityClass.ARTIFACT_UPLOAD) { upload(uploads, svnLocation, version, file, transfers) }
+                }, executorOf(uploads.target))
+                    .exceptionally { exc ->
+                        LOG.error("Failed to upload ${file.path} to ${uploads.target.name}", exc)
+                        UploadOutcome.FAILED
+                    }
+            }
+            return CompletableFuture.allOf(*outcomes.toTypedArray()).handle { _, _ ->
+                val results = files.zip(outcomes.map { it.join() })
+                val failed = results.filter { it.second == UploadOutcome.FAILED }.map { it.first.fileName }
+                val counts = UploadOutcome.values().map { outcome -> "${results.count { it.second == outcome }} ${outcome.name.lowercase()}" }
+                val summary = counts.joinToString(", ") + ", $transfers" + if (failed.isEmpty()) "" else " : ${failed.joinToString(", ")}"
+                historyMgr.endStep(history, if (failed.isEmpty()) StatusEnum.DONE else StatusEnum.DONE_WITH_WARNINGS, summary)
+                failed.isEmpty()
+            }
+        }
+
+        private fun upload(uploads: TargetUploads, svnLocation: String, version: String, file: UploadFile, transfers: Transfers): UploadOutcome {
+            val path = uploads.target.pathOf(workUnit, version, file)
+            when (uploads.index.decide(path, file.sha1)) {
+                UploadDecision.DONE -> return UploadOutcome.SKIPPED
+                // Identical content already uploaded
+                UploadDecision.DUPLICATE -> return link(uploads, path, svnLocation, version, file, transfers, uploads.index.uploadedAs(file.sha1)!!)
+                UploadDecision.UPLOAD -> Unit
+            }
+
+            // Identical content may be being uploaded by another task
+            val mine = CompletableFuture<String?>()
+            val prior = uploads.inFlight.putIfAbsent(file.sha1, mine)
+            try {
+                val linkedTo = prior?.join()
+                if (linkedTo != null) return link(uploads, path, svnLocation, version, file, transfers, linkedTo)
+
+                if (!withRetry("Upload of ${file.path}", transfers) { uploads.target.upload(workUnit, version, file, null) }) return UploadOutcome.FAILED
+                uploads.index.record(path, file.sha1, svnLocation, file.size)
+                if (prior == null) mine.complete(path)
+                return UploadOutcome.UPLOADED
+            } finally {
+                // Failed : identical files waiting for this upload send their content
+                if (prior == null) mine.complete(null)
+            }
+        }
+
+        /**
+         * Link a file to an identical one already uploaded, or skip it if target cannot link
+         */
+        private fun link(uploads: TargetUploads, path: String, svnLocation: String, version: String, file: UploadFile,
+                         transfers: Transfers, linkedTo: String): UploadOutcome {
+            val target = uploads.target
+            if (target.canLink() && !withRetry("Link of ${file.path}", transfers) { target.upload(workUnit, version, file, linkedTo) }) {
+                return UploadOutcome.FAILED
+            }
+            uploads.index.record(path, file.sha1, svnLocation, file.size, linkedTo)
+            return UploadOutcome.LINKED
+        }
+
+        /**
+         * Run an upload until it succeeds, pausing between attempts
+         */
+        private fun withRetry(description: String, transfers: Transfers, action: () -> TransferResult): Boolean {
+            val attempts = Math.max(1, applicationProperties.upload.maxAttempts)
+            var pause = applicationProperties.upload.backoffMilliSeconds
+            for (attempt in 1..attempts) {
+                try {
+                    val result = action()
+                    transfers.add(result)
+                    if (result.isSuccess) return true
+                    LOG.warn("$description failed with status ${result.status}, attempt $attempt/$attempts")
+                } catch (exc: Exception) {
+                    LOG.warn("$description failed, attempt $attempt/$attempts : ${exc.message}")
+                }
+                if (attempt < attempts) {
+                    Thread.sleep(pause)
+                    pause *= 2
+                }
+            }
+            return false
+        }
+    }
+
+    /**
+     * Bytes sent to a target for a tag. Throughput is computed from cumulated duration of transfers,
+     * so it does not depend on the parallelism of the target.
+     */
+    private class Transfers {
+        private val bytes = AtomicLong()
+        private val millis = AtomicLong()
+
+        fun add(result: TransferResult) {
+            bytes.addAndGet(result.bytes)
+            millis.addAndGet(result.wallTimeMillis)
+        }
+
+        override fun toString(): String {
+            val sent = bytes.get()
+            val duration = millis.get()
+            val throughput = if (duration > 0) sent * 1000 / duration / KB else 0
+            return "${sent / KB} KB sent in ${duration / 1000} s ($throughput KB/s)"
+        }
+
+        private companion object {
+            const val KB = 1024L
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package fr.yodamad.svn2git.service.upload
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.Migration
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.gitlabPackageUrl
+import fr.yodamad.svn2git.functions.nexusFileUrl
+import fr.yodamad.svn2git.service.client.ArtifactoryAdmin
+import fr.yodamad.svn2git.service.client.RateLimiter
+import fr.yodamad.svn2git.service.client.RateLimiter.Companion.endpointOf
+import fr.yodamad.svn2git.service.client.RateLimiter.Companion.isThrottled
+import fr.yodamad.svn2git.service.client.StreamingUploadClient
+import fr.yodamad.svn2git.service.client.StreamingUploadClient.Companion.basicAuth
+import fr.yodamad.svn2git.service.client.TransferResult
+import org.springframework.stereotype.Component
+import java.nio.file.Path
+
+/**
+ * File extracted from repository objects to be uploaded
+ *
+ * @param path Extracted file
+ * @param sha1 SHA-1 of the content
+ * @param size Size of the file
+ */
+data class UploadFile(val path: Path, val sha1: String, val size: Long) {
+    val fileName: String get() = path.fileName.toString()
+}
+
+/**
+ * Binary repository receiving files removed from tags
+ */
+interface UploadTarget {
+
+    /** Name of the target, as migration upload type */
+    val name: String
+
+    /** Step tracing uploads in migration history */
+    val step: StepEnum
+
+    /**
+     * @return true if files of the migration are uploaded to this target
+     */
+    fun isEnabled(migration: Migration): Boolean
+
+    /**
+     * Path of a file in the binary repository
+     */
+    fun pathOf(workUnit: WorkUnit, version: String, file: UploadFile): String
+
+    /**
+     * Upload a file
+     *
+     * @param linkedTo Path of an identical file already uploaded, that target may link to instead of sending content
+     * @return result of the transfer
+     */
+    fun upload(workUnit: WorkUnit, version: String, file: UploadFile, linkedTo: String?): TransferResult
+
+    /**
+     * @return true if an identical file is stored by [upload] when linked, false if it is skipped
+     */
+    fun canLink(): Boolean = false
+}
+
+@Component
+open class GitlabUploadTarget(private val applicationProperties: ApplicationProperties,
+                              private val rateLimiter: RateLimiter,
+                              private val uploadClient: StreamingUploadClient) : UploadTarget {
+
+    override val name = "gitlab"
+    override val step = StepEnum.UPLOAD_TO_GITLAB
+
+    override fun isEnabled(migration: Migration) = applicationProperties.gitlab.uploadToRegistry && migration.uploadType == name
+
+    override fun pathOf(workUnit: WorkUnit, version: String, file: UploadFile) = "${projectName(workUnit.migration)}/$version/${file.fileName}"
+
+    override fun upload(workUnit: WorkUnit, version: String, file: UploadFile, linkedTo: String?): TransferResult {
+        val url = gitlabPackageUrl(workUnit.migration.gitlabUrl, workUnit.migration.gitlabProjectId, projectName(workUnit.migration),
+            version, file.fileName)
+        val token = if (workUnit.migration.gitlabToken != null) workUnit.migration.gitlabToken else applicationProperties.gitlab.token
+        return rateLimiter.call(endpointOf(workUnit.migration.gitlabUrl), 0, false, { r: TransferResult -> isThrottled(r.status) }) {
+            uploadClient.put(url, file.path.toFile(), mapOf("PRIVATE-TOKEN" to token))
+        }
+    }
+
+    private fun projectName(migration: Migration) =
+        if (migration.gitlabProject.isEmpty()) migration.svnGroup else migration.gitlabProject.split("/").last()
+}
+
+@Component
+open class ArtifactoryUploadTarget(private val applicationProperties: ApplicationProperties,
+                                   private val artifactoryAdmin: ArtifactoryAdmin) : UploadTarget {
+
+    override val name = "artifactory"
+    override val step = StepEnum.UPLOAD_TO_ARTIFACTORY
+
+    override fun isEnabled(migration: Migration) = applicationProperties.artifactory.enabled && migration.uploadType == name
+
+    override fun pathOf(workUnit: WorkUnit, version: String, file: UploadFile) =
+        artifactoryAdmin.artifactPath(file.fileName, workUnit.migration.gitlabGroup, artifactId(workUnit.migration), version)
+
+    // Identical content is deployed by checksum
+    override fun upload(workUnit: WorkUnit, version: String, file: UploadFile, linkedTo: String?) =
+        artifactoryAdmin.uploadArtifact(file.path.toFile(), workUnit.migration.gitlabGroup, artifactId(workUnit.migration), version, file.sha1)
+
+    override fun canLink() = true
+
+    private fun artifactId(migration: Migration) = if (migration.gitlabProject.isEmpty()) migration.svnGroup else migration.gitlabProject
+}
+
+@Component
+open class NexusUploadTarget(private val applicationProperties: ApplicationProperties,
+                             private val rateLimiter: RateLimiter,
+                             private val uploadClient: StreamingUploadClient) : UploadTarget {
+
+    override val name = "nexus"
+    override val step = StepEnum.UPLOAD_TO_NEXUS
+
+    override fun isEnabled(migration: Migration) = applicationProperties.nexus.enabled && migration.uploadType == name
+
+    override fun pathOf(workUnit: WorkUnit, version: String, file: UploadFile) =
+        "${workUnit.migration.gitlabGroup}/${projectName(workUnit.migration)}/$version/${file.fileName}"
+
+    override fun upload(workUnit: WorkUnit, version: String, file: UploadFile, linkedTo: String?): TransferResult {
+        val url = nexusFileUrl(applicationProperties.nexus.url, applicationProperties.nexus.repository,
+            workUnit.migration.gitlabGroup, projectName(workUnit.migration), version, file.fileName)
+        val headers = mapOf(basicAuth(applicationProperties.nexus.user, applicationProperties.nexus.password), "X-Checksum-Sha1" to file.sha1)
+        return rateLimiter.call(endpointOf(applicationProperties.nexus.url), 0, false, { r: TransferResult -> isThrottled(r.status) }) {
+            uploadClient.put(url, file.path.toFile(), headers)
+        }
+    }
+
+    private fun projectName(migration: Migration) = if (migration.gitlabProject.isEmpty()) migration.svnGroup else migration.gitlabProject
+}
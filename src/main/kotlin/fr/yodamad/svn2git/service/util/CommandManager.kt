@@ -9,14 +9,40 @@ class CommandManager(val migration: Migration) {
      * This is set to true when the svn clone step (and svn cleanup) has finished.
      */
     var isReexecutable = false
-    // The trace of the commands executed in the current thread
+    // The trace of the commands executed for the migration, possibly from several threads
     var commandLog = LinkedHashMap<String, String>()
     /**
      * Object tracing commandError
      */
     var commandError: CommandError = CommandError()
-    val isFirstAttemptMigration: Boolean
-        get() = StringUtils.isBlank(migration.workingDirectory)
+    /**
+     * Environment variables added to each command (private git environment of the migration)
+     */
+    var environment: Map<String, String> = emptyMap()
+    /**
+     * Evaluated once as workingDirectory is updated during the migration
+     */
+    val isFirstAttemptMigration: Boolean = StringUtils.isBlank(migration.workingDirectory)
+    /**
+     * This is set to true when migration is resumed from its checkpoint in its previous workspace
+     */
+    var isResumed = false
+    /**
+     * Maximum duration of each command, 0 for no limit
+     */
+    var commandTimeoutMillis = 0L
+    /**
+     * Revisions requested per SVN log by git svn, null for git svn default
+     */
+    var svnLogWindowSize: Int? = null
+    /**
+     * Url of the local SVN mirror to clone from, null to clone from remote server
+     */
+    var svnMirrorUrl: String? = null
+    /**
+     * SVN folders ignored by git svn for this execution after analysis, in addition to the ones of user mappings
+     */
+    var autoIgnoredPaths: List<String> = emptyList()
     val workingDirectoryPath: String
         get() = migration.workingDirectory
 
@@ -26,6 +52,7 @@ class CommandManager(val migration: Migration) {
      * @param directory
      * @param securedCommandToPrint
      */
+    @Synchronized
     fun addSuccessfulCommand(directory: String, securedCommandToPrint: String) {
         commandLog[commandLog.size.toString() + "_" + directory] = securedCommandToPrint
     }
@@ -33,6 +60,7 @@ class CommandManager(val migration: Migration) {
     /**
      * Add failed command to trace
      */
+    @Synchronized
     fun addFailedCommand(directory: String, securedCommandToPrint: String, stderr: String) {
         // commandError not persisted for the moment
         commandError.directory = directory
@@ -1,5 +1,6 @@
 package fr.yodamad.svn2git.service.util
 
+import fr.yodamad.svn2git.data.RefUpdate
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
@@ -12,13 +13,14 @@ import fr.yodamad.svn2git.service.HistoryManager
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Service
 import java.io.IOException
-import java.util.function.Consumer
 
 @Service
 open class GitBranchManager(val gitManager: GitManager,
                             val historyMgr: HistoryManager,
                             val gitCommandManager: GitCommandManager,
-                            val repoFormatter: GitRepositoryFormatter) {
+                            val repoFormatter: GitRepositoryFormatter,
+                            val worktreeManager: GitWorktreeManager,
+                            val pushManager: GitPushManager) {
 
     private val LOG = LoggerFactory.getLogger(GitBranchManager::class.java)
     private val FAILED_TO_PUSH_BRANCH = "Failed to push branch"
@@ -43,7 +45,7 @@ open class GitBranchManager(val gitManager: GitManager,
         }
 
         try {
-            execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f -b \"$branchName\" \"$branch\"")
+            execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f -B \"$branchName\" \"$branch\"")
         } catch (iEx: IOException) {
             LOG.error(FAILED_TO_PUSH_BRANCH, iEx)
             historyMgr.endStep(history, StatusEnum.FAILED, iEx.message)
@@ -56,7 +58,7 @@ open class GitBranchManager(val gitManager: GitManager,
         if (workUnit.migration.svnHistory == "all") {
             try {
                 gitManager.addRemote(workUnit, true)
-                execCommand(workUnit.commandManager, workUnit.directory, "$GIT_PUSH --set-upstream origin \"$branchName\"")
+                gitCommandManager.push(workUnit, "$GIT_PUSH ${upstream(workUnit)} origin \"$branchName\"")
                 historyMgr.endStep(history, StatusEnum.DONE)
             } catch (iEx: IOException) {
                 LOG.error(FAILED_TO_PUSH_BRANCH, iEx)
@@ -73,6 +75,51 @@ open class GitBranchManager(val gitManager: GitManager,
         return repoFormatter.applyMapping(workUnit, branch)
     }
 
+    /**
+     * Push a branch directly from its svn ref, or a snapshot of it if history is not kept, without checking it out.
+     * Only possible when branch has no mappings to apply.
+     *
+     * @param workUnit Current work unit
+     * @param branch   Branch to migrate
+     */
+    @Throws(RuntimeException::class)
+    open fun pushBranchRef(workUnit: WorkUnit, branch: String): Boolean {
+        // Don't push branch that is used as new master
+        val update = branchUpdate(workUnit, branch) ?: return true
+
+        val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_PUSH, update.name)
+        try {
+            gitManager.addRemote(workUnit, true)
+            gitCommandManager.push(workUnit, "$GIT_PUSH origin \"${update.refspec()}\"")
+            historyMgr.endStep(history, StatusEnum.DONE)
+        } catch (iEx: IOException) {
+            LOG.error(FAILED_TO_PUSH_BRANCH, iEx)
+            historyMgr.endStep(history, StatusEnum.FAILED, iEx.message)
+        } catch (iEx: InterruptedException) {
+            LOG.error(FAILED_TO_PUSH_BRANCH, iEx)
+            historyMgr.endStep(history, StatusEnum.FAILED, iEx.message)
+        }
+        return false
+    }
+
+    /**
+     * Remote update of a branch pushed from its svn ref (or a snapshot of it)
+     *
+     * @param workUnit Current work unit
+     * @param branch   Branch to migrate
+     * @return update to push, null if branch is used as new master
+     */
+    private fun branchUpdate(workUnit: WorkUnit, branch: String): RefUpdate? {
+        val branchName = branch.replaceFirst("refs/remotes/origin/".toRegex(), "")
+            .replaceFirst("origin/".toRegex(), "").gitFormat()
+        LOG.debug("Branch $branchName")
+        if (workUnit.migration.trunk != null && workUnit.migration.trunk != "trunk" && workUnit.migration.trunk.equals(branch.decode())) {
+            return null
+        }
+        val source = gitManager.sourceOf(workUnit, remoteRef(branch), branchName)
+        return RefUpdate(branchName, source, "refs/heads/$branchName", source != remoteRef(branch))
+    }
+
     /**
      * Manage branches extracted from SVN
      *
@@ -80,9 +127,16 @@ open class GitBranchManager(val gitManager: GitManager,
      * @param remotes
      */
     open fun manageBranches(workUnit: WorkUnit, remotes: List<String>) {
-        listBranchesOnly(remotes, workUnit.migration.trunk)?.forEach(Consumer { b: String ->
-            val warn: Boolean = pushBranch(workUnit, b)
-            gitCommandManager.sleepBeforePush(workUnit, warn)
-        })
+        val branches = listBranchesOnly(remotes, workUnit.migration.trunk) ?: return
+        if (!repoFormatter.hasMappings(workUnit)) {
+            // Nothing to change in branches, push them without checkout
+            if (pushManager.isBatched()) {
+                pushManager.pushRefs(workUnit, branches.mapNotNull { branchUpdate(workUnit, it) })
+            } else {
+                worktreeManager.publish(workUnit, branches, false) { wu, b -> pushBranchRef(wu, b) }
+            }
+        } else {
+            worktreeManager.publish(workUnit, branches) { wu, b -> pushBranch(wu, b) }
+        }
     }
 }
@@ -10,6 +10,9 @@ import fr.yodamad.svn2git.io.Shell
 import fr.yodamad.svn2git.io.Shell.isWindows
 import fr.yodamad.svn2git.service.HistoryManager
 import fr.yodamad.svn2git.service.MappingManager
+import fr.yodamad.svn2git.service.ProgressManager
+import fr.yodamad.svn2git.service.client.RateLimiter
+import fr.yodamad.svn2git.service.client.RateLimiter.Companion.endpointOf
 import org.apache.commons.lang3.StringUtils.isEmpty
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Service
@@ -23,7 +26,9 @@ import java.nio.file.attribute.PosixFilePermission.*
 @Service
 open class GitCommandManager(val historyMgr: HistoryManager,
                         val mappingMgr: MappingManager,
-                        var applicationProperties: ApplicationProperties) {
+                        var applicationProperties: ApplicationProperties,
+                        val rateLimiter: RateLimiter,
+                        val progressManager: ProgressManager) {
 
     private val LOG = LoggerFactory.getLogger(GitCommandManager::class.java)
 
@@ -39,16 +44,20 @@ open class GitCommandManager(val historyMgr: HistoryManager,
         val cloneCommand = String.format("git svn clone %s %s %s",
             formattedOrEmpty(username, "--username %s"),
             initOptions(workUnit),
-            buildSvnCompleteUrl(workUnit))
+            workUnit.commandManager.svnMirrorUrl ?: buildSvnCompleteUrl(workUnit))
 
         // replace any multiple whitespaces and return
         return cloneCommand.replace("\\s{2,}".toRegex(), " ").trim { it <= ' ' }
     }
 
     open fun initOptions(workUnit: WorkUnit) : String {
-        val svnDirectoryDeleteList: List<String> = mappingMgr.getSvnDirectoryDeleteList(workUnit.migration.id)
-        return String.format("%s %s %s %s %s %s",
+        val svnDirectoryDeleteList: List<String> = (mappingMgr.getSvnDirectoryDeleteList(workUnit.migration.id)
+            + workUnit.commandManager.autoIgnoredPaths).distinct()
+        return String.format("%s %s %s %s %s %s %s %s",
             formattedOrEmpty(workUnit.migration.svnRevision, "-r%s:HEAD"),
+            logWindowSize(workUnit),
+            // Cloning from mirror : commits reference remote server
+            if (workUnit.commandManager.svnMirrorUrl != null) "--rewrite-root=${buildSvnCompleteUrl(workUnit)}" else EMPTY,
             setTrunk(workUnit),
             setSvnElement("branches", workUnit.migration.branches, workUnit),
             setSvnElement("tags", workUnit.migration.tags, workUnit),
@@ -100,6 +109,12 @@ open class GitCommandManager(val historyMgr: HistoryManager,
 
     }
 
+    /**
+     * Set git svn log window size, when tuned for the migration
+     */
+    open fun logWindowSize(workUnit: WorkUnit) =
+        formattedOrEmpty(workUnit.commandManager.svnLogWindowSize?.toString(), "--log-window-size=%s")
+
     /**
      * Set trunk information
      */
@@ -117,14 +132,14 @@ open class GitCommandManager(val historyMgr: HistoryManager,
     }
 
     /**
-     * Build command to add remote
+     * Build url of GitLab remote
      *
      * @param workUnit Current work unit
      * @param project  Current project
      * @param safeMode safe mode for logs
-     * @return
+     * @return url, with credentials hidden in safe mode
      */
-    open fun buildRemoteCommand(workUnit: WorkUnit, project: String?, safeMode: Boolean): String? {
+    open fun remoteUrl(workUnit: WorkUnit, project: String?, safeMode: Boolean): String {
         var project = project
         if (isEmpty(project)) {
             project = when {
@@ -134,21 +149,30 @@ open class GitCommandManager(val historyMgr: HistoryManager,
             }
         }
         val uri = URI.create(workUnit.migration.gitlabUrl)
-        return "git remote add origin ${uri.scheme}://${getAccount(workUnit)}:${safeString(workUnit, safeMode)}@${uri.authority}/${workUnit.migration.gitlabGroup}/${project}.git"
+        return "${uri.scheme}://${getAccount(workUnit)}:${safeString(workUnit, safeMode)}@${uri.authority}/${workUnit.migration.gitlabGroup}/${project}.git"
     }
 
-    open fun sleepBeforePush(workUnit: WorkUnit, warn: Boolean) {
+    open fun trackWarning(workUnit: WorkUnit, warn: Boolean) {
         workUnit.warnings.set(workUnit.warnings.get() || warn)
-        if (applicationProperties.gitlab.gitPushPauseMilliSeconds > 0) {
-            try {
-                LOG.info(String.format("Waiting gitPushPauseMilliSeconds:%s", applicationProperties.gitlab.gitPushPauseMilliSeconds))
-                Thread.sleep(applicationProperties.gitlab.gitPushPauseMilliSeconds)
-            } catch (e: InterruptedException) {
-                Thread.currentThread().interrupt()
-                throw RuntimeException(e)
+    }
+
+    /**
+     * Push to GitLab, at the rate allowed by the server. Progress of git push is reported to migration progress.
+     *
+     * @param workUnit Current work unit
+     * @param command  Push command
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    open fun push(workUnit: WorkUnit, command: String): Int =
+        rateLimiter.call(endpointOf(workUnit.migration.gitlabUrl), applicationProperties.gitlab.gitPushPauseMilliSeconds, false) {
+            if (command.startsWith("$GIT_PUSH ")) {
+                // Progress is only reported by git push when attached to a terminal, unless forced
+                Shell.execCommand(workUnit.commandManager, workUnit.directory, command.replaceFirst(GIT_PUSH, "$GIT_PUSH --progress"), command,
+                    onOutput = progressManager.pushListener(workUnit.migration))
+            } else {
+                Shell.execCommand(workUnit.commandManager, workUnit.directory, command)
             }
         }
-    }
 
     @Throws(IOException::class, InterruptedException::class)
     open fun logGitConfig(workUnit: WorkUnit) {
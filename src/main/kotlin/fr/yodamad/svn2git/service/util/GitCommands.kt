@@ -4,6 +4,8 @@ import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.functions.encode
 import fr.yodamad.svn2git.functions.gitFormat
 import fr.yodamad.svn2git.io.Shell.execCommand
+import fr.yodamad.svn2git.io.Shell.execForOutput
+import java.io.IOException
 
 // Keywords
 const val GIT_PUSH = "git push"
@@ -12,10 +14,20 @@ const val CONFIG = "config"
 const val RESET = "reset"
 const val BRANCH = "branch"
 const val CHECKOUT = "checkout"
+const val WORKTREE = "worktree"
+
+/** Folder of worktrees in migration root. */
+const val WORKTREES = "worktrees"
+
+/** Remote of GitLab project. */
+const val ORIGIN = "origin"
 
 /** Default branch.  */
 const val MASTER = "master"
 
+/** Max number of objects per git lfs push. */
+const val LFS_PUSH_BATCH = 100
+
 fun gitCommand(command: String, flags: String? = "", target: String? = "") = "git $command $flags $target"
 
 // Branch management
@@ -23,19 +35,43 @@ fun deleteBranch(branch: String) = gitCommand(BRANCH, "-D", "\"$branch\"")
 fun renameBranch(branch: String) = gitCommand(BRANCH, "-m", "\"$branch\"")
 
 // Pull management
-fun checkoutFromOrigin(branch: String) = gitCommand(CHECKOUT, "-b", "${branch.gitFormat()} refs/remotes/origin/${branch.encode()}")
+fun checkoutFromOrigin(branch: String) = gitCommand(CHECKOUT, "-B", "${branch.gitFormat()} refs/remotes/origin/${branch.encode()}")
 fun checkout(branch: String = MASTER) = gitCommand(CHECKOUT, target = branch.encode())
 
+// Plumbing
+fun revParse(ref: String) = gitCommand("rev-parse", target = "\"$ref\"")
+fun commitTree(tree: String, message: String) = gitCommand("commit-tree", tree, "-m \"$message\"")
+fun updateRef(ref: String, commit: String) = gitCommand("update-ref", target = "\"$ref\" $commit")
+
 // Push management
 fun add(element: String) = gitCommand("add", target = element)
 fun commit(message: String) = gitCommand(COMMIT, "-m", "\"$message\"")
 fun commitAll(message: String) = gitCommand(COMMIT, "-am", "\"$message\"")
 fun push(branch: String = MASTER) = "$GIT_PUSH --set-upstream origin $branch"
+// Full name of a ref listed by git branch -r
+fun remoteRef(ref: String) = if (ref.startsWith("refs/")) ref else "refs/remotes/$ref"
+// Upstream is saved in configuration shared by worktrees, so it's not set when publishing from a worktree
+fun upstream(workUnit: WorkUnit) = if (workUnit.worktree == null) "--set-upstream" else ""
+
+// Git LFS management
+fun lfsInstall() = gitCommand("lfs install", "--skip-repo")
+fun lfsPush(oids: List<String>, batchSize: Int = LFS_PUSH_BATCH) =
+    oids.chunked(batchSize).map { gitCommand("lfs push", "--object-id", "$ORIGIN ${it.joinToString(" ")}") }
 
 // Maintenance management
 fun gc() = gitCommand("gc")
 fun resetHard(branch: String = MASTER) = gitCommand(RESET, "--hard", "origin/${branch.encode()}")
 fun resetHead() = gitCommand(RESET, "--hard", "HEAD")
+
+/**
+ * Run a git command and read the first line of its output
+ */
+@Throws(IOException::class, InterruptedException::class)
+fun readOutput(workUnit: WorkUnit, command: String): String {
+    val output = execForOutput(workUnit.commandManager, workUnit.directory, command)
+    if (output.exitCode != 0 || output.stdout.isEmpty()) throw RuntimeException(output.stderr)
+    return output.stdout[0].trim()
+}
 fun gitClean(commandManager: CommandManager, workUnit: WorkUnit) {
     try {
         execCommand(commandManager, workUnit.directory, gitCommand("reflog expire", "--expire=now --all"))
@@ -0,0 +1,97 @@
+package fr.yodamad.svn2git.service.util
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.PushResult
+import fr.yodamad.svn2git.data.RefUpdate
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum
+import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.parsePushPorcelain
+import fr.yodamad.svn2git.io.ExecResult
+import fr.yodamad.svn2git.io.Shell.execForOutput
+import fr.yodamad.svn2git.service.GitManager
+import fr.yodamad.svn2git.service.HistoryManager
+import fr.yodamad.svn2git.service.ProgressManager
+import fr.yodamad.svn2git.service.client.RateLimiter
+import fr.yodamad.svn2git.service.client.RateLimiter.Companion.endpointOf
+import fr.yodamad.svn2git.service.client.RateLimiter.Companion.isThrottled
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Service
+
+/**
+ * Push several refs in a single git push, i.e. a single connection & ref advertisement for each batch
+ */
+@Service
+open class GitPushManager(val gitManager: GitManager,
+                          val historyMgr: HistoryManager,
+                          val worktreeManager: GitWorktreeManager,
+                          val applicationProperties: ApplicationProperties,
+                          val rateLimiter: RateLimiter,
+                          val progressManager: ProgressManager) {
+
+    private val LOG = LoggerFactory.getLogger(GitPushManager::class.java)
+
+    /**
+     * @return true if refs are pushed by batches
+     */
+    open fun isBatched() = applicationProperties.publish.pushBatchSize > 1
+
+    /**
+     * Push refs by batches, retrying only refs that failed
+     *
+     * @param workUnit Current work unit
+     * @param updates  Refs to push
+     */
+    @Throws(Exception::class)
+    open fun pushRefs(workUnit: WorkUnit, updates: List<RefUpdate>) {
+        if (updates.isEmpty()) return
+        gitManager.addRemote(workUnit, true)
+        worktreeManager.publish(workUnit, updates.chunked(applicationProperties.publish.pushBatchSize), false) { wu, batch ->
+            pushBatch(wu, batch)
+        }
+    }
+
+    /**
+     * Push a batch of refs, tracing result of each ref in history
+     *
+     * @param workUnit Current work unit
+     * @param batch    Refs to push
+     * @return false as no warning can be raised
+     */
+    private fun pushBatch(workUnit: WorkUnit, batch: List<RefUpdate>): Boolean {
+        val histories = batch.associateWith { historyMgr.startStep(workUnit.migration, StepEnum.GIT_PUSH, it.name) }
+        var pending = batch
+        var results: Map<String, PushResult> = emptyMap()
+        var attempt = 0
+        while (true) {
+            results = push(workUnit, pending)
+            val (accepted, rejected) = pending.partition { results[it.target]?.accepted == true }
+            accepted.forEach { historyMgr.endStep(histories[it], StatusEnum.DONE, "${it.name} : ${results[it.target]?.summary}") }
+            pending = rejected
+            if (pending.isEmpty() || attempt++ >= applicationProperties.publish.pushRetries) break
+            LOG.warn("Retry push of ${pending.size} refs (attempt $attempt)")
+        }
+        pending.forEach { historyMgr.endStep(histories[it], StatusEnum.FAILED, "${it.name} : ${results[it.target]?.summary ?: "not pushed"}") }
+        if (pending.isNotEmpty()) throw RuntimeException("Failed to push ${pending.joinToString { it.name }}")
+        return false
+    }
+
+    /**
+     * Run git push for a batch of refs
+     *
+     * @param workUnit Current work unit
+     * @param batch    Refs to push
+     * @return result of each ref reported by git
+     */
+    private fun push(workUnit: WorkUnit, batch: List<RefUpdate>): Map<String, PushResult> {
+        val atomic = if (applicationProperties.publish.atomicPush) "--atomic" else ""
+        val refspecs = batch.joinToString(" ") { "\"${it.refspec()}\"" }
+        val output = rateLimiter.call(endpointOf(workUnit.migration.gitlabUrl), applicationProperties.gitlab.gitPushPauseMilliSeconds, false,
+            { out: ExecResult -> isThrottled(out.stderr) }) {
+            execForOutput(workUnit.commandManager, workUnit.directory, "$GIT_PUSH --porcelain --progress $atomic origin $refspecs",
+                onOutput = progressManager.pushListener(workUnit.migration))
+        }
+        if (output.exitCode != 0) LOG.warn("Push of ${batch.size} refs failed : ${output.stderr}")
+        return parsePushPorcelain(output.stdout)
+    }
+}
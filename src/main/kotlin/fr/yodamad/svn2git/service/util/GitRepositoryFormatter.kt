@@ -29,10 +29,20 @@ import java.util.stream.Collectors
 @Service
 open class GitRepositoryFormatter(val historyMgr: HistoryManager,
                                   val applicationProperties: ApplicationProperties,
-                                  val mappingRepository: MappingRepository) {
+                                  val mappingRepository: MappingRepository,
+                                  val gitCommandManager: GitCommandManager) {
 
     private val LOG = LoggerFactory.getLogger(GitRepositoryFormatter::class.java)
 
+    /**
+     * Check if some mappings have to be applied on migrated elements
+     *
+     * @param workUnit Current work unit
+     * @return true if a mapping is configured
+     */
+    open fun hasMappings(workUnit: WorkUnit): Boolean =
+        !CollectionUtils.isEmpty(mappingRepository.findByMigrationAndSvnDirectoryDelete(workUnit.migration.id, false))
+
     /**
      * Apply mappings configured
      *
@@ -68,8 +78,8 @@ open class GitRepositoryFormatter(val historyMgr: HistoryManager,
                 execCommand(workUnit.commandManager, workUnit.directory, gitCommand("add", target = "."))
                 execCommand(workUnit.commandManager, workUnit.directory, commit("Apply mappings on $branch"))
                 // git push
-                val gitCommand = "$GIT_PUSH --set-upstream origin ${branch.replace("origin/", "")}"
-                execCommand(workUnit.commandManager, workUnit.directory, gitCommand)
+                val gitCommand = "$GIT_PUSH ${upstream(workUnit)} origin ${branch.replace("origin/", "")}"
+                gitCommandManager.push(workUnit, gitCommand)
                 historyMgr.endStep(history, StatusEnum.DONE)
             } catch (iEx: IOException) {
                 historyMgr.endStep(history, StatusEnum.FAILED, iEx.message)
@@ -222,6 +232,7 @@ open class GitRepositoryFormatter(val historyMgr: HistoryManager,
      * @param branch   Current branch
      */
     open fun mv(workUnit: WorkUnit, svnDir: String, gitDir: String, branch: String, traceStep: Boolean): StatusEnum? {
+        // Local operation : only a fixed pause, server rate limits don't apply
         try {
             val gitMvPauseMilliSeconds: Long = applicationProperties.getGitlab().getGitMvPauseMilliSeconds()
             if (gitMvPauseMilliSeconds > 0) {
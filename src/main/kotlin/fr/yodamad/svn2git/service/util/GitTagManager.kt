@@ -1,13 +1,17 @@
 package fr.yodamad.svn2git.service.util
 
+import fr.yodamad.svn2git.data.RefUpdate
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.functions.isEmptyTree
 import fr.yodamad.svn2git.functions.isFileInFolder
+import fr.yodamad.svn2git.functions.listEmptyTrees
 import fr.yodamad.svn2git.functions.listTagsOnly
 import fr.yodamad.svn2git.io.Shell.execCommand
 import fr.yodamad.svn2git.service.GitManager
 import fr.yodamad.svn2git.service.HistoryManager
+import fr.yodamad.svn2git.service.git.GitBackend
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Service
 import java.io.IOException
@@ -15,7 +19,11 @@ import java.io.IOException
 @Service
 open class GitTagManager(val gitManager: GitManager,
                          private val gitCommandManager: GitCommandManager,
-                         val historyMgr: HistoryManager) {
+                         val historyMgr: HistoryManager,
+                         val worktreeManager: GitWorktreeManager,
+                         val repoFormatter: GitRepositoryFormatter,
+                         val pushManager: GitPushManager,
+                         val gitBackend: GitBackend) {
 
     private val LOG = LoggerFactory.getLogger(GitTagManager::class.java)
     private val FAILED_TO_PUSH_TAG = "Failed to push tag"
@@ -27,14 +35,79 @@ open class GitTagManager(val gitManager: GitManager,
      * @param remotes
      */
     open fun manageTags(workUnit: WorkUnit, remotes: List<String>) {
-        listTagsOnly(remotes)?.stream()?.filter {
+        val tags = listTagsOnly(remotes)?.filter {
             t -> workUnit.migration.tagsToMigrate == null || workUnit.migration.tagsToMigrate.split(",").any { a -> t.endsWith(a) }
-        }?.forEach { t: String ->
-            val warn: Boolean = pushTag(workUnit, t)
-            gitCommandManager.sleepBeforePush(workUnit, warn)
+        } ?: return
+        if (!repoFormatter.hasMappings(workUnit)) {
+            // Nothing to change in tags, push them without checkout
+            if (pushManager.isBatched()) {
+                pushTagRefs(workUnit, tags)
+            } else {
+                worktreeManager.publish(workUnit, tags, false) { wu, t -> pushTagRef(wu, t) }
+            }
+        } else {
+            worktreeManager.publish(workUnit, tags) { wu, t -> pushTag(wu, t) }
         }
     }
 
+    /**
+     * Push tags by batches directly from their svn refs, ignoring the empty ones
+     *
+     * @param workUnit Current work unit
+     * @param tags     Tags to migrate
+     */
+    private fun pushTagRefs(workUnit: WorkUnit, tags: List<String>) {
+        val emptyTrees = listEmptyTrees(workUnit, remoteRef(ORIGIN_TAGS))
+        val (empty, updates) = tags.partition { emptyTrees.contains(remoteRef(it)) }
+        empty.forEach {
+            val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_PUSH, it)
+            historyMgr.endStep(history, StatusEnum.IGNORED, "Ignoring Tag: $it : Because there are no files to commit.")
+        }
+        pushManager.pushRefs(workUnit, updates.map { tagUpdate(workUnit, it) })
+    }
+
+    /**
+     * Remote update of a tag pushed from its svn ref (or a snapshot of it)
+     *
+     * @param workUnit Current work unit
+     * @param tag      Tag to migrate
+     */
+    private fun tagUpdate(workUnit: WorkUnit, tag: String): RefUpdate {
+        val tagName = tag.replaceFirst(ORIGIN_TAGS.toRegex(), "")
+        val source = gitManager.sourceOf(workUnit, remoteRef(tag), tagName)
+        return RefUpdate(tag, source, "refs/tags/$tagName", source != remoteRef(tag))
+    }
+
+    /**
+     * Push a tag directly from its svn ref, or a snapshot of it if history is not kept, without checking it out
+     * nor creating a local tag. Only possible when tag has no mappings to apply.
+     *
+     * @param workUnit Current work unit
+     * @param tag      Tag to migrate
+     */
+    open fun pushTagRef(workUnit: WorkUnit, tag: String): Boolean {
+        val history = historyMgr.startStep(workUnit.migration, StepEnum.GIT_PUSH, tag)
+        try {
+            LOG.debug("Tag $tag")
+
+            // If this tag does not contain any files we will ignore it and add warning to logs.
+            if (isEmptyTree(workUnit, remoteRef(tag))) {
+                historyMgr.endStep(history, StatusEnum.IGNORED, "Ignoring Tag: $tag : Because there are no files to commit.")
+            } else {
+                gitManager.addRemote(workUnit, false)
+                gitCommandManager.push(workUnit, "$GIT_PUSH origin \"${tagUpdate(workUnit, tag).refspec()}\"")
+                historyMgr.endStep(history, StatusEnum.DONE)
+            }
+        } catch (gitEx: IOException) {
+            LOG.error(FAILED_TO_PUSH_TAG, gitEx)
+            historyMgr.endStep(history, StatusEnum.FAILED, gitEx.message)
+        } catch (gitEx: InterruptedException) {
+            LOG.error(FAILED_TO_PUSH_TAG, gitEx)
+            historyMgr.endStep(history, StatusEnum.FAILED, gitEx.message)
+        }
+        return false
+    }
+
     /**
      * Push a tag
      *
@@ -52,39 +125,44 @@ open class GitTagManager(val gitManager: GitManager,
             // determine noHistory flag i.e was all selected or not
             val noHistory = workUnit.migration.svnHistory != "all"
 
+            // branches are shared by worktrees, so each one uses its own temporary branch
+            val tmpTag = workUnit.worktree?.let { "tmp_tag_$it" } ?: "tmp_tag"
+            // master can only be checked out in migration directory
+            val leaveTmpTag = if (workUnit.worktree == null) "git checkout -f master" else "git checkout -f --detach"
+
             // checkout a new branch using local tagName and remote tag name
-            execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f -b tmp_tag \"$tag\"")
+            execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f -B $tmpTag \"$tag\"")
 
             // If this tag does not contain any files we will ignore it and add warning to logs.
             if (!isFileInFolder(workUnit.directory)) {
-                // Switch over to master
-                execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f master")
+                // Switch over to master (or detach in a worktree)
+                execCommand(workUnit.commandManager, workUnit.directory, leaveTmpTag)
 
                 // Now we can delete the branch tmp_tag
-                execCommand(workUnit.commandManager, workUnit.directory, "git branch -D tmp_tag")
+                gitBackend.deleteBranch(workUnit, tmpTag)
                 historyMgr.endStep(history, StatusEnum.IGNORED, "Ignoring Tag: $tag : Because there are no files to commit.")
             } else {
 
-                // creates a temporary orphan branch and renames it to tmp_tag
+                // replaces tmp_tag by a commit without history
                 if (noHistory) {
-                    gitManager.removeHistory(workUnit, "tmp_tag", true, history)
+                    gitManager.removeHistory(workUnit, tmpTag, true, history)
                 }
 
-                // Checkout master.
-                execCommand(workUnit.commandManager, workUnit.directory, "git checkout -f master")
+                // Checkout master (or detach in a worktree).
+                execCommand(workUnit.commandManager, workUnit.directory, leaveTmpTag)
 
                 // create tag from tmp_tag branch.
-                execCommand(workUnit.commandManager, workUnit.directory, "git tag \"$tagName\" tmp_tag")
+                gitBackend.tag(workUnit, tagName, tmpTag)
 
                 // add remote to master
                 gitManager.addRemote(workUnit, false)
 
                 // push the tag to remote
                 // crashes if branch with same name so prefixing with refs/tags/
-                execCommand(workUnit.commandManager, workUnit.directory, "git push -u origin \"refs/tags/$tagName\"")
+                gitCommandManager.push(workUnit, "git push -u origin \"refs/tags/$tagName\"")
 
                 // delete the tmp_tag branch now that the tag has been created.
-                execCommand(workUnit.commandManager, workUnit.directory, "git branch -D tmp_tag")
+                gitBackend.deleteBranch(workUnit, tmpTag)
                 historyMgr.endStep(history, StatusEnum.DONE)
             }
         } catch (gitEx: IOException) {
@@ -0,0 +1,118 @@
+package fr.yodamad.svn2git.service.util
+
+import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.WorkUnit
+import fr.yodamad.svn2git.io.Shell.execCommand
+import fr.yodamad.svn2git.service.GitManager
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
+import org.springframework.stereotype.Service
+import java.io.File
+import java.nio.file.Paths
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.math.min
+
+/**
+ * Publish refs concurrently from a pool of git worktrees sharing the object store of the migration.
+ * Each worktree has its own index & working files, so mappings & pushes of several refs can run at the same time.
+ */
+@Service
+open class GitWorktreeManager(val gitManager: GitManager,
+                              val gitCommandManager: GitCommandManager,
+                              val applicationProperties: ApplicationProperties,
+                              @Qualifier("publishExecutor") val publishExecutor: ThreadPoolTaskExecutor) {
+
+    private val LOG = LoggerFactory.getLogger(GitWorktreeManager::class.java)
+
+    /**
+     * Publish refs, sequentially from migration directory or concurrently if configured
+     *
+     * @param workUnit      Current work unit
+     * @param refs          Refs to publish
+     * @param withWorktrees Whether publication needs a working tree, otherwise refs are published concurrently from migration directory
+     * @param publish       Publication of a ref from a work unit, returning true if some warnings occured
+     */
+    @Throws(Exception::class)
+    open fun <T> publish(workUnit: WorkUnit, refs: List<T>, withWorktrees: Boolean = true, publish: (WorkUnit, T) -> Boolean) {
+        val workers = min(applicationProperties.publish.parallelWorkers, refs.size)
+        if (workers <= 1) {
+            refs.forEach { gitCommandManager.trackWarning(workUnit, publish(workUnit, it)) }
+            return
+        }
+
+        // Workers share configuration of repository, so remote is added once before they start
+        gitManager.addRemote(workUnit, true)
+        val queue = ConcurrentLinkedQueue(refs)
+        val failure = AtomicReference<Throwable>()
+        try {
+            if (withWorktrees) removeWorktrees(workUnit)
+            val units = (1..workers).map { if (withWorktrees) addWorktree(workUnit, it) else workUnit }
+            LOG.info("Publish ${refs.size} refs with $workers workers")
+            val futures = units.map { unit ->
+                CompletableFuture.runAsync({
+                    var ref = queue.poll()
+                    while (ref != null && failure.get() == null) {
+                        try {
+                            gitCommandManager.trackWarning(workUnit, publish(unit, ref))
+                        } catch (exc: Throwable) {
+                            failure.compareAndSet(null, exc)
+                        }
+                        ref = queue.poll()
+                    }
+                }, publishExecutor)
+            }
+            try {
+                CompletableFuture.allOf(*futures.toTypedArray()).get()
+            } catch (iEx: InterruptedException) {
+                // Stop workers before leaving
+                failure.compareAndSet(null, iEx)
+                futures.forEach { it.handle { _, _ -> null }.join() }
+            } catch (eEx: ExecutionException) {
+                failure.compareAndSet(null, eEx.cause ?: eEx)
+            }
+        } finally {
+            if (withWorktrees) removeWorktrees(workUnit)
+        }
+        failure.get()?.let { throw it }
+    }
+
+    /**
+     * Add a detached worktree, without checkout as each ref is checked out before being published
+     *
+     * @param workUnit Current work unit
+     * @param index    Index of worktree in pool
+     * @return work unit of the worktree
+     */
+    private fun addWorktree(workUnit: WorkUnit, index: Int): WorkUnit {
+        val name = "wt$index"
+        val path = Paths.get(workUnit.root, WORKTREES, name).toString()
+        execCommand(workUnit.commandManager, workUnit.directory, gitCommand(WORKTREE, "add --detach --no-checkout", "\"$path\""))
+        return workUnit.copy(directory = path, worktree = name)
+    }
+
+    /**
+     * Remove worktrees of the migration, including the ones left by an interrupted execution
+     *
+     * @param workUnit Current work unit
+     */
+    private fun removeWorktrees(workUnit: WorkUnit) {
+        val folder = Paths.get(workUnit.root, WORKTREES).toFile()
+        folder.listFiles()?.forEach { worktree: File ->
+            try {
+                execCommand(workUnit.commandManager, workUnit.directory, gitCommand(WORKTREE, "remove --force", "\"${worktree.path}\""))
+            } catch (exc: Exception) {
+                LOG.debug("Worktree ${worktree.path} not registered, delete it")
+            }
+        }
+        folder.deleteRecursively()
+        try {
+            execCommand(workUnit.commandManager, workUnit.directory, gitCommand(WORKTREE, "prune"))
+        } catch (exc: Exception) {
+            LOG.warn("Failed to prune worktrees of ${workUnit.directory}", exc)
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package fr.yodamad.svn2git.service.util
 
+import com.fasterxml.jackson.databind.ObjectMapper
 import fr.yodamad.svn2git.config.ApplicationProperties
 import fr.yodamad.svn2git.config.Constants
+import fr.yodamad.svn2git.data.CleanedFiles
 import fr.yodamad.svn2git.data.WorkUnit
 import fr.yodamad.svn2git.domain.enumeration.StatusEnum
 import fr.yodamad.svn2git.domain.enumeration.StepEnum
+import fr.yodamad.svn2git.domain.enumeration.SvnLayout
 import fr.yodamad.svn2git.io.Shell
+import fr.yodamad.svn2git.service.CleanedFilesManager
 import fr.yodamad.svn2git.service.HistoryManager
 import org.apache.commons.lang3.StringUtils
 import org.slf4j.LoggerFactory
@@ -75,6 +79,8 @@ open class IOManager(val historyMgr: HistoryManager,
             (if (workUnit.commandManager.isFirstAttemptMigration) "" else Constants.REEXECUTION_SKIPPING) +
                 "Copying Root Folder")
         if (workUnit.commandManager.isFirstAttemptMigration) {
+            // Copy may have been interrupted before
+            if (workUnit.commandManager.isResumed) FileSystemUtils.deleteRecursively(File("${workUnit.root}_copy"))
             val gitCommand: String = if (Shell.isWindows) {
                 "$WIN_COPY_DIR ${workUnit.root} ${workUnit.root}_copy"
             } else {
@@ -99,6 +105,9 @@ open class IOManager(val historyMgr: HistoryManager,
                 (if (workUnit.commandManager.isFirstAttemptMigration) "" else Constants.REEXECUTION_SKIPPING) +
                     "Initialising Root Directory from Copy in context of migration reexecution.")
 
+            // Restoration may have been interrupted before
+            if (workUnit.commandManager.isResumed) FileSystemUtils.deleteRecursively(File(workUnit.root))
+
             // The clean copy folder is used to reinitialise the workUnit.root Folder
             val gitCommand : String = if (Shell.isWindows) {
                 "$WIN_COPY_DIR ${workUnit.root}_copy ${workUnit.root}"
@@ -113,4 +122,40 @@ open class IOManager(val historyMgr: HistoryManager,
             historyMgr.endStep(history, StatusEnum.DONE)
         }
     }
+
+    /**
+     * Save cleaned files report in workspace so that it's available if migration is resumed
+     *
+     * @param workUnit            Current work unit
+     * @param cleanedFilesManager Report to save
+     */
+    @Throws(IOException::class)
+    open fun saveCleanedFiles(workUnit: WorkUnit, cleanedFilesManager: CleanedFilesManager) {
+        ObjectMapper().writeValue(File(workUnit.root, CLEANED_FILES_REPORT), cleanedFilesManager.cleanedReportMap)
+    }
+
+    /**
+     * Load cleaned files report previously saved in workspace
+     *
+     * @param workUnit Current work unit
+     * @return report
+     */
+    @Throws(IOException::class)
+    open fun loadCleanedFiles(workUnit: WorkUnit): CleanedFilesManager {
+        val cleanedFilesMap: MutableMap<String, CleanedFiles> = LinkedHashMap()
+        ObjectMapper().readTree(File(workUnit.root, CLEANED_FILES_REPORT)).fields().forEach { (location, node) ->
+            val cleanedFiles = CleanedFiles(node["svnLocation"].asText(), SvnLayout.valueOf(node["svnLayout"].asText()))
+            cleanedFiles.fileCountBeforeClean = node["fileCountBeforeClean"].asInt()
+            cleanedFiles.deletedFileCountAfterClean = node["deletedFileCountAfterClean"].asInt()
+            cleanedFiles.fileCountAfterClean = node["fileCountAfterClean"].asInt()
+            cleanedFiles.fileSizeTotalBeforeClean = node["fileSizeTotalBeforeClean"].asLong()
+            cleanedFiles.fileSizeTotalAfterClean = node["fileSizeTotalAfterClean"].asLong()
+            cleanedFilesMap[location] = cleanedFiles
+        }
+        return CleanedFilesManager(cleanedFilesMap)
+    }
+
+    companion object {
+        private const val CLEANED_FILES_REPORT = "cleaned-files.json"
+    }
 }
@@ -23,3 +23,5 @@ const val MAPPINGS = "/mappings"
 const val HISTORY = "/migration-histories"
 
 const val REMOVED_FILES = "/migration-removed-files"
+
+const val SCHEDULER = "/scheduler"
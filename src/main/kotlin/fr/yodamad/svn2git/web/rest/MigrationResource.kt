@@ -3,6 +3,7 @@ package fr.yodamad.svn2git.web.rest
 import com.codahale.metrics.annotation.Timed
 import com.fasterxml.jackson.annotation.JsonView
 import fr.yodamad.svn2git.config.ApplicationProperties
+import fr.yodamad.svn2git.data.ProgressSnapshot
 import fr.yodamad.svn2git.domain.Mapping
 import fr.yodamad.svn2git.domain.Migration
 import fr.yodamad.svn2git.domain.MigrationHistory
@@ -11,6 +12,7 @@ import fr.yodamad.svn2git.repository.MigrationRepository
 import fr.yodamad.svn2git.service.MappingService
 import fr.yodamad.svn2git.service.MigrationHistoryService
 import fr.yodamad.svn2git.service.MigrationManager
+import fr.yodamad.svn2git.service.ProgressManager
 import fr.yodamad.svn2git.web.rest.errors.BadRequestAlertException
 import fr.yodamad.svn2git.web.rest.util.HeaderUtil
 import fr.yodamad.svn2git.web.rest.util.PaginationUtil
@@ -27,6 +29,7 @@ import java.net.URI
 import java.net.URISyntaxException
 import java.time.Instant
 import java.time.LocalDate
+import java.util.Optional
 import javax.validation.Valid
 
 /**
@@ -39,6 +42,7 @@ open class MigrationResource(val migrationRepository: MigrationRepository,
                              val migrationHistoryService: MigrationHistoryService,
                              val mappingService: MappingService,
                              val gitlabResource: GitlabResource,
+                             val progressManager: ProgressManager,
                              val applicationProperties: ApplicationProperties) {
 
     private val log = LoggerFactory.getLogger(MigrationResource::class.java)
@@ -64,7 +68,8 @@ open class MigrationResource(val migrationRepository: MigrationRepository,
         migration.createdTimestamp = Instant.now()
         migration.status = StatusEnum.WAITING
         val result: Migration = init(migration)
-        migrationManager.startMigration(result.id, false)
+        // In worker mode, migration is claimed by a node polling the database
+        if (!applicationProperties.worker.enabled) migrationManager.startMigration(result.id, false)
         return ResponseEntity.created(URI("/api/migrations/" + result.id))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.id.toString()))
             .body(migration)
@@ -91,8 +96,10 @@ open class MigrationResource(val migrationRepository: MigrationRepository,
         }
         log.debug("Create a new migration to retry")
         mig.id = null
+        // In worker mode, migration is claimed by a node polling the database
+        if (applicationProperties.worker.enabled) mig.status = StatusEnum.WAITING
         val result = init(mig)
-        migrationManager.startMigration(result.id, true)
+        if (!applicationProperties.worker.enabled) migrationManager.startMigration(result.id, true)
         return ResponseEntity.created(URI("/api/migrations/" + result.id))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.id.toString()))
             .body(id)
@@ -262,6 +269,20 @@ open class MigrationResource(val migrationRepository: MigrationRepository,
         return ResponseEntity(mappings, null, HttpStatus.OK)
     }
 
+    /**
+     * GET  /migrations/:id/progress : get the live clone & push progress of "id" migration.
+     * Progress is only known by the node running the migration, others only have samples in histories.
+     *
+     * @param id the id of the migration
+     * @return the ResponseEntity with status 200 (OK) and with body the progress, or with status 404 (Not Found) if not running here
+     */
+    @Timed
+    @GetMapping("/{id}/progress")
+    open fun getMigrationProgress(@PathVariable id: Long): ResponseEntity<ProgressSnapshot>? {
+        log.debug("REST request to get progress of Migration : {}", id)
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(progressManager.snapshot(id)))
+    }
+
     /**
      * DELETE  /migrations/:id : delete the "id" migration.
      *
@@ -0,0 +1,52 @@
+package fr.yodamad.svn2git.web.rest
+
+import com.codahale.metrics.annotation.Timed
+import fr.yodamad.svn2git.data.CapacityClass
+import fr.yodamad.svn2git.service.MigrationScheduler
+import fr.yodamad.svn2git.service.SlotStatus
+import fr.yodamad.svn2git.web.rest.errors.BadRequestAlertException
+import org.slf4j.LoggerFactory
+import org.springframework.http.ResponseEntity
+import org.springframework.web.bind.annotation.*
+
+/**
+ * REST controller to follow and tune the migration scheduler.
+ */
+@RestController
+@RequestMapping("$API$SCHEDULER")
+open class SchedulerResource(val scheduler: MigrationScheduler) {
+
+    private val log = LoggerFactory.getLogger(SchedulerResource::class.java)
+
+    private val ENTITY_NAME = "scheduler"
+
+    /**
+     * GET  /scheduler : get limits & usage of each capacity class.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the slots status in body
+     */
+    @Timed
+    @GetMapping
+    open fun getSlots(): ResponseEntity<List<SlotStatus>> {
+        log.debug("REST request to get scheduler slots")
+        return ResponseEntity.ok(scheduler.status())
+    }
+
+    /**
+     * PUT  /scheduler/limits : update limits of some capacity classes.
+     *
+     * @param limits new limits by capacity class
+     * @return the ResponseEntity with status 200 (OK) and the updated slots status in body,
+     * or with status 400 (Bad Request) if a limit is not valid
+     */
+    @Timed
+    @PutMapping("/limits")
+    open fun updateLimits(@RequestBody limits: Map<CapacityClass, Int>): ResponseEntity<List<SlotStatus>> {
+        log.debug("REST request to update scheduler limits : {}", limits)
+        if (limits.values.any { it < 1 }) {
+            throw BadRequestAlertException("Limits must be at least 1", ENTITY_NAME, "invalidlimit")
+        }
+        limits.forEach { (capacity, limit) -> scheduler.updateLimit(capacity, limit) }
+        return ResponseEntity.ok(scheduler.status())
+    }
+}
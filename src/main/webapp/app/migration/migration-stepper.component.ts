@@ -75,6 +75,7 @@ export class MigrationStepperComponent implements OnInit {
 
     // Cleaning Section
     preserveEmptyDirs = false;
+    convertToLfs = false;
 
     // Svn selections
     svnSelection: SelectionModel<string>;
@@ -610,6 +611,7 @@ export class MigrationStepperComponent implements OnInit {
         } else {
             this.mig.emptyDirs = false;
         }
+        this.mig.lfs = this.convertToLfs;
         if (this.staticExtensions !== undefined && this.staticExtensions.length > 0) {
             const values: string[] = [];
             this.staticExtensions.forEach(ext => values.push(ext.value));
@@ -914,6 +916,13 @@ export class MigrationStepperComponent implements OnInit {
         this.preserveEmptyDirs = !this.preserveEmptyDirs;
     }
 
+    /**
+     * Cleaning section. Files with forbidden extensions are converted to Git LFS instead of being deleted. Off/false by default
+     */
+    toggleConvertToLfs() {
+        this.convertToLfs = !this.convertToLfs;
+    }
+
     /**
      * Pick CSS class according to module type : flat, classic, error.
      * @param module
@@ -46,7 +46,10 @@ export interface IMigration {
     flat?: boolean;
     uppercase?: boolean;
     cleaning?: boolean;
+    lfs?: boolean;
     uploadType?: string;
+    checkpoint?: string;
+    workspace?: string;
 }
 
 export class Migration implements IMigration {
@@ -80,8 +83,12 @@ export class Migration implements IMigration {
         public flat?: boolean,
         public uppercase?: boolean,
         public cleaning?: boolean,
-        public uploadType?: string
+        public lfs?: boolean,
+        public uploadType?: string,
+        public checkpoint?: string,
+        public workspace?: string
     ) {
         this.emptyDirs = this.emptyDirs || false;
+        this.lfs = this.lfs || false;
     }
 }
@@ -0,0 +1,127 @@
+package fr.yodamad.svn2git.repository;
+
+import fr.yodamad.svn2git.Svn2GitApp;
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.MigrationRemovedFile;
+import fr.yodamad.svn2git.domain.enumeration.Reason;
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the MigrationRemovedFileBatchWriter class.
+ *
+ * @see MigrationRemovedFileBatchWriter
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Svn2GitApp.class)
+@Transactional
+public class MigrationRemovedFileBatchWriterIntTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    @Autowired
+    private MigrationRemovedFileBatchWriter writer;
+
+    @Autowired
+    private MigrationRemovedFileRepository repository;
+
+    @Autowired
+    private MigrationRepository migrationRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private Integer batchSize;
+    private Migration migration;
+    private Migration other;
+
+    @BeforeEach
+    public void setup() {
+        batchSize = applicationProperties.work.removedFilesBatchSize;
+        applicationProperties.work.removedFilesBatchSize = BATCH_SIZE;
+        migration = migrationRepository.saveAndFlush(newMigration());
+        other = migrationRepository.saveAndFlush(newMigration());
+    }
+
+    @AfterEach
+    public void restoreBatchSize() {
+        applicationProperties.work.removedFilesBatchSize = batchSize;
+    }
+
+    @Test
+    public void testRowsAreInsertedWhenBatchIsFull() {
+        try (MigrationRemovedFileBatchWriter.Batch batch = writer.open()) {
+            batch.add(removedFile(migration, "a.jar"));
+            batch.add(removedFile(migration, "b.jar"));
+            assertThat(batch.getWritten()).isZero();
+            assertThat(repository.findAllByMigration_Id(migration.getId())).isEmpty();
+
+            batch.add(removedFile(migration, "c.jar"));
+
+            assertThat(batch.getWritten()).isEqualTo(BATCH_SIZE);
+            assertThat(repository.findAllByMigration_Id(migration.getId())).extracting(MigrationRemovedFile::getPath)
+                .containsExactlyInAnyOrder("a.jar", "b.jar", "c.jar");
+        }
+    }
+
+    @Test
+    public void testPartialBatchIsInsertedOnClose() {
+        MigrationRemovedFileBatchWriter.Batch batch = writer.open();
+        for (int i = 0; i < BATCH_SIZE + 2; i++) batch.add(removedFile(migration, "file" + i + ".jar"));
+        assertThat(batch.getWritten()).isEqualTo(BATCH_SIZE);
+
+        batch.close();
+
+        assertThat(batch.getWritten()).isEqualTo(BATCH_SIZE + 2);
+        assertThat(repository.findAllByMigration_Id(migration.getId())).hasSize(BATCH_SIZE + 2);
+    }
+
+    @Test
+    public void testRowsHaveIdsAndReferenceTheirMigration() {
+        try (MigrationRemovedFileBatchWriter.Batch batch = writer.open()) {
+            batch.add(removedFile(migration, "a.jar"));
+            batch.add(removedFile(other, "b.zip").reason(Reason.SIZE).fileSize(null));
+            batch.add(removedFile(migration, "c.jar"));
+            batch.add(removedFile(other, "d.jar"));
+        }
+
+        List<MigrationRemovedFile> files = repository.findAllByMigration_Id(migration.getId());
+        List<MigrationRemovedFile> otherFiles = repository.findAllByMigration_Id(other.getId());
+        assertThat(files).extracting(MigrationRemovedFile::getPath).containsExactlyInAnyOrder("a.jar", "c.jar");
+        assertThat(otherFiles).extracting(MigrationRemovedFile::getPath).containsExactlyInAnyOrder("b.zip", "d.jar");
+        assertThat(files).allSatisfy(file -> {
+            assertThat(file.getMigration().getId()).isEqualTo(migration.getId());
+            assertThat(file.getReason()).isEqualTo(Reason.EXTENSION);
+            assertThat(file.getFileSize()).isEqualTo(10L);
+            assertThat(file.getSvnLocation()).isEqualTo("tags/1.0");
+        });
+        assertThat(repository.findAllByMigration_IdAndReason(other.getId(), Reason.SIZE))
+            .singleElement().satisfies(file -> assertThat(file.getFileSize()).isNull());
+        // Each row gets its own id
+        assertThat(files).extracting(MigrationRemovedFile::getId).doesNotContainNull();
+        assertThat(repository.findAll()).extracting(MigrationRemovedFile::getId).doesNotHaveDuplicates();
+    }
+
+    private static Migration newMigration() {
+        return new Migration().svnGroup("group").svnProject("project").user("user").date(LocalDate.now())
+            .gitlabGroup("group").gitlabProject("project").status(StatusEnum.DONE);
+    }
+
+    private static MigrationRemovedFile removedFile(Migration migration, String path) {
+        return new MigrationRemovedFile().migration(migration).svnLocation("tags/1.0").path(path)
+            .reason(Reason.EXTENSION).fileSize(10L);
+    }
+}
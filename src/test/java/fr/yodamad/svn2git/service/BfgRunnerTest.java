@@ -0,0 +1,128 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.service.bfg.BfgReport;
+import fr.yodamad.svn2git.service.bfg.BfgRunner;
+import fr.yodamad.svn2git.service.bfg.BfgWorker;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the BfgRunner class, running rewrites in forked JVMs.
+ *
+ * @see BfgRunner
+ */
+public class BfgRunnerTest {
+
+    private static final List<String> ARGS = Arrays.asList("--strip-blobs-bigger-than", "1M");
+
+    @TempDir
+    Path directory;
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private WorkUnit workUnit;
+
+    @BeforeEach
+    public void init() {
+        applicationProperties.bfg.maxHeap = "256m";
+        applicationProperties.bfg.jvmOptions = " -XX:+UseSerialGC  -Dsvn2git.test=true ";
+        Migration migration = new Migration();
+        workUnit = new WorkUnit(migration, directory.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+    }
+
+    @Test
+    public void testCommandForksBoundedJvm() {
+        List<String> command = new BfgRunner(applicationProperties).command("/work/repo", ARGS);
+
+        assertThat(new File(command.get(0)).getName()).isIn("java", "java.exe");
+        assertThat(command.subList(1, 4)).containsExactly("-Xmx256m", "-XX:+UseSerialGC", "-Dsvn2git.test=true");
+        assertThat(command.get(4)).isEqualTo("-cp");
+        assertThat(command.subList(6, command.size()))
+            .containsExactly(BfgWorker.class.getName(), "--strip-blobs-bigger-than", "1M", "/work/repo");
+    }
+
+    @Test
+    public void testPeakHeapIsReported() throws Exception {
+        PersonIdent ident = new PersonIdent("svn2git", "svn2git@test");
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            Files.write(directory.resolve("README.md"), "readme".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("README.md").call();
+            git.commit().setMessage("readme").setAuthor(ident).setCommitter(ident).call();
+        }
+
+        BfgReport report = new BfgRunner(applicationProperties).run(workUnit, ARGS);
+
+        assertThat(report.isSuccess()).as(report.getError()).isTrue();
+        assertThat(report.getPeakHeapBytes()).isPositive();
+        // Line reporting heap is not part of BFG report
+        assertThat(report.getReport()).isNotEmpty().noneMatch(line -> line.startsWith(BfgWorker.PEAK_HEAP));
+        assertThat(report.toString()).contains("peak heap");
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testTimedOutRewriteIsKilled() throws Exception {
+        workUnit.getCommandManager().setCommandTimeoutMillis(TimeUnit.SECONDS.toMillis(2));
+        BfgRunner runner = new BfgRunner(applicationProperties) {
+            @Override
+            public List<String> command(String directory, List<String> args) {
+                List<String> command = super.command(directory, args);
+                // Same JVM options & classpath, but a rewrite that never ends
+                int main = command.indexOf(BfgWorker.class.getName());
+                List<String> sleeping = new ArrayList<>(command.subList(0, main));
+                sleeping.add(Sleeper.class.getName());
+                return sleeping;
+            }
+        };
+
+        BfgReport report = runner.run(workUnit, ARGS);
+
+        assertThat(report.getTimedOut()).isTrue();
+        assertThat(report.isSuccess()).isFalse();
+        assertThat(report.getExitCode()).isEqualTo(-1);
+        assertThat(report.getWallTimeMillis()).isLessThan(TimeUnit.SECONDS.toMillis(30));
+        assertThat(report.getPeakHeapBytes()).isNull();
+        assertThat(isDead(Long.parseLong(report.getReport().get(0).trim()))).isTrue();
+        assertThat(workUnit.getCommandManager().getCommandError().getCommand()).startsWith("bfg ");
+    }
+
+    private static boolean isDead(long pid) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(15);
+        while (System.currentTimeMillis() < deadline) {
+            if (!ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) return true;
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    /**
+     * Forked JVM printing its pid, then hanging
+     */
+    public static class Sleeper {
+        public static void main(String[] args) throws InterruptedException {
+            System.out.println(ProcessHandle.current().pid());
+            Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+        }
+    }
+}
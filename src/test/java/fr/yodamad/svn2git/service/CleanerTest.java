@@ -0,0 +1,91 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.MigrationHistory;
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum;
+import fr.yodamad.svn2git.domain.enumeration.StepEnum;
+import fr.yodamad.svn2git.repository.MigrationRemovedFileBatchWriter;
+import fr.yodamad.svn2git.repository.MigrationRemovedFileRepository;
+import fr.yodamad.svn2git.service.bfg.BfgReport;
+import fr.yodamad.svn2git.service.bfg.BfgRunner;
+import fr.yodamad.svn2git.service.git.GitBackend;
+import fr.yodamad.svn2git.service.upload.UploadPipeline;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the history rewrite of the Cleaner class.
+ *
+ * @see Cleaner
+ */
+public class CleanerTest {
+
+    @TempDir
+    Path directory;
+
+    private final HistoryManager historyMgr = mock(HistoryManager.class);
+    private final BfgRunner bfgRunner = mock(BfgRunner.class);
+    private final MigrationHistory history = new MigrationHistory();
+    private Cleaner cleaner;
+    private WorkUnit workUnit;
+
+    @BeforeEach
+    public void init() throws Exception {
+        Git.init().setDirectory(directory.toFile()).call().close();
+        when(historyMgr.startStep(any(), eq(StepEnum.GIT_CLEANING), anyString())).thenReturn(history);
+        cleaner = new Cleaner(historyMgr, mock(MigrationRemovedFileRepository.class), mock(MigrationRemovedFileBatchWriter.class),
+            new ApplicationProperties(), mock(GitBackend.class), bfgRunner, mock(UploadPipeline.class), ForkJoinPool.commonPool());
+        Migration migration = new Migration().forbiddenFileExtensions("*.jar");
+        workUnit = new WorkUnit(migration, directory.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+    }
+
+    @Test
+    public void testRewrite() throws Exception {
+        when(bfgRunner.run(any(), any())).thenReturn(new BfgReport(0, Collections.singletonList("Deleted files"), "", 10, null, false));
+
+        assertThat(cleaner.cleanHistory(workUnit)).isTrue();
+
+        verify(historyMgr).endStep(eq(history), eq(StatusEnum.DONE), anyString());
+        assertThat(workUnit.getWarnings().get()).isFalse();
+    }
+
+    @Test
+    public void testFailedRewriteEndsWithWarnings() throws Exception {
+        when(bfgRunner.run(any(), any())).thenReturn(new BfgReport(1, Collections.emptyList(), "OutOfMemoryError", 10, null, false));
+
+        assertThat(cleaner.cleanHistory(workUnit)).isFalse();
+
+        verify(historyMgr).endStep(eq(history), eq(StatusEnum.FAILED), anyString());
+        assertThat(workUnit.getWarnings().get()).isTrue();
+    }
+
+    @Test
+    public void testRewriteThatCannotStartEndsWithWarnings() throws Exception {
+        when(bfgRunner.run(any(), any())).thenThrow(new IOException("Cannot run java"));
+
+        assertThat(cleaner.cleanHistory(workUnit)).isFalse();
+
+        verify(historyMgr).endStep(eq(history), eq(StatusEnum.FAILED), eq("Cannot run java"));
+        assertThat(workUnit.getWarnings().get()).isTrue();
+    }
+}
@@ -0,0 +1,94 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.CleaningRules;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.enumeration.Reason;
+import org.junit.jupiter.api.Test;
+
+import static fr.yodamad.svn2git.functions.CleaningFunctionsKt.bfgArguments;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CleaningRules class.
+ *
+ * @see CleaningRules
+ */
+public class CleaningRulesTest {
+
+    @Test
+    public void testExtensionsMatchLowerAndUpperCase() {
+        CleaningRules rules = new CleaningRules("*.jar,*.zip", null);
+
+        assertThat(rules.isForbiddenExtension("lib/a.jar")).isTrue();
+        assertThat(rules.isForbiddenExtension("lib/A.ZIP")).isTrue();
+        assertThat(rules.isForbiddenExtension("src/Main.java")).isFalse();
+    }
+
+    @Test
+    public void testExtensionsAreTrimmed() {
+        CleaningRules rules = new CleaningRules(" *.jar , *.zip ,", null);
+
+        assertThat(rules.isForbiddenExtension("lib/a.jar")).isTrue();
+        assertThat(rules.isForbiddenExtension("lib/a.zip")).isTrue();
+        // Blank entries do not match everything
+        assertThat(rules.isForbiddenExtension("src/Main.java")).isFalse();
+    }
+
+    @Test
+    public void testGitLfsConvertsForbiddenExtensions() {
+        Migration migration = new Migration().forbiddenFileExtensions("*.jar").maxFileSize("1K");
+
+        assertThat(CleaningRules.of(migration).reasonOf("a.jar", 10)).isEqualTo(Reason.EXTENSION);
+        migration.setLfs(true);
+        assertThat(CleaningRules.of(migration).reasonOf("a.jar", 10)).isNull();
+        assertThat(CleaningRules.of(migration).reasonOf("a.txt", 4096)).isEqualTo(Reason.SIZE);
+    }
+
+    @Test
+    public void testMaxSizeUnits() {
+        assertThat(new CleaningRules(null, "500K").getMaxSize()).isEqualTo(500L * 1024);
+        assertThat(new CleaningRules(null, "10M").getMaxSize()).isEqualTo(10L * 1024 * 1024);
+        assertThat(new CleaningRules(null, "1G").getMaxSize()).isEqualTo(1024L * 1024 * 1024);
+        assertThat(new CleaningRules(null, "").getMaxSize()).isNull();
+        assertThat(new CleaningRules(null, "none").getMaxSize()).isNull();
+    }
+
+    @Test
+    public void testReasonPrefersExtension() {
+        CleaningRules rules = new CleaningRules("*.jar", "1K");
+
+        assertThat(rules.reasonOf("a.jar", 4096)).isEqualTo(Reason.EXTENSION);
+        assertThat(rules.reasonOf("a.txt", 4096)).isEqualTo(Reason.SIZE);
+        assertThat(rules.reasonOf("a.txt", 1024)).isNull();
+    }
+
+    @Test
+    public void testNoRules() {
+        CleaningRules rules = new CleaningRules(null, null);
+
+        assertThat(rules.reasonOf("a.jar", Long.MAX_VALUE)).isNull();
+    }
+
+    // ###### BFG ARGUMENTS ######
+
+    @Test
+    public void testBfgArgumentsCombineAllRules() {
+        assertThat(bfgArguments("*.jar,*.zip", "10M", "node_modules", false))
+            .containsExactly("--delete-files", "{*.jar,*.JAR,*.zip,*.ZIP}",
+                "--delete-folders", "node_modules",
+                "--strip-blobs-bigger-than", "10M",
+                "--no-blob-protection");
+    }
+
+    @Test
+    public void testBfgArgumentsConvertToLfs() {
+        assertThat(bfgArguments("*.jar", "", null, true))
+            .containsExactly("--convert-to-git-lfs", "{*.jar,*.JAR}", "--no-blob-protection");
+    }
+
+    @Test
+    public void testBfgArgumentsWithoutRules() {
+        assertThat(bfgArguments(null, "", null, false)).isNull();
+        assertThat(bfgArguments("", "none", " ", false)).isNull();
+    }
+}
@@ -0,0 +1,57 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.service.client.RateLimiter;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import fr.yodamad.svn2git.service.util.GitCommandManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the git svn clone options of the GitCommandManager class.
+ *
+ * @see GitCommandManager
+ */
+public class GitCommandManagerTest {
+
+    private final MappingManager mappingMgr = mock(MappingManager.class);
+    private GitCommandManager gitCommandManager;
+    private WorkUnit workUnit;
+
+    @BeforeEach
+    public void init() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        gitCommandManager = new GitCommandManager(mock(HistoryManager.class), mappingMgr, applicationProperties,
+            new RateLimiter(applicationProperties), mock(ProgressManager.class));
+        Migration migration = new Migration().svnUrl("https://svn.test").svnGroup("group").svnProject("/project")
+            .trunk("trunk");
+        migration.setId(1L);
+        workUnit = new WorkUnit(migration, "/tmp/root", "/tmp/root/group", new AtomicBoolean(false),
+            new CommandManager(migration), null);
+    }
+
+    @Test
+    public void testNoIgnoredPaths() {
+        when(mappingMgr.getSvnDirectoryDeleteList(1L)).thenReturn(Collections.emptyList());
+
+        assertThat(gitCommandManager.initOptions(workUnit)).doesNotContain("--ignore-paths");
+    }
+
+    @Test
+    public void testAutoIgnoredPathsAreAddedToUserOnes() {
+        when(mappingMgr.getSvnDirectoryDeleteList(1L)).thenReturn(Arrays.asList("docs", "lib"));
+        workUnit.getCommandManager().setAutoIgnoredPaths(Arrays.asList("lib", "installers"));
+
+        assertThat(gitCommandManager.initOptions(workUnit)).contains("--ignore-paths=\"^(/?project/trunk/)(docs/|lib/|installers/).*\"");
+    }
+}
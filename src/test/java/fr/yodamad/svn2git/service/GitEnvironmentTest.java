@@ -0,0 +1,73 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.GitEnvironment;
+import fr.yodamad.svn2git.io.ExecResult;
+import fr.yodamad.svn2git.io.ProcessEngine;
+import kotlin.Unit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the GitEnvironment class, checking what a spawned git command sees.
+ *
+ * @see GitEnvironment
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class GitEnvironmentTest {
+
+    @TempDir
+    Path directory;
+
+    private GitEnvironment environment;
+    private Path hostHome;
+
+    @BeforeEach
+    public void init() throws Exception {
+        hostHome = Files.createDirectories(directory.resolve("host"));
+        Files.write(hostHome.resolve(".gitconfig"),
+            "[user]\n\tname = Host\n[credential]\n\thelper = store\n".getBytes(StandardCharsets.UTF_8));
+        environment = new GitEnvironment(directory.resolve("migration").toString());
+        environment.init(hostHome.toString());
+    }
+
+    @Test
+    public void testVariablesArePassedToCommands() throws Exception {
+        List<String> output = run("sh", "-c", "echo $HOME ; echo $GIT_CONFIG_GLOBAL ; echo $GIT_TERMINAL_PROMPT");
+
+        assertThat(output).containsExactly(environment.getHome(), environment.getGlobalConfig(), "0");
+    }
+
+    @Test
+    public void testGlobalConfigIsPrivate() throws Exception {
+        run("git", "config", "--global", "gc.auto", "0");
+
+        // Written in migration config, not in host one
+        assertThat(new String(Files.readAllBytes(new File(environment.getGlobalConfig()).toPath()), StandardCharsets.UTF_8))
+            .contains("auto = 0");
+        assertThat(new String(Files.readAllBytes(hostHome.resolve(".gitconfig")), StandardCharsets.UTF_8))
+            .doesNotContain("auto");
+        // Host config is included, except credential helpers
+        assertThat(run("git", "config", "user.name")).containsExactly("Host");
+        assertThat(run("git", "config", "--get-all", "credential.helper")).containsExactly("store", "");
+        assertThat(run("git", "config", "--get", "credential.helper")).containsExactly("");
+    }
+
+    private List<String> run(String... command) throws Exception {
+        ExecResult result = ProcessEngine.INSTANCE.run(Arrays.asList(command), directory.toFile(), environment.variables(),
+            0, ProcessEngine.ALL, ProcessEngine.ALL, s -> Unit.INSTANCE, s -> Unit.INSTANCE);
+        assertThat(result.isSuccess()).as(result.getStderr()).isTrue();
+        return result.getStdout();
+    }
+}
@@ -4,7 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static fr.yodamad.svn2git.functions.CleaningFunctionsKt.missingLfsAttributes;
 import static fr.yodamad.svn2git.functions.GitFunctionsKt.generateIgnoreRefs;
+import static fr.yodamad.svn2git.functions.GitFunctionsKt.svnLocationOf;
+import static fr.yodamad.svn2git.service.util.GitCommandsKt.lfsPush;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -177,4 +184,37 @@ public class GitManagerTest {
 
     }
 
+    // ###### HISTORY TESTS ######
+
+    @Test
+    public void testSvnLocationIsReadFromGitSvnId() {
+        assertThat(svnLocationOf("Fix build\n\ngit-svn-id: https://svn.local/repo/project/trunk@12 5e1f-uuid"))
+            .isEqualTo("trunk");
+        assertThat(svnLocationOf("Release\n\ngit-svn-id: https://svn.local/repo/project/tags/1.0@42 5e1f-uuid"))
+            .isEqualTo("tags/1.0");
+        assertThat(svnLocationOf("Fix\n\ngit-svn-id: https://svn.local/repo/project/BRANCHES/feature/sub@7 5e1f-uuid"))
+            .isEqualTo("BRANCHES/feature");
+        assertThat(svnLocationOf("Commit without svn metadata")).isNull();
+    }
+
+    // ###### LFS TESTS ######
+
+    @Test
+    public void testLfsAttributesAreAppendedOnlyWhenMissing() {
+        List<String> existing = Arrays.asList("*.sh text eol=lf", "*.jar filter=lfs diff=lfs merge=lfs -text");
+
+        assertThat(missingLfsAttributes(existing, "*.jar, *.zip"))
+            .containsExactly("*.JAR filter=lfs diff=lfs merge=lfs -text",
+                "*.zip filter=lfs diff=lfs merge=lfs -text",
+                "*.ZIP filter=lfs diff=lfs merge=lfs -text");
+        assertThat(missingLfsAttributes(Collections.emptyList(), null)).isEmpty();
+    }
+
+    @Test
+    public void testLfsObjectsArePushedInBatches() {
+        List<String> pushes = lfsPush(Arrays.asList("oid1", "oid2", "oid3"), 2);
+
+        assertThat(pushes).containsExactly("git lfs push --object-id origin oid1 oid2", "git lfs push --object-id origin oid3");
+        assertThat(lfsPush(Collections.emptyList(), 2)).isEmpty();
+    }
 }
@@ -0,0 +1,34 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.PushResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static fr.yodamad.svn2git.functions.GitFunctionsKt.parsePushPorcelain;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the batched push of the GitPushManager class.
+ *
+ * @see fr.yodamad.svn2git.service.util.GitPushManager
+ */
+public class GitPushManagerTest {
+
+    @Test
+    public void testPorcelainOutputIsParsedByRef() {
+        Map<String, PushResult> results = parsePushPorcelain(Arrays.asList(
+            "To https://gitlab.local/group/project.git",
+            "*\trefs/remotes/origin/tags/v1:refs/tags/v1\t[new tag]",
+            "=\trefs/remotes/origin/feature:refs/heads/feature\t[up to date]",
+            "!\trefs/remotes/origin/tags/v2:refs/tags/v2\t[remote rejected] (pre-receive hook declined)",
+            "Done"));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get("refs/tags/v1")).isEqualTo(new PushResult(true, "[new tag]"));
+        assertThat(results.get("refs/heads/feature").getAccepted()).isTrue();
+        assertThat(results.get("refs/tags/v2").getAccepted()).isFalse();
+        assertThat(results.get("refs/tags/v2").getSummary()).contains("pre-receive hook declined");
+    }
+}
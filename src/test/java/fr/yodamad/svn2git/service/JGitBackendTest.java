@@ -0,0 +1,123 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.GitEnvironment;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.service.git.JGitBackend;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static fr.yodamad.svn2git.service.git.JGitBackendKt.openRepository;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the JGitBackend class, in repository (JGit) and in worktrees (git command line).
+ *
+ * @see JGitBackend
+ */
+public class JGitBackendTest {
+
+    @TempDir
+    Path directory;
+
+    private final JGitBackend backend = new JGitBackend();
+    private WorkUnit workUnit;
+    /** Same repository, seen as a worktree so that git command line is used */
+    private WorkUnit worktree;
+    private String first;
+    private String second;
+
+    @BeforeEach
+    public void initRepository() throws Exception {
+        PersonIdent ident = new PersonIdent("svn2git", "svn2git@test");
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            Files.write(directory.resolve("README.md"), "first".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("README.md").call();
+            RevCommit commit = git.commit().setMessage("first").setAuthor(ident).setCommitter(ident).call();
+            first = commit.name();
+            Files.write(directory.resolve("README.md"), "second".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("README.md").call();
+            commit = git.commit().setMessage("second").setAuthor(ident).setCommitter(ident).call();
+            second = commit.name();
+        }
+        Migration migration = new Migration();
+        workUnit = new WorkUnit(migration, directory.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+        worktree = new WorkUnit(migration, directory.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), "publish-1");
+    }
+
+    @Test
+    public void testResolve() {
+        assertThat(backend.resolve(workUnit, "HEAD")).isEqualTo(second);
+        assertThat(backend.resolve(workUnit, "HEAD~1")).isEqualTo(first);
+        assertThat(backend.resolve(worktree, "HEAD~1")).isEqualTo(first);
+        assertThatThrownBy(() -> backend.resolve(workUnit, "unknown")).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    public void testUpdateRef() {
+        backend.updateRef(workUnit, "refs/heads/jgit", first);
+        backend.updateRef(worktree, "refs/heads/cli", first);
+
+        assertThat(backend.resolve(worktree, "refs/heads/jgit")).isEqualTo(first);
+        assertThat(backend.resolve(workUnit, "refs/heads/cli")).isEqualTo(first);
+
+        // Refs are forced, as git update-ref does
+        backend.updateRef(workUnit, "refs/heads/cli", second);
+        assertThat(backend.resolve(worktree, "refs/heads/cli")).isEqualTo(second);
+    }
+
+    @Test
+    public void testConfig() {
+        assertThat(backend.readConfig(workUnit, "svn-remote.svn.url")).isNull();
+        assertThat(backend.readConfig(worktree, "svn-remote.svn.url")).isNull();
+
+        backend.setConfig(workUnit, "svn-remote.svn.url", "https://svn.test/repo");
+        backend.setConfig(worktree, "user.name", "svn2git");
+
+        assertThat(backend.readConfig(worktree, "svn-remote.svn.url")).isEqualTo("https://svn.test/repo");
+        assertThat(backend.readConfig(workUnit, "svn-remote.svn.url")).isEqualTo("https://svn.test/repo");
+        assertThat(backend.readConfig(workUnit, "user.name")).isEqualTo("svn2git");
+    }
+
+    @Test
+    public void testRemoteBranches() {
+        backend.updateRef(workUnit, "refs/remotes/origin/feature", first);
+        backend.updateRef(workUnit, "refs/remotes/origin/trunk", second);
+
+        assertThat(backend.remoteBranches(workUnit)).containsExactly("origin/feature", "origin/trunk");
+        assertThat(backend.remoteBranches(worktree)).containsExactly("origin/feature", "origin/trunk");
+    }
+
+    @Test
+    public void testCommitTreeUsesMigrationIdentity() throws Exception {
+        Path globalConfig = directory.resolve("migration.gitconfig");
+        Files.write(globalConfig, "[user]\n\tname = Migration\n\temail = migration@test\n".getBytes(StandardCharsets.UTF_8));
+        workUnit.getCommandManager().setEnvironment(Collections.singletonMap(GitEnvironment.GIT_CONFIG_GLOBAL, globalConfig.toString()));
+
+        String commit = backend.commitTree(workUnit, backend.resolve(workUnit, "HEAD^{tree}"), "no history");
+
+        try (Repository repository = openRepository(directory.toString()); RevWalk walk = new RevWalk(repository)) {
+            RevCommit created = walk.parseCommit(ObjectId.fromString(commit));
+            assertThat(created.getCommitterIdent().getName()).isEqualTo("Migration");
+            assertThat(created.getAuthorIdent().getEmailAddress()).isEqualTo("migration@test");
+            assertThat(created.getParentCount()).isZero();
+        }
+    }
+}
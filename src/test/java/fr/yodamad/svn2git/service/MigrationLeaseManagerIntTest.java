@@ -0,0 +1,158 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.Svn2GitApp;
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.MigrationLease;
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum;
+import fr.yodamad.svn2git.repository.MigrationLeaseRepository;
+import fr.yodamad.svn2git.repository.MigrationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the MigrationLeaseManager class.
+ *
+ * @see MigrationLeaseManager
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Svn2GitApp.class)
+public class MigrationLeaseManagerIntTest {
+
+    @Autowired
+    private MigrationLeaseManager leaseManager;
+
+    @Autowired
+    private MigrationLeaseRepository leaseRepository;
+
+    @Autowired
+    private MigrationRepository migrationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Migration migration;
+    private Long migrationId;
+
+    @BeforeEach
+    public void createMigration() {
+        migration = migrationRepository.saveAndFlush(new Migration().svnGroup("group").svnProject("project").user("user")
+            .date(LocalDate.now()).gitlabGroup("group").gitlabProject("project").status(StatusEnum.WAITING));
+        migrationId = migration.getId();
+    }
+
+    @AfterEach
+    public void cleanLeases() {
+        leaseRepository.deleteAll();
+        migrationRepository.delete(migration);
+    }
+
+    @Test
+    public void testNodeIdIsStableAcrossRestarts() {
+        assertThat(leaseManager.getNodeId()).isEqualTo(MigrationLeaseManager.hostName());
+    }
+
+    @Test
+    public void testClaimIsExclusive() {
+        assertThat(leaseManager.claim(migrationId)).isTrue();
+        assertThat(leaseManager.owned()).extracting(MigrationLease::getMigrationId).containsExactly(migrationId);
+
+        // Lease is alive, even its owner cannot claim it again
+        assertThat(leaseManager.claim(migrationId)).isFalse();
+
+        leaseManager.release(migrationId);
+        assertThat(leaseManager.owned()).isEmpty();
+    }
+
+    @Test
+    public void testHeartbeatRenewsLeases() {
+        Instant old = Instant.now().minusSeconds(3600);
+        leaseRepository.saveAndFlush(new MigrationLease().migrationId(migrationId).owner(leaseManager.getNodeId()).heartbeat(old));
+        assertThat(leaseManager.expired()).hasSize(1);
+
+        assertThat(leaseManager.heartbeat()).isEqualTo(1);
+
+        assertThat(leaseManager.expired()).isEmpty();
+        assertThat(leaseRepository.findById(migrationId)).get().extracting(MigrationLease::getHeartbeat).matches(h -> h.isAfter(old));
+    }
+
+    @Test
+    public void testExpiredLeaseOfAnotherNodeIsStolen() {
+        leaseRepository.saveAndFlush(new MigrationLease().migrationId(migrationId).owner("crashed-node").heartbeat(Instant.now().minusSeconds(3600)));
+
+        assertThat(leaseManager.claim(migrationId)).isTrue();
+
+        assertThat(leaseRepository.findById(migrationId)).get().extracting(MigrationLease::getOwner).isEqualTo(leaseManager.getNodeId());
+        // Former owner cannot release it anymore
+        assertThat(leaseRepository.findAllByOwner("crashed-node")).isEmpty();
+    }
+
+    @Test
+    public void testAliveLeaseOfAnotherNodeIsNotStolen() {
+        leaseRepository.saveAndFlush(new MigrationLease().migrationId(migrationId).owner("other-node").heartbeat(Instant.now()));
+
+        assertThat(leaseManager.claim(migrationId)).isFalse();
+        assertThat(leaseManager.dropExpired(migrationId)).isFalse();
+        assertThat(leaseManager.owned()).isEmpty();
+    }
+
+    @Test
+    public void testOnlyWaitingMigrationsAreClaimed() {
+        migrationRepository.saveAndFlush(migration.status(StatusEnum.RUNNING));
+        assertThat(leaseManager.claim(migrationId)).isFalse();
+
+        // Expired lease of a running migration is requeued, not stolen
+        leaseRepository.saveAndFlush(new MigrationLease().migrationId(migrationId).owner("crashed-node").heartbeat(Instant.now().minusSeconds(3600)));
+        assertThat(leaseManager.claim(migrationId)).isFalse();
+        assertThat(leaseRepository.findAllByOwner("crashed-node")).hasSize(1);
+    }
+
+    @Test
+    public void testConcurrentClaimsHaveSingleWinner() throws Exception {
+        MigrationLeaseManager first = nodeManager("node-a");
+        MigrationLeaseManager second = nodeManager("node-b");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CyclicBarrier start = new CyclicBarrier(2);
+                List<Future<Boolean>> claims = new ArrayList<>();
+                for (MigrationLeaseManager node : new MigrationLeaseManager[] { first, second }) {
+                    claims.add(executor.submit(() -> {
+                        start.await();
+                        return node.claim(migrationId);
+                    }));
+                }
+
+                // Losing node gets false, no exception
+                assertThat(claims.get(0).get() ^ claims.get(1).get()).isTrue();
+                assertThat(leaseRepository.findAll()).hasSize(1);
+                leaseRepository.deleteAll();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MigrationLeaseManager nodeManager(String nodeId) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.worker.nodeId = nodeId;
+        return new MigrationLeaseManager(leaseRepository, applicationProperties, transactionManager);
+    }
+}
@@ -0,0 +1,78 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.CleanedFiles;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.enumeration.SvnLayout;
+import fr.yodamad.svn2git.repository.MigrationRepository;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import fr.yodamad.svn2git.service.util.IOManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test class for the resume of interrupted migrations.
+ *
+ * @see MigrationChecker
+ * @see IOManager
+ */
+public class MigrationResumeTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    public void testOnlyMigrationsWithWorkspaceAreResumable() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        MigrationChecker checker = new MigrationChecker(mock(MigrationManager.class), mock(MigrationRepository.class),
+            mock(MigrationLeaseManager.class), applicationProperties);
+
+        assertThat(checker.isResumable(new Migration().workspace(workspace.toString()))).isTrue();
+        assertThat(checker.isResumable(new Migration().workspace(""))).isFalse();
+        assertThat(checker.isResumable(new Migration().workspace(new File(workspace.toFile(), "removed").getPath()))).isFalse();
+
+        applicationProperties.work.resumeOnStartup = false;
+        assertThat(checker.isResumable(new Migration().workspace(workspace.toString()))).isFalse();
+    }
+
+    @Test
+    public void testCleanedFilesAreRestoredFromWorkspace() throws Exception {
+        Migration migration = new Migration();
+        WorkUnit workUnit = new WorkUnit(migration, workspace.toString(), workspace.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+        IOManager ioManager = new IOManager(mock(HistoryManager.class), new ApplicationProperties());
+
+        CleanedFiles trunk = new CleanedFiles("trunk", SvnLayout.TRUNK);
+        trunk.setFileCountBeforeClean(10);
+        trunk.setDeletedFileCountAfterClean(3);
+        trunk.setFileCountAfterClean(7);
+        trunk.setFileSizeTotalBeforeClean(1000L);
+        trunk.setFileSizeTotalAfterClean(400L);
+        Map<String, CleanedFiles> report = new LinkedHashMap<>();
+        report.put("trunk", trunk);
+        report.put("tags/v1", new CleanedFiles("tags/v1", SvnLayout.TAG));
+        ioManager.saveCleanedFiles(workUnit, new CleanedFilesManager(report));
+
+        CleanedFilesManager restored = ioManager.loadCleanedFiles(workUnit);
+
+        assertThat(restored.getCleanedReportMap()).containsOnlyKeys("trunk", "tags/v1");
+        CleanedFiles restoredTrunk = restored.getCleanedReportMap().get("trunk");
+        assertThat(restoredTrunk.getSvnLayout()).isEqualTo(SvnLayout.TRUNK);
+        assertThat(restoredTrunk.getFileCountBeforeClean()).isEqualTo(10);
+        assertThat(restoredTrunk.getDeletedFileCountAfterClean()).isEqualTo(3);
+        assertThat(restoredTrunk.getFileCountAfterClean()).isEqualTo(7);
+        assertThat(restoredTrunk.getFileSizeTotalBeforeClean()).isEqualTo(1000L);
+        assertThat(restoredTrunk.getFileSizeTotalAfterClean()).isEqualTo(400L);
+        assertThat(restored.getCleanedReportMap().get("tags/v1").getSvnLayout()).isEqualTo(SvnLayout.TAG);
+    }
+}
@@ -0,0 +1,133 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.CapacityClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the MigrationScheduler class.
+ *
+ * @see MigrationScheduler
+ */
+public class MigrationSchedulerTest {
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private final ThreadPoolTaskExecutor migrationExecutor = new ThreadPoolTaskExecutor();
+    private final ThreadPoolTaskExecutor publishExecutor = new ThreadPoolTaskExecutor();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicInteger running = new AtomicInteger();
+    private MigrationScheduler scheduler;
+
+    @BeforeEach
+    public void init() {
+        applicationProperties.scheduler.artifactUpload = 2;
+        migrationExecutor.setCorePoolSize(1);
+        migrationExecutor.setMaxPoolSize(1);
+        migrationExecutor.initialize();
+        publishExecutor.initialize();
+        scheduler = new MigrationScheduler(applicationProperties, migrationExecutor, publishExecutor);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        done.countDown();
+        callers.shutdownNow();
+        migrationExecutor.shutdown();
+        publishExecutor.shutdown();
+    }
+
+    @Test
+    public void testOperationsWaitForSlot() throws Exception {
+        for (int i = 0; i < 3; i++) occupy(CapacityClass.ARTIFACT_UPLOAD);
+
+        waitFor(() -> statusOf(CapacityClass.ARTIFACT_UPLOAD).getWaiting() == 1);
+        assertThat(running.get()).isEqualTo(2);
+        assertThat(statusOf(CapacityClass.ARTIFACT_UPLOAD).getInUse()).isEqualTo(2);
+        assertThat(statusOf(CapacityClass.ARTIFACT_UPLOAD).getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHigherLimitAdmitsWaitingOperations() throws Exception {
+        for (int i = 0; i < 3; i++) occupy(CapacityClass.ARTIFACT_UPLOAD);
+        waitFor(() -> statusOf(CapacityClass.ARTIFACT_UPLOAD).getWaiting() == 1);
+
+        scheduler.updateLimit(CapacityClass.ARTIFACT_UPLOAD, 3);
+
+        waitFor(() -> running.get() == 3);
+        assertThat(statusOf(CapacityClass.ARTIFACT_UPLOAD).getWaiting()).isZero();
+        assertThat(applicationProperties.scheduler.artifactUpload).isEqualTo(3);
+    }
+
+    @Test
+    public void testLowerLimitAppliesToNextAdmissions() throws Exception {
+        for (int i = 0; i < 2; i++) occupy(CapacityClass.ARTIFACT_UPLOAD);
+        waitFor(() -> running.get() == 2);
+
+        scheduler.updateLimit(CapacityClass.ARTIFACT_UPLOAD, 1);
+
+        // Running operations are not interrupted
+        assertThat(running.get()).isEqualTo(2);
+        done.countDown();
+        waitFor(() -> running.get() == 0);
+        assertThat(statusOf(CapacityClass.ARTIFACT_UPLOAD).getInUse()).isZero();
+        assertThat(scheduler.withSlot(CapacityClass.ARTIFACT_UPLOAD, () -> statusOf(CapacityClass.ARTIFACT_UPLOAD).getInUse()))
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void testMigrationLimitResizesPool() {
+        scheduler.updateLimit(CapacityClass.MIGRATION, 3);
+
+        assertThat(migrationExecutor.getCorePoolSize()).isEqualTo(3);
+        assertThat(migrationExecutor.getMaxPoolSize()).isEqualTo(3);
+        assertThat(statusOf(CapacityClass.MIGRATION).getLimit()).isEqualTo(3);
+        assertThat(applicationProperties.scheduler.migrations).isEqualTo(3);
+    }
+
+    @Test
+    public void testInvalidLimit() {
+        assertThatThrownBy(() -> scheduler.updateLimit(CapacityClass.SVN_CLONE, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Run an operation holding a slot until the end of the test
+     */
+    private void occupy(CapacityClass capacity) {
+        callers.submit(() -> scheduler.withSlot(capacity, () -> {
+            running.incrementAndGet();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return running.decrementAndGet();
+        }));
+    }
+
+    private SlotStatus statusOf(CapacityClass capacity) {
+        return scheduler.status().stream().filter(status -> status.getCapacity() == capacity).findFirst()
+            .orElseThrow(IllegalStateException::new);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(15);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.CleaningRules;
+import fr.yodamad.svn2git.domain.enumeration.Reason;
+import fr.yodamad.svn2git.service.git.ObjectInventory;
+import fr.yodamad.svn2git.service.git.RemovedBlob;
+import fr.yodamad.svn2git.service.git.TreeStats;
+import kotlin.jvm.functions.Function1;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ObjectInventory class.
+ *
+ * @see ObjectInventory
+ */
+public class ObjectInventoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final PersonIdent ident = new PersonIdent("svn2git", "svn2git@test");
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private Git git;
+    private ObjectId first;
+    private ObjectId trunk;
+    private ObjectId branch;
+
+    @BeforeEach
+    public void initRepository() throws Exception {
+        git = Git.init().setDirectory(directory.toFile()).call();
+        // Binary only living in history
+        write("lib/old.jar", "0123456789");
+        write("src/Main.java", "class Main {}");
+        write("shared/doc/a.txt", "shared");
+        first = commit("first");
+        git.rm().addFilepattern("lib/old.jar").call();
+        trunk = commit("trunk");
+        // Branch sharing src & shared subtrees with trunk
+        git.checkout().setCreateBranch(true).setName("feature").call();
+        write("tools/new.jar", "01234");
+        branch = commit("feature");
+    }
+
+    @AfterEach
+    public void close() {
+        git.close();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testStatsOfRefsSharingSubtrees() throws Exception {
+        Map<String, ObjectId> refs = new LinkedHashMap<>();
+        refs.put("trunk", trunk);
+        refs.put("feature", branch);
+
+        try (ObjectInventory inventory = new ObjectInventory(git.getRepository(), new CleaningRules("*.jar", null), pool)) {
+            Map<String, TreeStats> stats = inventory.statsOf(refs);
+
+            assertThat(stats.get("trunk").getFileCount()).isEqualTo(2);
+            assertThat(stats.get("trunk").getFileSize()).isEqualTo(13 + 6);
+            assertThat(stats.get("trunk").getRemoved()).isEmpty();
+
+            TreeStats feature = stats.get("feature");
+            assertThat(feature.getFileCount()).isEqualTo(3);
+            assertThat(feature.getFileSize()).isEqualTo(13 + 6 + 5);
+            assertThat(feature.getRemoved()).extracting(RemovedBlob::getPath).containsExactly("tools/new.jar");
+            assertThat(feature.getRemoved().get(0).getReason()).isEqualTo(Reason.EXTENSION);
+            assertThat(feature.getRemovedSize()).isEqualTo(5);
+
+            // Subtrees already scanned are reused
+            TreeStats old = inventory.statsOf(first);
+            assertThat(old.getFileCount()).isEqualTo(3);
+            assertThat(old.getRemoved()).extracting(RemovedBlob::getPath).containsExactly("lib/old.jar");
+        }
+    }
+
+    @Test
+    public void testRemovedInHistoryReportsBlobsMissingAtHead() throws Exception {
+        Function1<String, String> location = message -> message.trim();
+        try (ObjectInventory inventory = new ObjectInventory(git.getRepository(), new CleaningRules("*.jar", null), pool)) {
+            Map<RemovedBlob, String> removed = inventory.removedInHistory(Arrays.asList(trunk, branch), location);
+
+            assertThat(removed).hasSize(2);
+            Map<String, String> locations = new LinkedHashMap<>();
+            removed.forEach((blob, where) -> locations.put(blob.getPath(), where));
+            assertThat(locations).containsEntry("lib/old.jar", "first").containsEntry("tools/new.jar", "feature");
+            assertThat(removed.keySet()).filteredOn(blob -> blob.getPath().equals("lib/old.jar"))
+                .extracting(RemovedBlob::getSize).containsExactly(10L);
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ObjectId commit(String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call().getId();
+    }
+}
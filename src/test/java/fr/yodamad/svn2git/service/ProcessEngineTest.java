@@ -0,0 +1,104 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.io.ExecResult;
+import fr.yodamad.svn2git.io.LineRing;
+import fr.yodamad.svn2git.io.ProcessEngine;
+import kotlin.Unit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ProcessEngine class.
+ *
+ * @see ProcessEngine
+ */
+public class ProcessEngineTest {
+
+    /** Starts a child in background, prints its pid & waits for it, as git does for its helpers */
+    private static final String SLEEPING_CHILD = "sleep 60 & echo $! ; wait";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCaptureKeepsLastLines() {
+        LineRing ring = new LineRing(2);
+        ring.add("first");
+        ring.add("second");
+        ring.add("third");
+
+        assertThat(ring.lines()).containsExactly("second", "third");
+        assertThat(ring.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNoCapture() {
+        LineRing ring = new LineRing(0);
+        ring.add("line");
+
+        assertThat(ring.lines()).isEmpty();
+        assertThat(ring.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testTimedOutCommandIsKilledWithItsChildren() throws Exception {
+        ExecResult result = ProcessEngine.INSTANCE.run(Arrays.asList("sh", "-c", SLEEPING_CHILD), directory.toFile(),
+            Collections.emptyMap(), 500, ProcessEngine.ALL, ProcessEngine.ALL, s -> Unit.INSTANCE, s -> Unit.INSTANCE);
+
+        assertThat(result.getTimedOut()).isTrue();
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getWallTimeMillis()).isLessThan(TimeUnit.SECONDS.toMillis(30));
+        assertThat(result.getStdout()).hasSize(1);
+        assertThat(isDead(Long.parseLong(result.getStdout().get(0).trim()))).isTrue();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testCancelledCommandIsKilledWithItsChildren() throws Exception {
+        AtomicLong child = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ExecResult> command = executor.submit(() -> ProcessEngine.INSTANCE.run(Arrays.asList("sh", "-c", SLEEPING_CHILD),
+                directory.toFile(), Collections.emptyMap(), 0, ProcessEngine.ALL, ProcessEngine.ALL, s -> {
+                    child.set(Long.parseLong(s.trim()));
+                    started.countDown();
+                    return Unit.INSTANCE;
+                }, s -> Unit.INSTANCE));
+            assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+
+            command.cancel(true);
+
+            assertThat(isDead(child.get())).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for a process to disappear
+     */
+    private static boolean isDead(long pid) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(15);
+        while (System.currentTimeMillis() < deadline) {
+            if (!ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) return true;
+            Thread.sleep(100);
+        }
+        return false;
+    }
+}
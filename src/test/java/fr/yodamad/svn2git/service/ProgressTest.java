@@ -0,0 +1,62 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.RateWindow;
+import fr.yodamad.svn2git.data.SampleRing;
+import org.junit.jupiter.api.Test;
+
+import static fr.yodamad.svn2git.functions.GitFunctionsKt.parsePushWrittenBytes;
+import static fr.yodamad.svn2git.functions.GitFunctionsKt.parseSvnFetchedRevision;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the progress parsed by the ProgressManager class.
+ *
+ * @see ProgressManager
+ */
+public class ProgressTest {
+
+    @Test
+    public void testFetchedRevisionsAreParsed() {
+        assertThat(parseSvnFetchedRevision("r1234 = 0123456789abcdef0123456789abcdef01234567 (refs/remotes/origin/trunk)")).isEqualTo(1234L);
+        assertThat(parseSvnFetchedRevision("\tA\tsrc/r12 = file")).isNull();
+        assertThat(parseSvnFetchedRevision("Checked out HEAD:")).isNull();
+    }
+
+    @Test
+    public void testPushedBytesAreParsed() {
+        assertThat(parsePushWrittenBytes("Writing objects:  45% (450/1000), 1.50 MiB | 2.40 MiB/s")).isEqualTo(1536L * 1024);
+        assertThat(parsePushWrittenBytes("Writing objects: 100% (3/3), 250 bytes | 250.00 KiB/s, done.")).isEqualTo(250L);
+        assertThat(parsePushWrittenBytes("Counting objects: 100% (3/3), done.")).isNull();
+    }
+
+    @Test
+    public void testRateIsComputedOverWindow() {
+        RateWindow window = new RateWindow(10_000);
+        assertThat(window.perSecond()).isZero();
+
+        window.add(0, 0);
+        window.add(5_000, 50);
+        window.add(10_000, 100);
+        assertThat(window.perSecond()).isEqualTo(10.0);
+
+        // Older points leave the window
+        window.add(20_000, 400);
+        assertThat(window.perSecond()).isEqualTo(30.0);
+    }
+
+    @Test
+    public void testOnlyRecentSamplesAreKept() {
+        SampleRing samples = new SampleRing(2);
+        samples.add("s1");
+        samples.add("s2");
+        assertThat(samples.toString()).isEqualTo("s1" + System.lineSeparator() + "s2");
+
+        samples.add("s3");
+        samples.add("s4");
+        assertThat(samples.toString().split(System.lineSeparator()))
+            .containsExactly("... 2 older samples dropped", "s3", "s4");
+
+        samples.clear();
+        assertThat(samples.toString()).isEmpty();
+    }
+}
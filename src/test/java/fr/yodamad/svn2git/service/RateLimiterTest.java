@@ -0,0 +1,63 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.service.client.AdaptiveBucket;
+import fr.yodamad.svn2git.service.client.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RateLimiter class.
+ *
+ * @see RateLimiter
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void testBurstThenWaitAccordingToRate() {
+        AtomicLong now = new AtomicLong();
+        AdaptiveBucket bucket = new AdaptiveBucket(2, 0.1, 10, 2, now::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        // No token left, next one comes in 1/rate second
+        assertThat(bucket.reserve()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(bucket.reserve()).isZero();
+    }
+
+    @Test
+    public void testRateAdaptsToResponses() {
+        AtomicLong now = new AtomicLong();
+        AdaptiveBucket bucket = new AdaptiveBucket(4, 1, 5, 1, now::get);
+
+        bucket.onResponse(100, 1000);
+        assertThat(bucket.getRate()).isEqualTo(4.5);
+        bucket.onResponse(100, 1000);
+        bucket.onResponse(100, 1000);
+        assertThat(bucket.getRate()).isEqualTo(5);
+
+        bucket.onResponse(2000, 1000);
+        assertThat(bucket.getRate()).isEqualTo(4);
+
+        bucket.onThrottled();
+        bucket.onThrottled();
+        bucket.onThrottled();
+        assertThat(bucket.getRate()).isEqualTo(1);
+        // Tokens are dropped when throttled
+        assertThat(bucket.reserve()).isPositive();
+    }
+
+    @Test
+    public void testThrottlingIsDetectedFromGitMessages() {
+        assertThat(RateLimiter.isThrottled("fatal: unable to access 'https://gitlab/': The requested URL returned error: 429")).isTrue();
+        assertThat(RateLimiter.isThrottled("error: RPC failed; HTTP 503 curl 22")).isTrue();
+        assertThat(RateLimiter.isThrottled("error: failed to push some refs")).isFalse();
+        assertThat(RateLimiter.isThrottled(404)).isFalse();
+        assertThat(RateLimiter.endpointOf("https://gitlab.local:8443/api/v4")).isEqualTo("gitlab.local:8443");
+    }
+}
@@ -0,0 +1,27 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.RevisionScan;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RevisionScan class.
+ *
+ * @see RevisionScan
+ */
+public class RevisionScanTest {
+
+    @Test
+    public void testWindowGrowsWithSparseRevisions() {
+        // 1 project revision out of 50
+        assertThat(new RevisionScan(1, 100_000, 2_000).logWindowSize(10_000)).isEqualTo(5_000);
+        assertThat(new RevisionScan(1, 400_000, 100).logWindowSize(10_000)).isEqualTo(10_000);
+    }
+
+    @Test
+    public void testDefaultWindowForDenseOrEmptyProjects() {
+        assertThat(new RevisionScan(1_000, 2_000, 1_001).logWindowSize(10_000)).isEqualTo(RevisionScan.DEFAULT_WINDOW);
+        assertThat(new RevisionScan(-1, 2_000, 0).logWindowSize(10_000)).isEqualTo(RevisionScan.DEFAULT_WINDOW);
+    }
+}
@@ -0,0 +1,151 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.domain.enumeration.StepEnum;
+import fr.yodamad.svn2git.service.pipeline.StepContext;
+import fr.yodamad.svn2git.service.pipeline.StepGraph;
+import fr.yodamad.svn2git.service.pipeline.StepKey;
+import fr.yodamad.svn2git.service.pipeline.StepNode;
+import kotlin.Unit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the StepGraph class.
+ *
+ * @see StepGraph
+ */
+public class StepGraphTest {
+
+    private static final StepKey<Integer> PROJECT = new StepKey<>("project");
+    private static final StepKey<String> CLONE = new StepKey<>("clone");
+
+    @Test
+    public void testIndependentStepsRunConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<StepEnum> executed = new CopyOnWriteArrayList<>();
+        StepGraph graph = new StepGraph(Arrays.asList(
+            new StepNode(StepEnum.GITLAB_PROJECT_CREATION, emptySet(), singleton(PROJECT), ctx -> {
+                bothStarted.countDown();
+                assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                ctx.set(PROJECT, 42);
+                executed.add(StepEnum.GITLAB_PROJECT_CREATION);
+            }),
+            new StepNode(StepEnum.SVN_CHECKOUT, emptySet(), singleton(CLONE), ctx -> {
+                bothStarted.countDown();
+                assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                ctx.set(CLONE, "repo");
+                executed.add(StepEnum.SVN_CHECKOUT);
+            }),
+            new StepNode(StepEnum.GIT_PUSH, new HashSet<>(Arrays.asList(PROJECT, CLONE)), emptySet(), ctx -> {
+                assertThat(ctx.get(PROJECT)).isEqualTo(42);
+                assertThat(ctx.get(CLONE)).isEqualTo("repo");
+                executed.add(StepEnum.GIT_PUSH);
+            })));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            graph.run(new StepContext(), executor);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executed).hasSize(3);
+        assertThat(executed.get(2)).isEqualTo(StepEnum.GIT_PUSH);
+    }
+
+    @Test
+    public void testFailureStopsDependentSteps() {
+        List<StepEnum> executed = new CopyOnWriteArrayList<>();
+        StepGraph graph = new StepGraph(Arrays.asList(
+            new StepNode(StepEnum.SVN_CHECKOUT, emptySet(), singleton(CLONE), ctx -> {
+                throw new IllegalStateException("clone failed");
+            }),
+            new StepNode(StepEnum.GIT_PUSH, singleton(CLONE), emptySet(), ctx -> executed.add(StepEnum.GIT_PUSH))));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThatThrownBy(() -> graph.run(new StepContext(), executor))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("clone failed");
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executed).isEmpty();
+    }
+
+    @Test
+    public void testExecutedStepsAreReported() {
+        List<String> reported = new CopyOnWriteArrayList<>();
+        AtomicLong checkoutDuration = new AtomicLong(-1);
+        StepGraph graph = new StepGraph(Arrays.asList(
+            new StepNode(StepEnum.SVN_CHECKOUT, emptySet(), singleton(CLONE),
+                ctx -> ctx.set(CLONE, "restored"),
+                ctx -> {
+                    Thread.sleep(50);
+                    ctx.set(CLONE, "repo");
+                }),
+            new StepNode(StepEnum.GIT_PUSH, singleton(CLONE), emptySet(), ctx -> {
+                throw new IllegalStateException("push failed");
+            })),
+            (node, duration, failure) -> {
+                if (node.getStep() == StepEnum.SVN_CHECKOUT) checkoutDuration.set(duration);
+                reported.add(node.getStep() + (failure == null ? " done" : " failed : " + failure.getMessage()));
+            });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThatThrownBy(() -> graph.run(new StepContext(), executor)).hasMessage("push failed");
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(reported).containsExactly("SVN_CHECKOUT done", "GIT_PUSH failed : push failed");
+        assertThat(checkoutDuration.get()).isGreaterThanOrEqualTo(50L);
+    }
+
+    @Test
+    public void testCompletedStepsAreRestored() throws Exception {
+        List<StepEnum> executed = new CopyOnWriteArrayList<>();
+        List<StepEnum> checkpoints = new CopyOnWriteArrayList<>();
+        StepGraph graph = new StepGraph(Arrays.asList(
+            new StepNode(StepEnum.SVN_CHECKOUT, emptySet(), singleton(CLONE),
+                ctx -> ctx.set(CLONE, "restored"),
+                ctx -> executed.add(StepEnum.SVN_CHECKOUT)),
+            new StepNode(StepEnum.GIT_PUSH, singleton(CLONE), emptySet(), ctx -> {
+                assertThat(ctx.get(CLONE)).isEqualTo("restored");
+                executed.add(StepEnum.GIT_PUSH);
+            })));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            graph.run(new StepContext(), executor, singleton(StepEnum.SVN_CHECKOUT), node -> {
+                checkpoints.add(node.getStep());
+                return Unit.INSTANCE;
+            });
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executed).containsExactly(StepEnum.GIT_PUSH);
+        assertThat(checkpoints).containsExactly(StepEnum.GIT_PUSH);
+    }
+
+    @Test
+    public void testMissingInputIsRejected() {
+        assertThatThrownBy(() -> new StepGraph(Collections.singletonList(
+            new StepNode(StepEnum.GIT_PUSH, singleton(CLONE), emptySet(), ctx -> { }))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,193 @@
+package fr.yodamad.svn2git.service;
+
+import com.sun.net.httpserver.HttpServer;
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.service.client.ArtifactoryAdmin;
+import fr.yodamad.svn2git.service.client.RateLimiter;
+import fr.yodamad.svn2git.service.client.StreamingUploadClient;
+import fr.yodamad.svn2git.service.client.TransferResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the StreamingUploadClient class, against a local HTTP server.
+ *
+ * @see StreamingUploadClient
+ */
+public class StreamingUploadClientTest {
+
+    private static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir
+    Path directory;
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    /** Status returned for each request, in order, last one is then repeated */
+    private final List<Integer> statuses = new CopyOnWriteArrayList<>();
+    private StreamingUploadClient client;
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                exchange.getRequestHeaders().getFirst("Content-Length"),
+                exchange.getRequestHeaders().getFirst("Transfer-Encoding"),
+                exchange.getRequestHeaders().getFirst("X-Checksum-Deploy"),
+                exchange.getRequestHeaders().getFirst("X-Checksum-Sha1"),
+                exchange.getRequestHeaders().getFirst("Authorization"),
+                read(exchange.getRequestBody()));
+            int status = statuses.get(Math.min(requests.size(), statuses.size() - 1));
+            requests.add(request);
+            byte[] response = ("{\"status\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        statuses.add(201);
+        applicationProperties.rateLimit.enabled = false;
+        client = new StreamingUploadClient(applicationProperties);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testFileIsStreamedWithFixedLength() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        File file = Files.write(directory.resolve("lib.jar"), content).toFile();
+
+        TransferResult result = client.put(baseUrl + "/repo/lib.jar", file, Collections.singletonMap("X-Checksum-Sha1", SHA1));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getStatus()).isEqualTo(201);
+        assertThat(result.getBytes()).isEqualTo(content.length);
+        assertThat(requests).hasSize(1);
+        Request request = requests.get(0);
+        assertThat(request.method).isEqualTo("PUT");
+        assertThat(request.path).isEqualTo("/repo/lib.jar");
+        // Length is known upfront, body is not chunked
+        assertThat(request.contentLength).isEqualTo(String.valueOf(content.length));
+        assertThat(request.transferEncoding).isNull();
+        assertThat(request.checksum).isEqualTo(SHA1);
+        assertThat(request.body).isEqualTo(content);
+    }
+
+    @Test
+    public void testErrorStatusIsReturned() throws IOException {
+        statuses.set(0, 500);
+        File file = Files.write(directory.resolve("lib.jar"), "content".getBytes(StandardCharsets.UTF_8)).toFile();
+
+        TransferResult result = client.put(baseUrl + "/repo/lib.jar", file, Collections.emptyMap());
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getStatus()).isEqualTo(500);
+        // Connection is still usable after an error
+        statuses.set(0, 200);
+        assertThat(client.put(baseUrl + "/repo/lib.jar", Collections.emptyMap()).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void testArtifactoryUploadsContentWhenChecksumIsUnknown() throws IOException {
+        statuses.set(0, 404);
+        statuses.add(201);
+        File file = Files.write(directory.resolve("lib.jar"), "content".getBytes(StandardCharsets.UTF_8)).toFile();
+
+        TransferResult result = artifactory().uploadArtifact(file, "group", "artifact", "1.0", SHA1);
+
+        assertThat(result.getStatus()).isEqualTo(201);
+        assertThat(requests).hasSize(2);
+        Request deploy = requests.get(0);
+        assertThat(deploy.path).isEqualTo("/artifactory/libs/group/artifact/1.0/lib.jar");
+        assertThat(deploy.checksumDeploy).isEqualTo("true");
+        assertThat(deploy.body).isEmpty();
+        Request upload = requests.get(1);
+        assertThat(upload.path).isEqualTo(deploy.path);
+        assertThat(upload.checksumDeploy).isNull();
+        assertThat(upload.checksum).isEqualTo(SHA1);
+        assertThat(upload.authorization).isEqualTo(deploy.authorization).startsWith("Basic ");
+        assertThat(new String(upload.body, StandardCharsets.UTF_8)).isEqualTo("content");
+    }
+
+    @Test
+    public void testArtifactoryDeploysKnownChecksumWithoutContent() throws IOException {
+        File file = Files.write(directory.resolve("lib.jar"), "content".getBytes(StandardCharsets.UTF_8)).toFile();
+
+        assertThat(artifactory().uploadArtifact(file, "group", "artifact", "1.0", SHA1).isSuccess()).isTrue();
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).checksumDeploy).isEqualTo("true");
+        assertThat(requests.get(0).body).isEmpty();
+    }
+
+    private ArtifactoryAdmin artifactory() {
+        applicationProperties.artifactory.url = baseUrl + "/artifactory/";
+        applicationProperties.artifactory.repository = "libs";
+        applicationProperties.artifactory.groupIdPrefix = "";
+        applicationProperties.artifactory.user = "user";
+        applicationProperties.artifactory.password = "password";
+        return new ArtifactoryAdmin(applicationProperties, new RateLimiter(applicationProperties), client);
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) >= 0) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    /**
+     * Request received by the server
+     */
+    private static class Request {
+        final String method;
+        final String path;
+        final String contentLength;
+        final String transferEncoding;
+        final String checksumDeploy;
+        final String checksum;
+        final String authorization;
+        final byte[] body;
+
+        Request(String method, String path, String contentLength, String transferEncoding, String checksumDeploy,
+                String checksum, String authorization, byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.contentLength = contentLength;
+            this.transferEncoding = transferEncoding;
+            this.checksumDeploy = checksumDeploy;
+            this.checksum = checksum;
+            this.authorization = authorization;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.data.CleaningRules;
+import fr.yodamad.svn2git.data.SvnAnalysis;
+import fr.yodamad.svn2git.data.SvnFile;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SvnAnalysis class.
+ *
+ * @see SvnAnalysis
+ */
+public class SvnAnalysisTest {
+
+    @Test
+    public void testIgnorableFoldersOnlyHoldForbiddenExtensions() {
+        SvnAnalysis analysis = new SvnAnalysis(new CleaningRules("*.jar", "1M"), 20, 50);
+
+        analysis.add("trunk/lib/a.jar", "lib/a.jar", 10);
+        analysis.add("trunk/lib/ext/b.jar", "lib/ext/b.jar", 10);
+        analysis.add("trunk/dist/big.bin", "dist/big.bin", 2 * 1024 * 1024);
+        analysis.add("trunk/src/Main.java", "src/Main.java", 10);
+        analysis.add("trunk/src/libs/c.jar", "src/libs/c.jar", 10);
+        analysis.add("trunk/mixed/d.jar", "mixed/d.jar", 10);
+        // Same folder in a tag, with a kept file
+        analysis.add("tags/1.0/mixed/readme.txt", "mixed/readme.txt", 10);
+
+        // Files removed for their size may have been smaller in history
+        assertThat(analysis.ignorableFolders()).containsExactly("lib", "src/libs");
+        assertThat(analysis.getRemovedCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testFoldersHoldingKeptFilesInHistoryAreNotIgnorable() {
+        SvnAnalysis analysis = new SvnAnalysis(new CleaningRules("*.jar", null), 20, 50);
+        analysis.add("trunk/lib/a.jar", "lib/a.jar", 10);
+        analysis.add("trunk/tools/b.jar", "tools/b.jar", 10);
+        analysis.add("trunk/vendor/ext/c.jar", "vendor/ext/c.jar", 10);
+
+        analysis.addFromHistory("trunk/lib/a.jar", "lib/a.jar");
+        analysis.addFromHistory("branches/old/tools/build.xml", "tools/build.xml");
+        analysis.addFromHistory("README.txt", null);
+
+        assertThat(analysis.ignorableFolders()).containsExactly("lib", "vendor");
+
+        // Content of folders copied from outside of the project is unknown
+        analysis.addCopiedFromHistory("vendor/ext");
+        assertThat(analysis.ignorableFolders()).containsExactly("lib");
+        analysis.addCopiedFromHistory("");
+        assertThat(analysis.ignorableFolders()).isEmpty();
+    }
+
+    @Test
+    public void testHistogramAndBiggest() {
+        SvnAnalysis analysis = new SvnAnalysis(new CleaningRules(null, null), 2, 50);
+
+        analysis.add("trunk/a", "a", 10);
+        analysis.add("trunk/b", "b", 50 * 1024);
+        analysis.add("trunk/c", "c", 200L * 1024 * 1024);
+        analysis.add("trunk/d", "d", 5L * 1024 * 1024);
+
+        assertThat(analysis.getFileCount()).isEqualTo(4);
+        assertThat(analysis.getHistogram()).containsEntry("<1K", 1L).containsEntry("<100K", 1L)
+            .containsEntry("<10M", 1L).containsEntry(">=100M", 1L).containsEntry("<1M", 0L);
+        assertThat(analysis.getBiggest()).extracting(SvnFile::getPath).containsExactly("trunk/c", "trunk/d");
+        assertThat(analysis.ignorableFolders()).isEmpty();
+    }
+
+    @Test
+    public void testHistoryOnlyCountsFilesMissingAtHead() {
+        SvnAnalysis analysis = new SvnAnalysis(new CleaningRules("*.zip", null), 20, 50);
+        analysis.add("trunk/a.zip", "a.zip", 10);
+
+        analysis.addFromHistory("trunk/a.zip", "a.zip");
+        analysis.addFromHistory("trunk/old.zip", "old.zip");
+        analysis.addFromHistory("trunk/old.zip", "old.zip");
+        analysis.addFromHistory("trunk/Old.java", "Old.java");
+
+        assertThat(analysis.getHistoryOnlyCount()).isEqualTo(1);
+        assertThat(analysis.getHistoryOnly()).containsExactly("trunk/old.zip");
+    }
+}
@@ -0,0 +1,158 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.MigrationHistory;
+import fr.yodamad.svn2git.domain.enumeration.StatusEnum;
+import fr.yodamad.svn2git.domain.enumeration.StepEnum;
+import fr.yodamad.svn2git.service.git.JGitBackend;
+import fr.yodamad.svn2git.service.svn.SvnMirror;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the staging and release of mirrors by the SvnMirror class.
+ *
+ * @see SvnMirror
+ */
+public class SvnMirrorTest {
+
+    private static final String REMOTE_URL = "https://svn.test/group";
+    private static final String SECRET = "s3cret";
+
+    @TempDir
+    Path root;
+
+    private final HistoryManager historyMgr = mock(HistoryManager.class);
+    private final JGitBackend backend = new JGitBackend();
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private SvnMirror svnMirror;
+    private File mirror;
+    private WorkUnit workUnit;
+
+    @BeforeEach
+    public void init() throws Exception {
+        when(historyMgr.startStep(any(), eq(StepEnum.SVN_MIRROR), anyString())).thenReturn(new MigrationHistory());
+        svnMirror = new SvnMirror(applicationProperties, historyMgr, backend);
+        mirror = root.resolve("svn-mirror").toFile();
+        Path directory = root.resolve("group");
+        Migration migration = new Migration().svnUrl("https://svn.test").svnGroup("group");
+        workUnit = new WorkUnit(migration, root.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+        Git.init().setDirectory(directory.toFile()).call().close();
+    }
+
+    @Test
+    public void testMirrorIsReplicatedWithoutExposingCredentials() throws Exception {
+        SVNURL remote = remoteRepository();
+        Migration migration = new Migration().svnUrl(remote.toString()).svnGroup("group").svnProject("project")
+            .svnUser("user").svnPassword(SECRET);
+        workUnit = new WorkUnit(migration, root.toString(), root.resolve("group").toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+        applicationProperties.svn.mirror = true;
+
+        assertThat(svnMirror.stage(workUnit)).isTrue();
+
+        assertThat(workUnit.getCommandManager().getSvnMirrorUrl()).isEqualTo(SVNURL.fromFile(mirror).appendPath("group", false).toString());
+        SVNRepository replica = SVNRepositoryFactory.create(SVNURL.fromFile(mirror));
+        try {
+            assertThat(replica.getRepositoryUUID(true)).isEqualTo(SVNRepositoryFactory.create(remote).getRepositoryUUID(true));
+            assertThat(replica.checkPath("group/project/trunk/a.txt", -1)).isEqualTo(SVNNodeKind.FILE);
+        } finally {
+            replica.closeSession();
+        }
+        // Nothing traced nor recorded holds the password
+        assertThat(workUnit.getCommandManager().getCommandLog().entrySet())
+            .noneMatch(command -> command.getKey().contains(SECRET) || command.getValue().contains(SECRET));
+        verify(historyMgr).endStep(any(), eq(StatusEnum.DONE), argThat(data -> !data.contains(SECRET)));
+    }
+
+    @Test
+    public void testMirrorOfInterruptedExecutionIsReleased() throws Exception {
+        // State left by a clone interrupted before release
+        Files.createDirectories(mirror.toPath());
+        backend.setConfig(workUnit, "svn-remote.svn.url", SVNURL.fromFile(mirror).appendPath("group", false).toString());
+        backend.setConfig(workUnit, "svn-remote.svn.rewriteRoot", REMOTE_URL);
+
+        svnMirror.release(workUnit);
+
+        assertThat(backend.readConfig(workUnit, "svn-remote.svn.url")).isEqualTo(REMOTE_URL);
+        assertThat(backend.readConfig(workUnit, "svn-remote.svn.rewriteRoot")).isNull();
+        assertThat(mirror).doesNotExist();
+    }
+
+    @Test
+    public void testLeftoverMirrorFolderIsRemoved() throws Exception {
+        Files.createDirectories(mirror.toPath().resolve("db"));
+        backend.setConfig(workUnit, "svn-remote.svn.url", REMOTE_URL);
+
+        svnMirror.release(workUnit);
+
+        assertThat(mirror).doesNotExist();
+        assertThat(backend.readConfig(workUnit, "svn-remote.svn.url")).isEqualTo(REMOTE_URL);
+    }
+
+    @Test
+    public void testNothingToReleaseWithoutMirror() throws Exception {
+        backend.setConfig(workUnit, "svn-remote.svn.url", REMOTE_URL);
+
+        svnMirror.release(workUnit);
+
+        verify(historyMgr, never()).startStep(any(), any(), anyString());
+    }
+
+    /**
+     * Local repository standing for the remote server, with a file in group/project/trunk
+     */
+    private SVNURL remoteRepository() throws Exception {
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(root.resolve("remote").toFile(), true, false);
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        try {
+            ISVNEditor editor = repository.getCommitEditor("Initial import", null);
+            editor.openRoot(-1);
+            editor.addDir("group", null, -1);
+            editor.addDir("group/project", null, -1);
+            editor.addDir("group/project/trunk", null, -1);
+            editor.addFile("group/project/trunk/a.txt", null, -1);
+            editor.applyTextDelta("group/project/trunk/a.txt", null);
+            new SVNDeltaGenerator().sendDelta("group/project/trunk/a.txt",
+                new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)), editor, true);
+            editor.closeFile("group/project/trunk/a.txt", null);
+            editor.closeDir();
+            editor.closeDir();
+            editor.closeDir();
+            editor.closeDir();
+            editor.closeEdit();
+        } finally {
+            repository.closeSession();
+        }
+        return url;
+    }
+}
@@ -0,0 +1,61 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.UploadedArtifact;
+import fr.yodamad.svn2git.repository.UploadedArtifactRepository;
+import fr.yodamad.svn2git.service.upload.UploadDecision;
+import fr.yodamad.svn2git.service.upload.UploadIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the UploadIndex class.
+ *
+ * @see UploadIndex
+ */
+public class UploadIndexTest {
+
+    private final UploadedArtifactRepository repository = mock(UploadedArtifactRepository.class);
+    private UploadIndex index;
+
+    @BeforeEach
+    public void init() {
+        when(repository.save(any(UploadedArtifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        UploadedArtifact uploaded = new UploadedArtifact().path("project/1.0/lib.jar").sha1("sha-lib");
+        UploadedArtifact linked = new UploadedArtifact().path("project/1.1/copy.jar").sha1("sha-copy").linkedTo("project/1.0/copy.jar");
+        index = new UploadIndex(repository, new Migration(), "gitlab", Arrays.asList(uploaded, linked));
+    }
+
+    @Test
+    public void testArtifactsOfPreviousExecutionAreDone() {
+        assertThat(index.decide("project/1.0/lib.jar", "sha-lib")).isEqualTo(UploadDecision.DONE);
+        assertThat(index.decide("project/1.1/copy.jar", "sha-copy")).isEqualTo(UploadDecision.DONE);
+    }
+
+    @Test
+    public void testIdenticalContentIsDuplicate() {
+        assertThat(index.decide("project/2.0/lib.jar", "sha-lib")).isEqualTo(UploadDecision.DUPLICATE);
+        assertThat(index.uploadedAs("sha-lib")).isEqualTo("project/1.0/lib.jar");
+        // Linked artifacts don't hold content
+        assertThat(index.decide("project/2.0/copy.jar", "sha-copy")).isEqualTo(UploadDecision.UPLOAD);
+        assertThat(index.uploadedAs("sha-copy")).isNull();
+    }
+
+    @Test
+    public void testRecordedArtifacts() {
+        index.record("project/2.0/new.jar", "sha-new", "tags/2.0", 10L, null);
+        index.record("project/2.1/new.jar", "sha-new", "tags/2.1", 10L, "project/2.0/new.jar");
+
+        assertThat(index.decide("project/2.0/new.jar", "sha-new")).isEqualTo(UploadDecision.DONE);
+        assertThat(index.decide("project/2.1/new.jar", "sha-new")).isEqualTo(UploadDecision.DONE);
+        assertThat(index.decide("project/3.0/new.jar", "sha-new")).isEqualTo(UploadDecision.DUPLICATE);
+        assertThat(index.uploadedAs("sha-new")).isEqualTo("project/2.0/new.jar");
+    }
+}
@@ -0,0 +1,180 @@
+package fr.yodamad.svn2git.service;
+
+import fr.yodamad.svn2git.config.ApplicationProperties;
+import fr.yodamad.svn2git.data.WorkUnit;
+import fr.yodamad.svn2git.domain.Migration;
+import fr.yodamad.svn2git.domain.MigrationHistory;
+import fr.yodamad.svn2git.domain.UploadedArtifact;
+import fr.yodamad.svn2git.domain.enumeration.StepEnum;
+import fr.yodamad.svn2git.repository.UploadedArtifactRepository;
+import fr.yodamad.svn2git.service.client.TransferResult;
+import fr.yodamad.svn2git.service.upload.UploadFile;
+import fr.yodamad.svn2git.service.upload.UploadIndexes;
+import fr.yodamad.svn2git.service.upload.UploadPipeline;
+import fr.yodamad.svn2git.service.upload.UploadTarget;
+import fr.yodamad.svn2git.service.util.CommandManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the deduplication of uploads in the UploadPipeline class.
+ *
+ * @see UploadPipeline
+ */
+public class UploadPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private final UploadedArtifactRepository repository = mock(UploadedArtifactRepository.class);
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private final FakeTarget target = new FakeTarget();
+    private UploadPipeline pipeline;
+    private WorkUnit workUnit;
+
+    @BeforeEach
+    public void init() {
+        applicationProperties.upload.gitlabParallelism = 2;
+        applicationProperties.upload.maxAttempts = 1;
+        applicationProperties.upload.backoffMilliSeconds = 0L;
+        when(repository.save(any(UploadedArtifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        HistoryManager historyMgr = mock(HistoryManager.class);
+        when(historyMgr.startStep(any(), any(), anyString())).thenReturn(new MigrationHistory());
+        MigrationScheduler scheduler = new MigrationScheduler(applicationProperties, new ThreadPoolTaskExecutor(), new ThreadPoolTaskExecutor());
+        pipeline = new UploadPipeline(applicationProperties, historyMgr, scheduler, new UploadIndexes(repository),
+            Collections.singletonList(target));
+        Migration migration = new Migration();
+        workUnit = new WorkUnit(migration, directory.toString(), directory.toString(), new AtomicBoolean(false),
+            new CommandManager(migration), null);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void testContentAlreadyUploadedIsLinked() {
+        when(repository.findAllByMigrationIdAndTarget(any(), anyString())).thenReturn(Collections.singletonList(
+            new UploadedArtifact().path("1.0/lib.jar").sha1("sha-lib")));
+
+        assertThat(uploadTag("tags/2.0", new UploadFile(directory.resolve("lib.jar"), "sha-lib", 10L))).isTrue();
+
+        assertThat(target.uploads).containsExactly("2.0/lib.jar -> 1.0/lib.jar");
+    }
+
+    @Test
+    public void testIdenticalFilesWaitForUploadInFlight() {
+        target.blockFirstUpload(2);
+
+        assertThat(uploadTag("tags/1.0", new UploadFile(directory.resolve("a.jar"), "sha-same", 10L),
+            new UploadFile(directory.resolve("b.jar"), "sha-same", 10L))).isTrue();
+
+        List<String> uploads = new ArrayList<>(target.uploads);
+        assertThat(uploads).hasSize(2);
+        String uploaded = uploads.get(0).replace(" -> content", "");
+        assertThat(uploads.get(1)).endsWith(" -> " + uploaded);
+    }
+
+    @Test
+    public void testIdenticalFileIsUploadedWhenUploadInFlightFails() {
+        target.blockFirstUpload(2);
+        target.failFirstUpload = true;
+
+        assertThat(uploadTag("tags/1.0", new UploadFile(directory.resolve("a.jar"), "sha-same", 10L),
+            new UploadFile(directory.resolve("b.jar"), "sha-same", 10L))).isFalse();
+
+        assertThat(target.uploads).hasSize(2).allMatch(upload -> upload.endsWith(" -> content"));
+    }
+
+    private boolean uploadTag(String svnLocation, UploadFile... files) {
+        File folder = directory.resolve(svnLocation).toFile();
+        assertThat(folder.mkdirs()).isTrue();
+        UploadPipeline.UploadSession session = pipeline.open(workUnit);
+        assertThat(session).isNotNull();
+        session.submit(svnLocation, folder, Arrays.asList(files));
+        return session.await();
+    }
+
+    /**
+     * Target recording uploads, as "path -> linked path" or "path -> content"
+     */
+    private static class FakeTarget implements UploadTarget {
+
+        private final ConcurrentLinkedQueue<String> uploads = new ConcurrentLinkedQueue<>();
+        /** Paths computed, i.e. files whose upload has started */
+        private CountDownLatch started = new CountDownLatch(0);
+        private final AtomicBoolean first = new AtomicBoolean(true);
+        private boolean failFirstUpload;
+
+        /**
+         * First upload of content waits for all files to be started, so that others find it in flight
+         */
+        void blockFirstUpload(int files) {
+            started = new CountDownLatch(files);
+        }
+
+        @Override
+        public String getName() {
+            return "gitlab";
+        }
+
+        @Override
+        public StepEnum getStep() {
+            return StepEnum.UPLOAD_TO_GITLAB;
+        }
+
+        @Override
+        public boolean isEnabled(Migration migration) {
+            return true;
+        }
+
+        @Override
+        public String pathOf(WorkUnit workUnit, String version, UploadFile file) {
+            started.countDown();
+            return version + "/" + file.getFileName();
+        }
+
+        @Override
+        public TransferResult upload(WorkUnit workUnit, String version, UploadFile file, String linkedTo) {
+            int status = 201;
+            if (linkedTo == null && first.getAndSet(false)) {
+                try {
+                    started.await(30, TimeUnit.SECONDS);
+                    // Let identical file register as waiting for this upload
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failFirstUpload) status = 500;
+            }
+            uploads.add(version + "/" + file.getFileName() + " -> " + (linkedTo == null ? "content" : linkedTo));
+            return new TransferResult(status, file.getSize(), 1L);
+        }
+
+        @Override
+        public boolean canLink() {
+            return true;
+        }
+    }
+}
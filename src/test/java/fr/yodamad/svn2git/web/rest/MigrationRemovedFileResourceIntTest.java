@@ -12,6 +12,7 @@ import fr.yodamad.svn2git.service.MappingService;
 import fr.yodamad.svn2git.service.MigrationHistoryService;
 import fr.yodamad.svn2git.service.MigrationManager;
 import fr.yodamad.svn2git.service.MigrationRemovedFileService;
+import fr.yodamad.svn2git.service.ProgressManager;
 import fr.yodamad.svn2git.web.rest.errors.ExceptionTranslator;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -118,6 +119,9 @@ public class MigrationRemovedFileResourceIntTest {
     @Autowired
     private GitlabResource gitlabResource;
 
+    @Autowired
+    private ProgressManager progressManager;
+
     /**
      * for creation of supporting Migration record
      */
@@ -134,7 +138,7 @@ public class MigrationRemovedFileResourceIntTest {
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter).build();
 
-        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, applicationProperties);
+        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, progressManager, applicationProperties);
         this.restMigrationMockMvc = MockMvcBuilders.standaloneSetup(migrationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -9,6 +9,7 @@ import fr.yodamad.svn2git.repository.MigrationRepository;
 import fr.yodamad.svn2git.service.MappingService;
 import fr.yodamad.svn2git.service.MigrationHistoryService;
 import fr.yodamad.svn2git.service.MigrationManager;
+import fr.yodamad.svn2git.service.ProgressManager;
 import fr.yodamad.svn2git.web.rest.errors.ExceptionTranslator;
 import org.apache.commons.lang3.RandomUtils;
 import org.assertj.core.api.Assertions;
@@ -100,13 +101,16 @@ public class MigrationResourceIntTest {
     @Autowired
     private GitlabResource gitlabResource;
 
+    @Autowired
+    private ProgressManager progressManager;
+
     @Autowired
     private ApplicationProperties applicationProperties;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, applicationProperties);
+        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, progressManager, applicationProperties);
         this.restMigrationMockMvc = MockMvcBuilders.standaloneSetup(migrationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -8,6 +8,7 @@ import fr.yodamad.svn2git.repository.MigrationRepository;
 import fr.yodamad.svn2git.service.MappingService;
 import fr.yodamad.svn2git.service.MigrationHistoryService;
 import fr.yodamad.svn2git.service.MigrationManager;
+import fr.yodamad.svn2git.service.ProgressManager;
 import fr.yodamad.svn2git.web.rest.errors.ExceptionTranslator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -73,6 +74,9 @@ public class MigrationResourceIntTest2 {
     @Autowired
     private GitlabResource gitlabResource;
 
+    @Autowired
+    private ProgressManager progressManager;
+
     @Autowired
     private ApplicationProperties applicationProperties;
 
@@ -82,7 +86,7 @@ public class MigrationResourceIntTest2 {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, applicationProperties);
+        final MigrationResource migrationResource = new MigrationResource(migrationRepository, migrationManager, migrationHistoryService, mappingService, gitlabResource, progressManager, applicationProperties);
         this.restMigrationMockMvc = MockMvcBuilders.standaloneSetup(migrationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)